@@ -0,0 +1,214 @@
+package fr.umontpellier.iut.gui;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import fr.umontpellier.iut.rails.EncodeurEtat;
+import fr.umontpellier.iut.rails.ObjetJson;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Calcul des différences entre deux instantanés de l'état de la partie (voir Jeu.etatJson()), sous la forme d'une
+ * liste d'opérations inspirées de JSON Patch (RFC 6902) :
+ *  - {"op": "add", "path": ..., "value": ...} (nouvelle clé d'un objet, ou "/-" pour ajouter à la fin d'un tableau)
+ *  - {"op": "remove", "path": ...}
+ *  - {"op": "replace", "path": ..., "value": ...}
+ *
+ * Les chemins sont des JSON Pointer (RFC 6901), et les opérations s'appliquent dans l'ordre. Un tableau qui a seulement
+ * été prolongé ou raccourci par la fin ne transmet que ses différences en fin de tableau. Un tableau décalé, dont les
+ * premiers éléments ont été retirés et d'autres ajoutés à la fin (comme la fenêtre des derniers messages du log),
+ * transmet des "remove" en tête et des "add" en fin de tableau. Sinon, un tableau de même taille est comparé élément
+ * par élément, et un tableau de taille différente est remplacé entièrement. Les valeurs simples (chaînes, nombres,
+ * cartes, destinations...) sont comparées avec equals (les cartes et destinations, immuables, par identité).
+ */
+public final class DiffJson {
+    /**
+     * Opération de modification (`valeur` est null pour "remove")
+     */
+    public record Operation(String op, String chemin, Object valeur) {
+    }
+
+    private DiffJson() {
+    }
+
+    /**
+     * @return la liste des opérations qui transforment `ancien` en `nouveau`
+     */
+    public static List<Operation> diff(Object ancien, Object nouveau) {
+        List<Operation> operations = new ArrayList<>();
+        diff("", ancien, nouveau, operations);
+        return operations;
+    }
+
+    /**
+     * Écrit la liste des opérations sous forme d'un tableau JSON
+     */
+    public static void ecrire(JsonGenerator generateur, List<Operation> operations) throws IOException {
+        generateur.writeStartArray();
+        for (Operation operation : operations) {
+            generateur.writeStartObject();
+            generateur.writeStringField("op", operation.op());
+            generateur.writeStringField("path", operation.chemin());
+            if (operation.valeur() != null) {
+                generateur.writeFieldName("value");
+                EncodeurEtat.ecrireValeur(generateur, operation.valeur());
+            }
+            generateur.writeEndObject();
+        }
+        generateur.writeEndArray();
+    }
+
+    private static void diff(String chemin, Object ancien, Object nouveau, List<Operation> operations) {
+        if (ancien == nouveau) {
+            return;
+        }
+        if (ancien instanceof ObjetJson objetAncien && nouveau instanceof ObjetJson objetNouveau) {
+            diffObjets(chemin, objetAncien, objetNouveau, operations);
+        } else if (ancien instanceof Object[] tableauAncien && nouveau instanceof Object[] tableauNouveau) {
+            diffTableaux(chemin, tableauAncien, tableauNouveau, operations);
+        } else if (!Objects.equals(ancien, nouveau)) {
+            operations.add(new Operation("replace", chemin, nouveau));
+        }
+    }
+
+    private static void diffObjets(String chemin, ObjetJson ancien, ObjetJson nouveau, List<Operation> operations) {
+        if (ancien.memesCles(nouveau)) {
+            for (int i = 0; i < nouveau.taille(); i++) {
+                diff(chemin + "/" + echapper(nouveau.getCle(i)), ancien.getValeur(i), nouveau.getValeur(i),
+                        operations);
+            }
+            return;
+        }
+        for (int i = 0; i < nouveau.taille(); i++) {
+            String cle = nouveau.getCle(i);
+            String cheminCle = chemin + "/" + echapper(cle);
+            if (!contientCle(ancien, cle)) {
+                operations.add(new Operation("add", cheminCle, nouveau.getValeur(i)));
+            } else {
+                diff(cheminCle, ancien.get(cle), nouveau.getValeur(i), operations);
+            }
+        }
+        for (int i = 0; i < ancien.taille(); i++) {
+            if (!contientCle(nouveau, ancien.getCle(i))) {
+                operations.add(new Operation("remove", chemin + "/" + echapper(ancien.getCle(i)), null));
+            }
+        }
+    }
+
+    private static boolean contientCle(ObjetJson objet, String cle) {
+        for (int i = 0; i < objet.taille(); i++) {
+            if (objet.getCle(i).equals(cle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void diffTableaux(String chemin, Object[] ancien, Object[] nouveau, List<Operation> operations) {
+        int n = Math.min(ancien.length, nouveau.length);
+        int decalage = n > 0 && !egaux(ancien[0], nouveau[0]) ? decalage(ancien, nouveau) : 0;
+        if (decalage > 0 && (ancien.length != nouveau.length || 2 * decalage < nbDifferences(ancien, nouveau))) {
+            for (int i = 0; i < decalage; i++) {
+                operations.add(new Operation("remove", chemin + "/0", null));
+            }
+            for (int i = ancien.length - decalage; i < nouveau.length; i++) {
+                operations.add(new Operation("add", chemin + "/-", nouveau[i]));
+            }
+            return;
+        }
+        if (ancien.length == nouveau.length) {
+            for (int i = 0; i < n; i++) {
+                diff(chemin + "/" + i, ancien[i], nouveau[i], operations);
+            }
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            if (!egaux(ancien[i], nouveau[i])) {
+                operations.add(new Operation("replace", chemin, nouveau));
+                return;
+            }
+        }
+        for (int i = n; i < nouveau.length; i++) {
+            operations.add(new Operation("add", chemin + "/-", nouveau[i]));
+        }
+        for (int i = ancien.length - 1; i >= n; i--) {
+            operations.add(new Operation("remove", chemin + "/" + i, null));
+        }
+    }
+
+    /**
+     * @return le plus petit nombre d'éléments à retirer en tête de `ancien` pour que la suite soit le début de
+     * `nouveau`, ou 0 s'il n'y en a pas (le tableau n'est pas décalé)
+     */
+    private static int decalage(Object[] ancien, Object[] nouveau) {
+        for (int decalage = Math.max(1, ancien.length - nouveau.length); decalage < ancien.length; decalage++) {
+            if (egaux(ancien[decalage], nouveau[0]) && debutEgal(ancien, decalage, nouveau)) {
+                return decalage;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return true si les éléments de `ancien` à partir de `debut` sont les premiers éléments de `nouveau`
+     */
+    private static boolean debutEgal(Object[] ancien, int debut, Object[] nouveau) {
+        for (int i = debut + 1; i < ancien.length; i++) {
+            if (!egaux(ancien[i], nouveau[i - debut])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int nbDifferences(Object[] ancien, Object[] nouveau) {
+        int nb = 0;
+        for (int i = 0; i < ancien.length; i++) {
+            if (!egaux(ancien[i], nouveau[i])) {
+                nb++;
+            }
+        }
+        return nb;
+    }
+
+    /**
+     * @return true si les deux valeurs ont le même contenu JSON
+     */
+    private static boolean egaux(Object a, Object b) {
+        if (a == b) {
+            return true;
+        }
+        if (a instanceof ObjetJson objetA && b instanceof ObjetJson objetB) {
+            if (!objetA.memesCles(objetB)) {
+                return false;
+            }
+            for (int i = 0; i < objetA.taille(); i++) {
+                if (!egaux(objetA.getValeur(i), objetB.getValeur(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (a instanceof Object[] tableauA && b instanceof Object[] tableauB) {
+            if (tableauA.length != tableauB.length) {
+                return false;
+            }
+            for (int i = 0; i < tableauA.length; i++) {
+                if (!egaux(tableauA[i], tableauB[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return Objects.equals(a, b);
+    }
+
+    /**
+     * Échappe une clé pour l'utiliser dans un JSON Pointer
+     */
+    private static String echapper(String cle) {
+        return cle.replace("~", "~0").replace("/", "~1");
+    }
+}
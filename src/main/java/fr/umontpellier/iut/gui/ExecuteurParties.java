@@ -0,0 +1,228 @@
+package fr.umontpellier.iut.gui;
+
+import jdk.jfr.consumer.RecordingStream;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exécute les parties hébergées par le serveur (la méthode Jeu.run() de chaque partie), chacune dans son propre
+ * thread, en bornant le nombre de parties en cours.
+ *
+ * En mode VIRTUEL, chaque partie s'exécute dans un thread virtuel : une partie qui attend une instruction
+ * (Jeu.lireLigne()) ne mobilise alors aucun thread système. Si la JVM ne propose pas les threads virtuels
+ * (Java < 21), l'exécuteur se replie sur des threads plateforme à petite pile.
+ *
+ * En mode MOTEUR, les parties ne sont pas exécutées par Jeu.run() mais par un MoteurPartie non bloquant : les
+ * instructions de toutes les parties sont traitées par un petit nombre fixe de threads (voir soumettre()), et une
+ * partie en attente d'instruction n'occupe aucun thread.
+ */
+public class ExecuteurParties {
+    public enum Mode {
+        PLATEFORME, VIRTUEL, MOTEUR;
+    }
+
+    /**
+     * Taille de pile demandée pour les threads plateforme (la boucle de jeu n'a pas besoin de la pile par défaut
+     * de 1 Mo)
+     */
+    private static final long TAILLE_PILE_PLATEFORME = 256 * 1024;
+    /**
+     * Nombre d'épinglages de threads virtuels sur leur thread porteur, relevés par JFR
+     */
+    private static final AtomicLong nbEpinglages = new AtomicLong();
+    private static RecordingStream surveillanceEpinglages;
+
+    /**
+     * Mode effectivement utilisé (PLATEFORME si VIRTUEL a été demandé mais n'est pas disponible)
+     */
+    private final Mode mode;
+    private final ThreadFactory fabrique;
+    private final int maxParties;
+    /**
+     * Places disponibles pour de nouvelles parties
+     */
+    private final Semaphore places;
+    /**
+     * Threads de traitement des instructions en mode MOTEUR (null dans les autres modes)
+     */
+    private final ExecutorService threadsMoteur;
+
+    public ExecuteurParties(Mode mode, int maxParties) {
+        this(mode, maxParties, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param nbThreadsMoteur nombre de threads qui traitent les instructions en mode MOTEUR
+     */
+    public ExecuteurParties(Mode mode, int maxParties, int nbThreadsMoteur) {
+        ThreadFactory fabriqueVirtuelle = mode == Mode.VIRTUEL ? fabriqueThreadsVirtuels() : null;
+        if (fabriqueVirtuelle != null) {
+            this.mode = Mode.VIRTUEL;
+            this.fabrique = fabriqueVirtuelle;
+            surveillerEpinglages();
+        } else {
+            this.mode = mode == Mode.MOTEUR ? Mode.MOTEUR : Mode.PLATEFORME;
+            this.fabrique = r -> {
+                Thread thread = new Thread(null, r, "partie", TAILLE_PILE_PLATEFORME);
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+        this.maxParties = maxParties;
+        this.places = new Semaphore(maxParties);
+        if (this.mode == Mode.MOTEUR) {
+            AtomicInteger numero = new AtomicInteger();
+            this.threadsMoteur = Executors.newFixedThreadPool(nbThreadsMoteur, r -> {
+                Thread thread = new Thread(r, "moteur-" + numero.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.threadsMoteur = null;
+        }
+    }
+
+    /**
+     * Crée un exécuteur configuré par les propriétés système `rails.threads` (`virtuel`, `plateforme` ou
+     * `moteur`, `virtuel` par défaut), `rails.maxParties` (1000 par défaut) et `rails.threadsMoteur` (nombre de
+     * processeurs par défaut)
+     */
+    public static ExecuteurParties depuisProprietes() {
+        String threads = System.getProperty("rails.threads", "");
+        Mode mode = switch (threads.toLowerCase()) {
+            case "plateforme" -> Mode.PLATEFORME;
+            case "moteur" -> Mode.MOTEUR;
+            default -> Mode.VIRTUEL;
+        };
+        return new ExecuteurParties(mode, Integer.getInteger("rails.maxParties", 1000),
+                Integer.getInteger("rails.threadsMoteur", Runtime.getRuntime().availableProcessors()));
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getMaxParties() {
+        return maxParties;
+    }
+
+    /**
+     * @return le nombre de parties en cours d'exécution
+     */
+    public int getNbPartiesEnCours() {
+        return maxParties - places.availablePermits();
+    }
+
+    /**
+     * @return le nombre d'épinglages de threads virtuels sur leur thread porteur depuis le démarrage
+     * (toujours 0 en mode PLATEFORME)
+     */
+    public static long getNbEpinglages() {
+        return nbEpinglages.get();
+    }
+
+    /**
+     * Lance l'exécution d'une partie dans un nouveau thread.
+     * La place occupée par la partie est libérée lorsque la méthode run() se termine ou que le thread est
+     * interrompu.
+     *
+     * @param jeu le jeu à exécuter
+     * @param nom nom donné au thread
+     * @return le thread qui exécute la partie
+     * @throws IllegalStateException si le nombre maximal de parties en cours est atteint
+     */
+    public Thread lancer(Runnable jeu, String nom) {
+        reserverPlace();
+        Thread thread;
+        try {
+            thread = fabrique.newThread(() -> {
+                try {
+                    jeu.run();
+                } catch (CancellationException e) {
+                    // partie interrompue : fin normale du thread
+                } finally {
+                    places.release();
+                }
+            });
+            thread.setName(nom);
+            thread.start();
+        } catch (RuntimeException | Error e) {
+            places.release();
+            throw e;
+        }
+        return thread;
+    }
+
+    /**
+     * Réserve une place pour une nouvelle partie exécutée en mode MOTEUR (la place doit être libérée par
+     * libererPlace() à la fin de la partie)
+     *
+     * @throws IllegalStateException si le nombre maximal de parties en cours est atteint
+     */
+    public void reserverPlace() {
+        if (!places.tryAcquire()) {
+            throw new IllegalStateException("Nombre maximal de parties en cours atteint (" + maxParties + ")");
+        }
+    }
+
+    public void libererPlace() {
+        places.release();
+    }
+
+    /**
+     * Exécute une tâche sur l'un des threads du moteur (mode MOTEUR uniquement)
+     */
+    public void soumettre(Runnable tache) {
+        threadsMoteur.execute(tache);
+    }
+
+    /**
+     * @return une fabrique pour les threads des sorties des parties (voir SortieAsynchrone) : threads virtuels si
+     * la JVM en propose, threads plateforme daemon à petite pile sinon
+     */
+    public static ThreadFactory fabriqueThreadsSorties() {
+        ThreadFactory fabriqueVirtuelle = fabriqueThreadsVirtuels();
+        if (fabriqueVirtuelle != null) {
+            return fabriqueVirtuelle;
+        }
+        return r -> {
+            Thread thread = new Thread(null, r, "sortie", TAILLE_PILE_PLATEFORME);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * @return une fabrique de threads virtuels, ou null si la JVM n'en propose pas
+     */
+    private static ThreadFactory fabriqueThreadsVirtuels() {
+        try {
+            Object constructeur = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                    .getMethod("factory")
+                    .invoke(constructeur);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Démarre (une seule fois) le comptage des événements JFR d'épinglage des threads virtuels
+     */
+    private static synchronized void surveillerEpinglages() {
+        if (surveillanceEpinglages != null) {
+            return;
+        }
+        surveillanceEpinglages = new RecordingStream();
+        surveillanceEpinglages.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+        surveillanceEpinglages.onEvent("jdk.VirtualThreadPinned", evenement -> nbEpinglages.incrementAndGet());
+        surveillanceEpinglages.startAsync();
+    }
+}
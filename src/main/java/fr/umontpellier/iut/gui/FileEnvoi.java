@@ -0,0 +1,226 @@
+package fr.umontpellier.iut.gui;
+
+import javax.websocket.CloseReason;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+
+/**
+ * File des messages à envoyer à un client, vidée de manière asynchrone.
+ *
+ * Un seul message est en cours d'envoi à la fois ; les suivants attendent dans la file (bornée). Un état complet
+ * de la partie remplace tous les messages encore en attente, qu'il rend obsolètes : seul le plus récent est envoyé
+ * à un client lent. Un message delta ne peut pas être abandonné seul (les suivants n'auraient plus de sens) : si la
+ * file est pleine, elle est vidée et le message est refusé, l'appelant devant alors envoyer un état complet.
+ *
+ * Un client qui n'arrive pas à suivre (un envoi en cours et des messages en attente) pendant plus de
+ * `delaiSaturation` est déconnecté. La saturation est vérifiée à chaque ajout, à chaque fin d'envoi, et par
+ * verifierSaturation() (appelée régulièrement par le serveur) pour un client dont l'envoi ne se termine plus alors
+ * que la partie n'envoie plus rien.
+ */
+public class FileEnvoi {
+    /**
+     * Nombre maximal de messages en attente (propriété système `rails.envoi.capacite`)
+     */
+    public static final int CAPACITE = Integer.getInteger("rails.envoi.capacite", 32);
+    /**
+     * Durée en millisecondes pendant laquelle un client peut rester saturé avant d'être déconnecté (propriété
+     * système `rails.envoi.delaiSaturation`)
+     */
+    public static final long DELAI_SATURATION = Long.getLong("rails.envoi.delaiSaturation", 10_000);
+
+    private final Session session;
+    private final int capacite;
+    private final long delaiSaturationNanos;
+    /**
+     * Messages en attente d'envoi
+     */
+    private final ArrayDeque<String> messages;
+    private boolean envoiEnCours;
+    /**
+     * Début de la saturation courante (System.nanoTime()), ou -1 si la file n'est pas saturée
+     */
+    private long debutSaturation;
+    private boolean fermee;
+    private volatile boolean deconnecteeCarSaturee;
+    private long nbEnvoyes;
+    private long nbAbandonnes;
+
+    public FileEnvoi(Session session) {
+        this(session, CAPACITE, DELAI_SATURATION);
+    }
+
+    public FileEnvoi(Session session, int capacite, long delaiSaturation) {
+        this.session = session;
+        this.capacite = capacite;
+        this.delaiSaturationNanos = delaiSaturation * 1_000_000;
+        this.messages = new ArrayDeque<>();
+        this.debutSaturation = -1;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    /**
+     * Ajoute un message à la file et lance son envoi si aucun envoi n'est en cours.
+     *
+     * @param message le message à envoyer
+     * @param complet true si le message est un état complet de la partie (les messages en attente sont alors
+     *                abandonnés)
+     * @return false si le message (delta) a été refusé parce que la file était pleine
+     */
+    public boolean ajouter(String message, boolean complet) {
+        String suivant = null;
+        boolean tropLente;
+        synchronized (this) {
+            if (fermee) {
+                return true;
+            }
+            if (complet) {
+                nbAbandonnes += messages.size();
+                messages.clear();
+            } else if (messages.size() >= capacite) {
+                nbAbandonnes += messages.size() + 1;
+                messages.clear();
+                return false;
+            }
+            messages.add(message);
+            if (!envoiEnCours) {
+                suivant = messages.poll();
+                envoiEnCours = true;
+            }
+            majSaturation();
+            tropLente = estTropLente();
+        }
+        if (tropLente) {
+            deconnecter();
+        } else if (suivant != null) {
+            envoyer(suivant);
+        }
+        return true;
+    }
+
+    private void envoyer(String message) {
+        try {
+            session.getAsyncRemote().sendText(message, this::envoiTermine);
+        } catch (RuntimeException e) {
+            // session déjà fermée
+            fermer(null);
+        }
+    }
+
+    private void envoiTermine(SendResult resultat) {
+        if (!resultat.isOK()) {
+            fermer(null);
+            return;
+        }
+        String suivant;
+        boolean tropLente;
+        synchronized (this) {
+            nbEnvoyes++;
+            // saturée depuis trop longtemps, même si ce dernier envoi a abouti
+            tropLente = !fermee && estTropLente();
+            suivant = fermee || tropLente ? null : messages.poll();
+            envoiEnCours = suivant != null;
+            majSaturation();
+        }
+        if (tropLente) {
+            deconnecter();
+        } else if (suivant != null) {
+            envoyer(suivant);
+        }
+    }
+
+    /**
+     * Déconnecte le client s'il est saturé depuis plus de `delaiSaturation`, même si aucun message n'est ajouté ni
+     * aucun envoi terminé entre-temps (par exemple si l'envoi en cours est bloqué)
+     *
+     * @return true si le client a été déconnecté
+     */
+    public boolean verifierSaturation() {
+        synchronized (this) {
+            if (fermee || !estTropLente()) {
+                return false;
+            }
+        }
+        deconnecter();
+        return true;
+    }
+
+    /**
+     * @return true si la file est saturée depuis plus de `delaiSaturation` (à appeler avec le verrou de la file)
+     */
+    private boolean estTropLente() {
+        return debutSaturation >= 0 && System.nanoTime() - debutSaturation > delaiSaturationNanos;
+    }
+
+    private void deconnecter() {
+        deconnecteeCarSaturee = true;
+        fermer(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "Client trop lent"));
+    }
+
+    /**
+     * La file est saturée lorsqu'un envoi est en cours et que d'autres messages attendent
+     */
+    private void majSaturation() {
+        if (!envoiEnCours || messages.isEmpty()) {
+            debutSaturation = -1;
+        } else if (debutSaturation < 0) {
+            debutSaturation = System.nanoTime();
+        }
+    }
+
+    /**
+     * Abandonne les messages en attente et ferme la session (si `raison` n'est pas null)
+     */
+    public void fermer(CloseReason raison) {
+        synchronized (this) {
+            if (fermee) {
+                return;
+            }
+            fermee = true;
+            nbAbandonnes += messages.size();
+            messages.clear();
+        }
+        if (raison != null && session.isOpen()) {
+            try {
+                session.close(raison);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public synchronized int getTaille() {
+        return messages.size();
+    }
+
+    public synchronized long getNbEnvoyes() {
+        return nbEnvoyes;
+    }
+
+    public synchronized long getNbAbandonnes() {
+        return nbAbandonnes;
+    }
+
+    /**
+     * @return true si le client a été déconnecté parce qu'il n'arrivait pas à suivre
+     */
+    public boolean estDeconnecteeCarSaturee() {
+        return deconnecteeCarSaturee;
+    }
+
+    /**
+     * Renvoie les compteurs de la file sous la forme d'un dictionnaire de valeurs sérialisables
+     */
+    public synchronized Map<String, Object> dataMap() {
+        return Map.ofEntries(
+                Map.entry("enAttente", messages.size()),
+                Map.entry("envoiEnCours", envoiEnCours),
+                Map.entry("envoyes", nbEnvoyes),
+                Map.entry("abandonnes", nbAbandonnes));
+    }
+}
@@ -1,41 +1,148 @@
 package fr.umontpellier.iut.gui;
 
-import fr.umontpellier.iut.rails.Jeu;
+import com.google.gson.Gson;
+import fr.umontpellier.iut.rails.SortieJeu;
+import fr.umontpellier.iut.rails.SortieTexte;
 import org.glassfish.tyrus.server.Server;
 
+import javax.websocket.CloseReason;
 import javax.websocket.DeploymentException;
 import javax.websocket.Session;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 public class GameServer {
     /**
-     * Liste des clients connectés au serveur
+     * Identifiant de la partie utilisée par les clients qui n'en précisent pas
+     * (et par l'entrée console)
      */
-    private static ArrayList<Session> clients = new ArrayList<>();
+    public static final String ID_PARTIE_DEFAUT = "defaut";
     /**
-     * Description de l'état du jeu, envoyé aux clients pour la mise à jour de l'interface graphique
+     * Nom du paramètre de l'URL de connexion qui indique la partie à rejoindre
+     * (par exemple ws://localhost:3232/?partie=table1)
      */
-    private static String etatJeu = "";
+    public static final String PARAMETRE_PARTIE = "partie";
     /**
-     * Instance de jeu exécutée par le serveur
+     * Message envoyé par un client pour recevoir à nouveau l'état complet de sa partie (par exemple lorsqu'il a
+     * manqué une trame delta)
      */
-    private static Jeu jeu;
+    public static final String COMMANDE_RESYNCHRONISATION = "!resync";
+    /**
+     * Préfixe du message envoyé par un client pour recevoir les messages du log qui précèdent un message donné
+     * (par exemple "!log 120" pour les messages qui précèdent le message numéro 120, voir Partie.envoyerLog())
+     */
+    public static final String COMMANDE_LOG = "!log ";
+    /**
+     * Noms des joueurs des parties créées par le serveur
+     */
+    private static final String[] NOMS_JOUEURS = {"Guybrush", "Largo", "LeChuck", "Elaine"};
+    /**
+     * Commande console qui affiche les mesures des envois aux clients (au lieu d'être transmise à la partie)
+     */
+    private static final String COMMANDE_METRIQUES = "!metriques";
+    /**
+     * Parties hébergées par le serveur, indexées par leur identifiant
+     */
+    private static final Map<String, Partie> parties = new ConcurrentHashMap<>();
+    /**
+     * Exécuteur des parties (threads virtuels par défaut, voir ExecuteurParties.depuisProprietes())
+     */
+    private static final ExecuteurParties executeur = ExecuteurParties.depuisProprietes();
+    /**
+     * Répertoire où sont archivés les journaux des parties, à la fin de la partie ou quand elle est retirée avant
+     * la fin, pour les rejouer avec Rejoueur (propriété système rails.journaux ; pas d'archivage si elle n'est pas
+     * définie)
+     */
+    private static final String REPERTOIRE_JOURNAUX = System.getProperty("rails.journaux");
+    /**
+     * Affiche les questions de toutes les parties sur la console (propriété système rails.console ; par défaut,
+     * seule la partie par défaut, qui lit aussi ses instructions sur la console, les affiche)
+     */
+    private static final boolean CONSOLE_TOUTES_PARTIES = Boolean.getBoolean("rails.console");
+    /**
+     * Répertoire où sont écrites les questions de chaque partie, dans le fichier <idPartie>.txt (propriété système
+     * rails.affichages ; pas d'écriture si elle n'est pas définie)
+     */
+    private static final String REPERTOIRE_AFFICHAGES = System.getProperty("rails.affichages");
+    /**
+     * Délai en millisecondes avant de retirer une partie terminée, ou une partie que son dernier client a quittée
+     * (propriété système rails.delaiSuppression) : les clients reçoivent l'état final, et un client qui se
+     * reconnecte pendant ce délai retrouve sa partie
+     */
+    private static final long DELAI_SUPPRESSION = Long.getLong("rails.delaiSuppression", 60_000);
+    /**
+     * Identifiants de partie acceptés dans l'URL de connexion
+     */
+    private static final Pattern ID_PARTIE_VALIDE = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    /**
+     * Intervalle en millisecondes entre deux vérifications des clients saturés (voir Partie.verifierSaturations())
+     */
+    private static final long INTERVALLE_SATURATION = Math.max(FileEnvoi.DELAI_SATURATION / 4, 100);
+    /**
+     * Planifie les suppressions des parties terminées ou abandonnées, et les vérifications des clients saturés
+     */
+    private static final ScheduledExecutorService planificateur = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "suivi-parties");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * Retire du serveur les parties terminées, et les parties (autres que la partie par défaut, qui reçoit aussi
+     * les instructions de la console) qu'aucun client ne suit plus, après DELAI_SUPPRESSION
+     */
+    private static final Partie.Suivi suivi = new Partie.Suivi() {
+        @Override
+        public void partieTerminee(Partie partie) {
+            planificateur.schedule(() -> supprimerPartie(partie), DELAI_SUPPRESSION, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void dernierClientParti(Partie partie) {
+            if (!partie.getId().equals(ID_PARTIE_DEFAUT)) {
+                planificateur.schedule(() -> {
+                    if (partie.getNbClients() == 0) {
+                        supprimerPartie(partie);
+                    }
+                }, DELAI_SUPPRESSION, TimeUnit.MILLISECONDS);
+            }
+        }
+    };
 
     public static void main(String[] args) {
-        // Lancement de la partie
-        jeu = new Jeu(new String[]{"Guybrush", "Largo", "LeChuck", "Elaine"});
+        // Déconnecte régulièrement les clients qui n'arrivent plus à suivre, même quand les parties n'envoient rien
+        planificateur.scheduleWithFixedDelay(() -> parties.values().forEach(Partie::verifierSaturations),
+                INTERVALLE_SATURATION, INTERVALLE_SATURATION, TimeUnit.MILLISECONDS);
+
+        // Lancement de la partie par défaut (recréée si elle a été retirée du serveur à la fin de la partie)
+        Partie partieDefaut = creerPartie(ID_PARTIE_DEFAUT);
 
         // Prépare le serveur websocket
         Server server = new Server("localhost", 3232, "/", WebSocketClient.class);
 
         try (Scanner scanner = new Scanner(System.in)) {
             server.start();             // lance le serveur
-            new Thread(jeu).start();    // démarre le jeu (exécute la méthode Jeu.run() dans un nouveau thread)
+            partieDefaut.demarrer(executeur);   // démarre le jeu (exécute la méthode Jeu.run() dans un nouveau thread)
 
             while (true) {
-                jeu.addInput(scanner.nextLine());
+                String ligne = scanner.nextLine();
+                if (ligne.equals(COMMANDE_METRIQUES)) {
+                    System.out.println(new Gson().toJson(metriques()));
+                } else {
+                    getOuCreerPartie(ID_PARTIE_DEFAUT).addInput(ligne);
+                }
             }
         } catch (DeploymentException e) {
             throw new RuntimeException(e);
@@ -45,54 +152,235 @@ public class GameServer {
     }
 
     /**
-     * Ajoute une nouvelle instruction à la file d'instructions
-     * (cette méthode est appelée lorsqu'un message est reçue sur la websocket)
-     * 
-     * @param message l'instruction à ajouter
+     * Crée une nouvelle partie et l'ajoute au registre du serveur (la partie n'est pas démarrée)
+     *
+     * @param idPartie identifiant de la partie
+     * @return la partie créée
+     * @throws IllegalArgumentException si l'identifiant n'est pas valide ou si une partie avec le même
+     *                                  identifiant existe déjà
+     * @throws IllegalStateException    si le registre contient déjà le nombre maximal de parties
      */
-    public static void addInput(String message) {
-        jeu.addInput(message);
+    public static Partie creerPartie(String idPartie) {
+        verifierCreation(idPartie);
+        Partie partie = nouvellePartie(idPartie);
+        if (parties.putIfAbsent(idPartie, partie) != null) {
+            partie.getJeu().fermerSorties();
+            throw new IllegalArgumentException("La partie " + idPartie + " existe déjà");
+        }
+        return partie;
     }
 
     /**
-     * Met à jour l'état de la partie, et envoie le nouvel état à tous les clients connectés
-     * 
-     * @param etatJeu l'état de la partie
+     * Vérifie qu'une partie d'identifiant donné peut être créée : l'identifiant est valide (ID_PARTIE_VALIDE) et
+     * le registre, qui contient aussi les parties terminées pas encore retirées, n'a pas atteint le nombre maximal
+     * de parties de l'exécuteur
      */
-    public static void setEtatJeu(String etatJeu) {
-        GameServer.etatJeu = etatJeu;
-        // Envoie l'état de la partie à tous les clients
-        try {
-            for (Session session : clients) {
-                session.getBasicRemote().sendText(etatJeu);
+    private static void verifierCreation(String idPartie) {
+        if (!ID_PARTIE_VALIDE.matcher(idPartie).matches()) {
+            throw new IllegalArgumentException("Identifiant de partie invalide");
+        }
+        if (parties.size() >= executeur.getMaxParties()) {
+            throw new IllegalStateException(
+                    "Nombre maximal de parties atteint (" + executeur.getMaxParties() + ")");
+        }
+    }
+
+    private static Partie nouvellePartie(String idPartie) {
+        Partie partie = new Partie(idPartie, NOMS_JOUEURS, sorties(idPartie));
+        partie.setSuivi(suivi);
+        if (REPERTOIRE_JOURNAUX != null) {
+            partie.setRepertoireJournaux(Path.of(REPERTOIRE_JOURNAUX));
+        }
+        return partie;
+    }
+
+    /**
+     * Renvoie la partie d'identifiant donné, en la créant et la démarrant si elle n'existe pas encore
+     *
+     * @param idPartie identifiant de la partie
+     * @return la partie correspondante
+     * @throws IllegalArgumentException si la partie n'existe pas et que l'identifiant n'est pas valide
+     * @throws IllegalStateException    si la partie n'existe pas et que le nombre maximal de parties est atteint
+     */
+    public static Partie getOuCreerPartie(String idPartie) {
+        Partie existante = parties.get(idPartie);
+        if (existante != null) {
+            return existante;
+        }
+        verifierCreation(idPartie);
+        return parties.computeIfAbsent(idPartie, id -> {
+            Partie partie = nouvellePartie(id);
+            try {
+                partie.demarrer(executeur);
+            } catch (IllegalStateException e) {
+                partie.getJeu().fermerSorties();
+                throw e;
+            }
+            return partie;
+        });
+    }
+
+    /**
+     * @return les sorties d'une nouvelle partie, en plus de la diffusion aux clients : la console (pour la partie
+     * par défaut, ou toutes si CONSOLE_TOUTES_PARTIES) et un fichier (si REPERTOIRE_AFFICHAGES est défini)
+     */
+    private static SortieJeu[] sorties(String idPartie) {
+        List<SortieJeu> sorties = new ArrayList<>();
+        if (CONSOLE_TOUTES_PARTIES || idPartie.equals(ID_PARTIE_DEFAUT)) {
+            sorties.add(SortieTexte.console());
+        }
+        if (REPERTOIRE_AFFICHAGES != null) {
+            try {
+                Path repertoire = Files.createDirectories(Path.of(REPERTOIRE_AFFICHAGES));
+                sorties.add(SortieTexte.fichier(repertoire.resolve(Partie.nomFichier(idPartie) + ".txt")));
+            } catch (IOException e) {
+                e.printStackTrace();
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+        }
+        return sorties.toArray(new SortieJeu[0]);
+    }
+
+    public static ExecuteurParties getExecuteur() {
+        return executeur;
+    }
+
+    /**
+     * @return la partie d'identifiant donné, ou null si elle n'existe pas
+     */
+    public static Partie getPartie(String idPartie) {
+        return parties.get(idPartie);
+    }
+
+    /**
+     * @return les parties actuellement hébergées par le serveur
+     */
+    public static Collection<Partie> getParties() {
+        return Collections.unmodifiableCollection(parties.values());
+    }
+
+    /**
+     * Arrête une partie et la retire du registre du serveur
+     *
+     * @param idPartie identifiant de la partie à retirer
+     */
+    public static void supprimerPartie(String idPartie) {
+        Partie partie = parties.get(idPartie);
+        if (partie != null) {
+            supprimerPartie(partie);
+        }
+    }
+
+    /**
+     * Arrête la partie et la retire du registre du serveur, si elle y est encore (une nouvelle partie de même
+     * identifiant n'est pas retirée)
+     */
+    private static void supprimerPartie(Partie partie) {
+        if (parties.remove(partie.getId(), partie)) {
+            partie.arreter();
         }
     }
 
     /**
-     * Ajoute un nouveau client à la liste, et lui transmet l'état actuel de la partie
+     * Renvoie les mesures des envois aux clients, cumulées sur toutes les parties (voir Partie.metriques()),
+     * ainsi que le nombre de parties
+     */
+    public static Map<String, Object> metriques() {
+        Map<String, Long> totaux = new TreeMap<>();
+        long fileMax = 0;
+        for (Partie partie : parties.values()) {
+            for (Map.Entry<String, Object> mesure : partie.metriques().entrySet()) {
+                long valeur = ((Number) mesure.getValue()).longValue();
+                if (mesure.getKey().equals("fileMax")) {
+                    fileMax = Math.max(fileMax, valeur);
+                } else {
+                    totaux.merge(mesure.getKey(), valeur, Long::sum);
+                }
+            }
+        }
+        Map<String, Object> resultat = new TreeMap<>(totaux);
+        resultat.put("fileMax", fileMax);
+        resultat.put("parties", parties.size());
+        return resultat;
+    }
+
+    /**
+     * Ajoute une nouvelle instruction à la file d'instructions de la partie du client, ou lui renvoie l'état
+     * complet de la partie (COMMANDE_RESYNCHRONISATION) ou des messages du log plus anciens (COMMANDE_LOG) s'il
+     * le demande
+     * (cette méthode est appelée lorsqu'un message est reçue sur la websocket)
+     *
+     * @param session la session du client qui a envoyé l'instruction
+     * @param message l'instruction à ajouter
+     */
+    public static void addInput(Session session, String message) {
+        Partie partie = getPartie(session);
+        if (partie == null) {
+            return;
+        }
+        if (message.equals(COMMANDE_RESYNCHRONISATION)) {
+            partie.resynchroniser(session);
+        } else if (message.startsWith(COMMANDE_LOG)) {
+            try {
+                partie.envoyerLog(session, Long.parseLong(message.substring(COMMANDE_LOG.length()).trim()));
+            } catch (NumberFormatException e) {
+                // demande invalide, ignorée
+            }
+        } else {
+            partie.addInput(message);
+        }
+    }
+
+    /**
+     * Rattache un nouveau client à la partie indiquée dans son URL de connexion (ou à la partie par défaut),
+     * et lui transmet l'état actuel de la partie
      * (cette méthode est appelée lorsqu'une nouvelle connexion est établie)
-     * 
+     *
      * @param session la session du nouveau client
      */
     public static void addClient(Session session) {
-        GameServer.clients.add(session);
+        String idPartie = ID_PARTIE_DEFAUT;
+        List<String> valeurs = session.getRequestParameterMap().get(PARAMETRE_PARTIE);
+        if (valeurs != null && !valeurs.isEmpty() && !valeurs.get(0).isBlank()) {
+            idPartie = valeurs.get(0);
+        }
         try {
-            session.getBasicRemote().sendText(etatJeu);
-        } catch (IOException e) {
-            e.printStackTrace();
+            Partie partie = getOuCreerPartie(idPartie);
+            session.getUserProperties().put(PARAMETRE_PARTIE, partie);
+            while (!partie.addClient(session)) {
+                // partie arrêtée entre-temps : le client rejoint la nouvelle partie de même identifiant
+                parties.remove(idPartie, partie);
+                partie = getOuCreerPartie(idPartie);
+                session.getUserProperties().put(PARAMETRE_PARTIE, partie);
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            CloseReason.CloseCode code = e instanceof IllegalArgumentException
+                    ? CloseReason.CloseCodes.CANNOT_ACCEPT
+                    : CloseReason.CloseCodes.TRY_AGAIN_LATER;
+            try {
+                session.close(new CloseReason(code, e.getMessage()));
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
         }
     }
 
     /**
-     * Retire un client de la liste
+     * Retire un client de sa partie
      * (cette méthode est appelée lorsqu'une connexion est fermée)
-     * 
+     *
      * @param session la session du client à retirer
      */
     public static void removeClient(Session session) {
-        GameServer.clients.remove(session);
+        Partie partie = getPartie(session);
+        if (partie != null) {
+            partie.removeClient(session);
+        }
+    }
+
+    /**
+     * @return la partie que le client a rejointe (même si elle a été retirée du serveur depuis), ou null
+     */
+    private static Partie getPartie(Session session) {
+        return (Partie) session.getUserProperties().get(PARAMETRE_PARTIE);
     }
 }
@@ -0,0 +1,541 @@
+package fr.umontpellier.iut.gui;
+
+import fr.umontpellier.iut.rails.EncodeurEtat;
+import fr.umontpellier.iut.rails.Jeu;
+import fr.umontpellier.iut.rails.Journal;
+import fr.umontpellier.iut.rails.MoteurPartie;
+import fr.umontpellier.iut.rails.ObjetJson;
+import fr.umontpellier.iut.rails.SortieJeu;
+
+import javax.websocket.CloseReason;
+import javax.websocket.Session;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Table de jeu hébergée par le serveur : une instance de jeu et les clients qui la suivent
+ */
+public class Partie {
+    /**
+     * Suivi de la partie par le serveur, prévenu lorsque la partie peut être retirée (voir GameServer)
+     */
+    public interface Suivi {
+        /**
+         * La partie est terminée (appelée une seule fois, par le thread de la partie)
+         */
+        void partieTerminee(Partie partie);
+
+        /**
+         * Le dernier client connecté à la partie vient de la quitter
+         */
+        void dernierClientParti(Partie partie);
+    }
+
+    /**
+     * Nombre maximal d'instructions traitées d'affilée pour une partie en mode MOTEUR, avant de laisser la place
+     * aux autres parties
+     */
+    private static final int TAILLE_LOT_INSTRUCTIONS = 64;
+
+    /**
+     * Identifiant de la partie (utilisé par les clients pour s'y connecter)
+     */
+    private final String id;
+    /**
+     * Instance de jeu exécutée pour cette partie
+     */
+    private final Jeu jeu;
+    /**
+     * Clients connectés à cette partie, avec leur file de messages à envoyer
+     */
+    private final Map<Session, FileEnvoi> clients;
+    /**
+     * Dernier état du jeu diffusé aux clients (null tant que la partie n'a rien diffusé)
+     */
+    private ObjetJson etatJeu;
+    /**
+     * Numéro de version de l'état du jeu (incrémenté à chaque changement de l'état)
+     */
+    private long version;
+    /**
+     * Trame complète correspondant à l'état courant (calculée à la demande, null si elle n'est pas à jour)
+     */
+    private String trameComplete;
+    /**
+     * Encodeur des trames (utilisé avec le verrou de l'état)
+     */
+    private final EncodeurEtat encodeur;
+    /**
+     * Verrou qui protège l'état, sa version et l'ajout des trames dans les files des clients (un client reçoit
+     * ainsi les trames dans l'ordre des versions)
+     */
+    private final Object verrouEtat;
+    /**
+     * Nombre de mises à jour de l'état du jeu depuis le début de la partie
+     */
+    private final AtomicLong nbMisesAJour;
+    /**
+     * Compteurs des files des clients qui ont quitté la partie
+     */
+    private final AtomicLong nbMessagesEnvoyesClientsPartis;
+    private final AtomicLong nbMessagesAbandonnesClientsPartis;
+    private final AtomicLong nbClientsDeconnectes;
+    /**
+     * Thread qui exécute la partie (null tant que la partie n'est pas démarrée)
+     */
+    private volatile Thread thread;
+    /**
+     * Exécuteur de la partie en mode MOTEUR (null sinon)
+     */
+    private volatile ExecuteurParties executeurMoteur;
+    /**
+     * Moteur non bloquant qui exécute la partie en mode MOTEUR (null sinon)
+     */
+    private volatile MoteurPartie moteur;
+    /**
+     * Instructions en attente de traitement par le moteur
+     */
+    private final Queue<String> entrees;
+    /**
+     * Indique si une tâche de traitement des instructions de la partie est planifiée ou en cours (les
+     * instructions d'une même partie sont traitées par une seule tâche à la fois, dans leur ordre d'arrivée)
+     */
+    private final AtomicBoolean traitementPlanifie;
+    private final AtomicBoolean placeLiberee;
+    /**
+     * Indique si la partie est terminée (fin de Jeu.run(), ou MoteurPartie en FIN_PARTIE)
+     */
+    private final AtomicBoolean terminee;
+    /**
+     * Indique si la partie a été arrêtée : elle n'accepte plus de nouveaux clients
+     */
+    private boolean arretee;
+    private volatile Suivi suivi;
+    /**
+     * Répertoire où archiver le journal de la partie (null : pas d'archivage)
+     */
+    private volatile Path repertoireJournaux;
+    private final AtomicBoolean journalArchive;
+
+    /**
+     * @param sorties sorties supplémentaires de la partie (console, fichier...), en plus de la diffusion de l'état
+     *                aux clients
+     */
+    public Partie(String id, String[] nomJoueurs, SortieJeu... sorties) {
+        this(id, new Jeu(nomJoueurs), sorties);
+    }
+
+    /**
+     * @param jeu     le jeu de la partie (pas encore démarré)
+     * @param sorties sorties supplémentaires de la partie, en plus de la diffusion de l'état aux clients
+     */
+    public Partie(String id, Jeu jeu, SortieJeu... sorties) {
+        this.id = id;
+        this.jeu = jeu;
+        this.jeu.setIdPartie(id);
+        this.jeu.ajouterSortie(new SortieServeur(this, ExecuteurParties.fabriqueThreadsSorties()));
+        for (SortieJeu sortie : sorties) {
+            this.jeu.ajouterSortie(sortie);
+        }
+        this.clients = new ConcurrentHashMap<>();
+        this.verrouEtat = new Object();
+        this.encodeur = new EncodeurEtat();
+        this.nbMisesAJour = new AtomicLong();
+        this.nbMessagesEnvoyesClientsPartis = new AtomicLong();
+        this.nbMessagesAbandonnesClientsPartis = new AtomicLong();
+        this.nbClientsDeconnectes = new AtomicLong();
+        this.entrees = new ConcurrentLinkedQueue<>();
+        this.traitementPlanifie = new AtomicBoolean();
+        this.placeLiberee = new AtomicBoolean();
+        this.terminee = new AtomicBoolean();
+        this.journalArchive = new AtomicBoolean();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Jeu getJeu() {
+        return jeu;
+    }
+
+    /**
+     * @return la description JSON du dernier état diffusé (chaîne vide si aucun état n'a été diffusé)
+     */
+    public String getEtatJeu() {
+        synchronized (verrouEtat) {
+            return etatJeu == null ? "" : encodeur.encoder(etatJeu);
+        }
+    }
+
+    public long getVersion() {
+        synchronized (verrouEtat) {
+            return version;
+        }
+    }
+
+    public int getNbClients() {
+        return clients.size();
+    }
+
+    public long getNbMisesAJour() {
+        return nbMisesAJour.get();
+    }
+
+    public void setSuivi(Suivi suivi) {
+        this.suivi = suivi;
+    }
+
+    /**
+     * Fixe le répertoire où le journal de la partie est archivé, dans le fichier <idPartie>.journal (voir
+     * nomFichier()), à la fin de la partie ou lorsqu'elle est arrêtée avant la fin
+     */
+    public void setRepertoireJournaux(Path repertoireJournaux) {
+        this.repertoireJournaux = repertoireJournaux;
+    }
+
+    /**
+     * @return true si la partie est terminée
+     */
+    public boolean estTerminee() {
+        return terminee.get();
+    }
+
+    /**
+     * Démarre la partie : exécute la méthode Jeu.run() dans un nouveau thread de l'exécuteur, ou en mode MOTEUR
+     * démarre un MoteurPartie dont les instructions sont traitées par les threads du moteur
+     *
+     * @throws IllegalStateException si l'exécuteur a atteint son nombre maximal de parties en cours
+     */
+    public void demarrer(ExecuteurParties executeur) {
+        if (executeur.getMode() == ExecuteurParties.Mode.MOTEUR) {
+            executeur.reserverPlace();
+            moteur = new MoteurPartie(jeu);
+            executeurMoteur = executeur;
+            planifierTraitement();
+        } else {
+            thread = executeur.lancer(() -> {
+                jeu.run();
+                terminer();
+            }, "partie-" + id);
+        }
+    }
+
+    /**
+     * Interrompt l'exécution de la partie (le thread de la partie se termine à la prochaine lecture d'instruction ;
+     * en mode MOTEUR les instructions suivantes sont ignorées), ferme ses sorties, déconnecte ses clients et
+     * archive son journal. La partie n'accepte plus de nouveaux clients.
+     */
+    public void arreter() {
+        synchronized (verrouEtat) {
+            arretee = true;
+        }
+        for (FileEnvoi file : clients.values()) {
+            file.fermer(new CloseReason(CloseReason.CloseCodes.GOING_AWAY, "Partie terminée"));
+        }
+        Thread t = thread;
+        if (t != null) {
+            t.interrupt();
+        }
+        ExecuteurParties executeur = executeurMoteur;
+        if (executeur != null) {
+            executeurMoteur = null;
+            entrees.clear();
+            libererPlace(executeur);
+        }
+        jeu.fermerSorties();
+        archiverJournal();
+    }
+
+    /**
+     * Ajoute une nouvelle instruction à la file d'instructions du jeu
+     *
+     * @param message l'instruction à ajouter
+     */
+    public void addInput(String message) {
+        if (moteur != null) {
+            entrees.add(message);
+            planifierTraitement();
+        } else {
+            jeu.addInput(message);
+        }
+    }
+
+    /**
+     * Planifie le traitement des instructions en attente, si aucun traitement n'est déjà planifié
+     */
+    private void planifierTraitement() {
+        ExecuteurParties executeur = executeurMoteur;
+        if (executeur != null && traitementPlanifie.compareAndSet(false, true)) {
+            executeur.soumettre(this::traiterEntrees);
+        }
+    }
+
+    /**
+     * Traite (au plus TAILLE_LOT_INSTRUCTIONS) instructions en attente avec le moteur, puis se replanifie s'il en
+     * reste. Les instructions codées comme dans le journal ("#...", par exemple envoyées par un bot) sont appliquées
+     * comme des actions typées (voir MoteurPartie.traiterEntreeJournal()).
+     */
+    private void traiterEntrees() {
+        try {
+            if (moteur.getEtat() == null) {
+                moteur.demarrer();
+            }
+            String entree;
+            int n = 0;
+            while (n++ < TAILLE_LOT_INSTRUCTIONS && executeurMoteur != null && (entree = entrees.poll()) != null) {
+                try {
+                    moteur.traiterEntreeJournal(entree);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+            if (moteur.estTerminee()) {
+                libererPlace(executeurMoteur);
+                terminer();
+            }
+        } finally {
+            traitementPlanifie.set(false);
+        }
+        if (!entrees.isEmpty()) {
+            planifierTraitement();
+        }
+    }
+
+    /**
+     * Prévient le suivi de la fin de la partie (une seule fois)
+     */
+    private void terminer() {
+        if (!terminee.compareAndSet(false, true)) {
+            return;
+        }
+        archiverJournal();
+        Suivi s = suivi;
+        if (s != null) {
+            s.partieTerminee(this);
+        }
+    }
+
+    /**
+     * Écrit le journal de la partie dans le répertoire des journaux (une seule fois, et seulement si le répertoire
+     * est défini et que le journal n'est pas vide), pour la rejouer avec Rejoueur
+     */
+    private void archiverJournal() {
+        Path repertoire = repertoireJournaux;
+        Journal journal = jeu.getJournal();
+        if (repertoire == null || journal.taille() == 0 || !journalArchive.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Files.createDirectories(repertoire);
+            Files.writeString(repertoire.resolve(nomFichier(id) + ".journal"), journal.exporter());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return l'identifiant de la partie utilisable comme nom de fichier (les caractères autres que lettres,
+     * chiffres, - et _ sont remplacés par _)
+     */
+    static String nomFichier(String idPartie) {
+        return idPartie.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    private void libererPlace(ExecuteurParties executeur) {
+        if (executeur != null && placeLiberee.compareAndSet(false, true)) {
+            executeur.libererPlace();
+        }
+    }
+
+    /**
+     * Met à jour l'état de la partie, et place dans la file d'envoi de chacun des clients de la partie une trame
+     * delta qui contient les différences avec l'état précédent (voir DiffJson) :
+     * {"type": "delta", "version": v, "ops": [...]}
+     * Le premier état diffusé, et l'état envoyé à un client qui se connecte ou demande une resynchronisation, sont
+     * des trames complètes : {"type": "complet", "version": v, "etat": {...}}
+     *
+     * Les envois sont asynchrones : un client lent ou déconnecté ne ralentit ni la partie ni les autres clients.
+     * Un client dont la file déborde reçoit directement l'état complet le plus récent.
+     *
+     * @param etatJeu un instantané de l'état de la partie (voir Jeu.etatJson())
+     */
+    public void setEtatJeu(ObjetJson etatJeu) {
+        nbMisesAJour.incrementAndGet();
+        synchronized (verrouEtat) {
+            List<DiffJson.Operation> operations = this.etatJeu == null ? null : DiffJson.diff(this.etatJeu, etatJeu);
+            if (operations != null && operations.isEmpty()) {
+                return;
+            }
+            this.etatJeu = etatJeu;
+            version++;
+            trameComplete = null;
+            if (operations == null) {
+                String trame = getTrameComplete();
+                for (FileEnvoi file : clients.values()) {
+                    file.ajouter(trame, true);
+                }
+            } else {
+                String trame = encodeur.encoder(generateur -> {
+                    generateur.writeStartObject();
+                    generateur.writeStringField("type", "delta");
+                    generateur.writeNumberField("version", version);
+                    generateur.writeFieldName("ops");
+                    DiffJson.ecrire(generateur, operations);
+                    generateur.writeEndObject();
+                });
+                for (FileEnvoi file : clients.values()) {
+                    if (!file.ajouter(trame, false)) {
+                        file.ajouter(getTrameComplete(), true);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return la trame complète de l'état courant (à appeler avec le verrou de l'état)
+     */
+    private String getTrameComplete() {
+        if (trameComplete == null) {
+            trameComplete = encodeur.encoder(generateur -> {
+                generateur.writeStartObject();
+                generateur.writeStringField("type", "complet");
+                generateur.writeNumberField("version", version);
+                generateur.writeFieldName("etat");
+                EncodeurEtat.ecrireValeur(generateur, etatJeu);
+                generateur.writeEndObject();
+            });
+        }
+        return trameComplete;
+    }
+
+    /**
+     * Ajoute un nouveau client à la partie, et lui transmet l'état actuel de la partie
+     *
+     * @param session la session du nouveau client
+     * @return false si la partie a été arrêtée (le client n'est pas ajouté)
+     */
+    public boolean addClient(Session session) {
+        FileEnvoi file = new FileEnvoi(session);
+        synchronized (verrouEtat) {
+            if (arretee) {
+                return false;
+            }
+            clients.put(session, file);
+            if (etatJeu != null) {
+                file.ajouter(getTrameComplete(), true);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Renvoie l'état complet de la partie à un client (par exemple lorsqu'il a manqué une trame delta)
+     *
+     * @param session la session du client
+     */
+    public void resynchroniser(Session session) {
+        synchronized (verrouEtat) {
+            FileEnvoi file = clients.get(session);
+            if (file != null && etatJeu != null) {
+                file.ajouter(getTrameComplete(), true);
+            }
+        }
+    }
+
+    /**
+     * Envoie à un client une page des messages du log qui précèdent le message de numéro donné (voir
+     * Jeu.pageLog()) : {"type": "log", "debut": n, "messages": [...]}
+     *
+     * La page ne modifie pas l'état de la partie : elle est placée dans la file du client comme une trame delta,
+     * sans changer de version.
+     *
+     * @param session la session du client
+     * @param avant   numéro du message qui suit la page
+     */
+    public void envoyerLog(Session session, long avant) {
+        ObjetJson page = jeu.pageLog(avant);
+        synchronized (verrouEtat) {
+            FileEnvoi file = clients.get(session);
+            if (file == null) {
+                return;
+            }
+            String trame = encodeur.encoder(generateur -> {
+                generateur.writeStartObject();
+                generateur.writeStringField("type", "log");
+                generateur.writeNumberField("debut", (Long) page.get("debut"));
+                generateur.writeFieldName("messages");
+                EncodeurEtat.ecrireValeur(generateur, page.get("messages"));
+                generateur.writeEndObject();
+            });
+            if (!file.ajouter(trame, false) && etatJeu != null) {
+                file.ajouter(getTrameComplete(), true);
+            }
+        }
+    }
+
+    /**
+     * Retire un client de la partie, et prévient le suivi si c'était le dernier
+     *
+     * @param session la session du client à retirer
+     */
+    public void removeClient(Session session) {
+        FileEnvoi file = clients.remove(session);
+        if (file != null) {
+            file.fermer(null);
+            nbMessagesEnvoyesClientsPartis.addAndGet(file.getNbEnvoyes());
+            nbMessagesAbandonnesClientsPartis.addAndGet(file.getNbAbandonnes());
+            if (file.estDeconnecteeCarSaturee()) {
+                nbClientsDeconnectes.incrementAndGet();
+            }
+            Suivi s = suivi;
+            if (clients.isEmpty() && s != null) {
+                s.dernierClientParti(this);
+            }
+        }
+    }
+
+    /**
+     * Déconnecte les clients saturés depuis trop longtemps (voir FileEnvoi.verifierSaturation())
+     */
+    public void verifierSaturations() {
+        for (FileEnvoi file : clients.values()) {
+            file.verifierSaturation();
+        }
+    }
+
+    /**
+     * Renvoie les mesures des envois de la partie sous la forme d'un dictionnaire de valeurs sérialisables :
+     * nombre de clients, messages en attente (total et plus longue file), messages envoyés, messages abandonnés
+     * (remplacés par un état plus récent) et clients déconnectés car trop lents
+     */
+    public Map<String, Object> metriques() {
+        int enAttente = 0;
+        int fileMax = 0;
+        long envoyes = nbMessagesEnvoyesClientsPartis.get();
+        long abandonnes = nbMessagesAbandonnesClientsPartis.get();
+        for (FileEnvoi file : clients.values()) {
+            int taille = file.getTaille();
+            enAttente += taille;
+            fileMax = Math.max(fileMax, taille);
+            envoyes += file.getNbEnvoyes();
+            abandonnes += file.getNbAbandonnes();
+        }
+        return Map.ofEntries(
+                Map.entry("clients", clients.size()),
+                Map.entry("messagesEnAttente", enAttente),
+                Map.entry("fileMax", fileMax),
+                Map.entry("messagesEnvoyes", envoyes),
+                Map.entry("messagesAbandonnes", abandonnes),
+                Map.entry("clientsDeconnectes", nbClientsDeconnectes.get()));
+    }
+}
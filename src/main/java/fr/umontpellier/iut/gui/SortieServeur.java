@@ -0,0 +1,37 @@
+package fr.umontpellier.iut.gui;
+
+import fr.umontpellier.iut.rails.Bouton;
+import fr.umontpellier.iut.rails.Jeu;
+import fr.umontpellier.iut.rails.ObjetJson;
+import fr.umontpellier.iut.rails.SortieAsynchrone;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Sortie qui diffuse l'état de la partie aux clients websocket de la partie (voir Partie.setEtatJeu()).
+ *
+ * Le thread de la partie ne fait que prendre un instantané de l'état (Jeu.etatJson()) ; le calcul des différences
+ * et l'encodage des trames se font dans le thread de la sortie. Seul le dernier état d'un lot est diffusé : la
+ * trame delta qui y mène depuis l'état diffusé précédemment contient aussi les changements des états
+ * intermédiaires.
+ */
+public class SortieServeur extends SortieAsynchrone<ObjetJson> {
+    private final Partie partie;
+
+    public SortieServeur(Partie partie, ThreadFactory fabrique) {
+        super(fabrique);
+        this.partie = partie;
+    }
+
+    @Override
+    protected ObjetJson preparer(Jeu jeu, String instruction, Collection<Bouton> boutons) {
+        return jeu.etatJson();
+    }
+
+    @Override
+    protected void ecrire(List<ObjetJson> lot) {
+        partie.setEtatJeu(lot.get(lot.size() - 1));
+    }
+}
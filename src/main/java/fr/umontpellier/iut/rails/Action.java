@@ -0,0 +1,74 @@
+package fr.umontpellier.iut.rails;
+
+import fr.umontpellier.iut.rails.data.CarteTransport;
+import fr.umontpellier.iut.rails.data.Destination;
+import fr.umontpellier.iut.rails.data.TypeCarteTransport;
+import fr.umontpellier.iut.rails.data.Ville;
+
+import java.util.List;
+
+/**
+ * Action d'un joueur, appliquée directement par MoteurPartie.appliquer() (sans passer par les instructions
+ * textuelles de MoteurPartie.traiter()). Les actions possibles dans l'état courant de la partie sont données par
+ * MoteurPartie.actionsPossibles().
+ */
+public sealed interface Action {
+    /**
+     * Mise en place : nombre de pions wagon choisis (le reste des 60 pions est en pions bateau)
+     */
+    record ChoisirPionsWagon(int nombre) implements Action {
+    }
+
+    /**
+     * Choix des destinations gardées parmi celles proposées (les autres sont remises sous la pile)
+     */
+    record GarderDestinations(List<Destination> destinations) implements Action {
+    }
+
+    /**
+     * Pioche d'une carte (WAGON ou BATEAU) : au début du tour, pour remplacer une carte visible prise, ou comme
+     * deuxième carte
+     */
+    record PiocherCarte(TypeCarteTransport pioche) implements Action {
+    }
+
+    /**
+     * Prise de la carte visible de l'emplacement donné (de 0 à 5, voir MarcheCartes)
+     */
+    record PrendreCarteVisible(int emplacement) implements Action {
+    }
+
+    record PiocherDestinations() implements Action {
+    }
+
+    /**
+     * Échange de pions : le joueur prend `nombre` pions wagon (ou bateau) de sa réserve, et remet autant de pions
+     * de l'autre sorte dans sa réserve
+     */
+    record EchangerPions(boolean wagons, int nombre) implements Action {
+    }
+
+    /**
+     * Capture d'une route libre, payée avec les cartes de la main données
+     */
+    record PrendreRoute(Route route, List<CarteTransport> paiement) implements Action {
+    }
+
+    /**
+     * Construction d'un port, payé avec les cartes de la main données
+     */
+    record ConstruirePort(Ville ville, List<CarteTransport> paiement) implements Action {
+    }
+
+    /**
+     * Pose d'une carte pour le paiement en cours (paiement commencé par une instruction textuelle)
+     */
+    record PoserCarte(CarteTransport carte) implements Action {
+    }
+
+    /**
+     * Le joueur ne prend pas de deuxième carte
+     */
+    record Passer() implements Action {
+    }
+}
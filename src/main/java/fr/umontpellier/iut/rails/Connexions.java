@@ -0,0 +1,117 @@
+package fr.umontpellier.iut.rails;
+
+import java.util.Arrays;
+import java.util.List;
+
+import fr.umontpellier.iut.rails.data.Plateau;
+import fr.umontpellier.iut.rails.data.Ville;
+
+/**
+ * Villes reliées entre elles par un ensemble de routes du plateau (les routes d'un joueur) : union-find sur les
+ * indices des villes du plateau (Plateau.getVilles()), avec compression de chemins et union par taille.
+ *
+ * Les routes déjà prises en compte sont mémorisées sous forme de bitset : à chaque question, seules les routes
+ * ajoutées depuis la question précédente sont fusionnées. Si des routes ont été retirées de l'ensemble (ce qui
+ * n'arrive pas en cours de partie), les composantes sont recalculées entièrement.
+ */
+final class Connexions {
+    private final Plateau plateau;
+    /**
+     * Parent de chaque ville dans sa composante, et taille de la composante pour les villes racines
+     */
+    private final int[] parents;
+    private final int[] tailles;
+    /**
+     * Bitset des routes déjà fusionnées (indexé par Route.getIndice())
+     */
+    private long[] routesFusionnees;
+
+    Connexions(Plateau plateau) {
+        this.plateau = plateau;
+        this.parents = new int[plateau.getNbVilles()];
+        this.tailles = new int[parents.length];
+        this.routesFusionnees = new long[(plateau.getRoutes().size() + 63) / 64];
+        reinitialiser();
+    }
+
+    private void reinitialiser() {
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = i;
+        }
+        Arrays.fill(tailles, 1);
+        Arrays.fill(routesFusionnees, 0);
+    }
+
+    /**
+     * Met les composantes à jour à partir de l'ensemble de routes donné (bitset indexé par Route.getIndice())
+     */
+    void mettreAJour(long[] routes) {
+        for (int mot = 0; mot < routesFusionnees.length; mot++) {
+            if ((routesFusionnees[mot] & ~routes[mot]) != 0) {
+                reinitialiser();
+                break;
+            }
+        }
+        for (int mot = 0; mot < routesFusionnees.length; mot++) {
+            long nouvelles = routes[mot] & ~routesFusionnees[mot];
+            while (nouvelles != 0) {
+                int route = (mot << 6) + Long.numberOfTrailingZeros(nouvelles);
+                fusionner(plateau.indiceVille1(route), plateau.indiceVille2(route));
+                nouvelles &= nouvelles - 1;
+            }
+            routesFusionnees[mot] = routes[mot];
+        }
+    }
+
+    private int racine(int ville) {
+        while (parents[ville] != ville) {
+            parents[ville] = parents[parents[ville]];
+            ville = parents[ville];
+        }
+        return ville;
+    }
+
+    private void fusionner(int ville1, int ville2) {
+        int racine1 = racine(ville1);
+        int racine2 = racine(ville2);
+        if (racine1 == racine2) {
+            return;
+        }
+        if (tailles[racine1] < tailles[racine2]) {
+            int echange = racine1;
+            racine1 = racine2;
+            racine2 = echange;
+        }
+        parents[racine2] = racine1;
+        tailles[racine1] += tailles[racine2];
+    }
+
+    /**
+     * @return true si les deux villes sont reliées par les routes fusionnées
+     */
+    boolean sontReliees(Ville ville1, Ville ville2) {
+        int indice1 = plateau.indiceVille(ville1);
+        int indice2 = plateau.indiceVille(ville2);
+        return indice1 >= 0 && indice2 >= 0 && racine(indice1) == racine(indice2);
+    }
+
+    /**
+     * @param noms noms de villes du plateau (les villes d'une destination ou d'un itinéraire)
+     * @return true si toutes les villes sont reliées entre elles par les routes fusionnées
+     */
+    boolean sontReliees(List<String> noms) {
+        int racine = -1;
+        for (String nom : noms) {
+            int indice = plateau.indiceVille(plateau.getVille(nom));
+            if (indice < 0) {
+                return false;
+            }
+            if (racine < 0) {
+                racine = racine(indice);
+            } else if (racine(indice) != racine) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,17 @@
+package fr.umontpellier.iut.rails;
+
+/**
+ * Fournisseur de décisions pour une partie sans affichage : remplace le joueur humain qui répond aux questions
+ * du jeu (voir Simulation)
+ */
+@FunctionalInterface
+public interface Decideur {
+    /**
+     * Choisit l'action du joueur courant pour la question en cours (moteur.getEtat()), en général parmi
+     * moteur.actionsPossibles()
+     *
+     * @param moteur le moteur de la partie
+     * @return l'action choisie, ou null si le décideur ne trouve aucune action possible
+     */
+    Action choisir(MoteurPartie moteur);
+}
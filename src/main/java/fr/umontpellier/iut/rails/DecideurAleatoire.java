@@ -0,0 +1,54 @@
+package fr.umontpellier.iut.rails;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Décideur qui choisit au hasard parmi les actions possibles de la question en cours
+ * (MoteurPartie.actionsPossibles()) : aucune action proposée n'est refusée par le moteur.
+ *
+ * La sorte d'action (pioche, capture de route, échange de pions...) est d'abord choisie uniformément, puis une
+ * action de cette sorte : sinon les sortes qui se déclinent en de nombreuses actions (comme les échanges de 1 à 25
+ * pions) seraient choisies presque à chaque tour.
+ */
+public class DecideurAleatoire implements Decideur {
+    private final SplittableRandom aleatoire;
+    /**
+     * Sortes d'actions possibles (réutilisée d'une décision à l'autre)
+     */
+    private final List<Class<?>> sortes;
+
+    public DecideurAleatoire(long graine) {
+        this.aleatoire = new SplittableRandom(graine);
+        this.sortes = new ArrayList<>();
+    }
+
+    @Override
+    public Action choisir(MoteurPartie moteur) {
+        List<Action> actions = moteur.actionsPossibles();
+        if (actions.isEmpty()) {
+            return null;
+        }
+        sortes.clear();
+        for (Action action : actions) {
+            if (!sortes.contains(action.getClass())) {
+                sortes.add(action.getClass());
+            }
+        }
+        Class<?> sorte = sortes.get(aleatoire.nextInt(sortes.size()));
+        int nb = 0;
+        for (Action action : actions) {
+            if (action.getClass() == sorte) {
+                nb++;
+            }
+        }
+        int choix = aleatoire.nextInt(nb);
+        for (Action action : actions) {
+            if (action.getClass() == sorte && choix-- == 0) {
+                return action;
+            }
+        }
+        throw new IllegalStateException();
+    }
+}
@@ -0,0 +1,161 @@
+package fr.umontpellier.iut.rails;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.umontpellier.iut.rails.data.Destination;
+import fr.umontpellier.iut.rails.data.Plateau;
+import fr.umontpellier.iut.rails.data.Ville;
+
+/**
+ * Décompte des points de fin de partie : points des routes, destinations et itinéraires réalisés ou non, ports
+ * construits ou non.
+ *
+ * Une destination est réalisée si toutes ses villes sont reliées par les routes du joueur (voir Connexions). Un
+ * itinéraire (destination de plus de deux villes) est réalisé dans l'ordre si le réseau du joueur contient un
+ * chemin qui passe par ses villes dans l'ordre de la carte, sans emprunter deux fois la même route. Le chemin est
+ * cherché par un parcours en profondeur sur le graphe des villes du plateau (voir Plateau.voisin()), restreint aux
+ * routes du joueur, uniquement pour les itinéraires déjà réalisés.
+ *
+ * Le décompte ne modifie pas les joueurs : il peut être appelé à tout moment, par exemple pour évaluer une
+ * position dans un bot.
+ */
+public final class Decompte {
+    /**
+     * Points de pénalité par port non construit
+     */
+    public static final int PENALITE_PORT = 4;
+
+    /**
+     * Réalisation d'une destination ou d'un itinéraire
+     */
+    public enum Realisation {
+        NON_REALISEE, REALISEE, REALISEE_DANS_L_ORDRE
+    }
+
+    private Decompte() {
+    }
+
+    /**
+     * @param ordreItineraires true pour chercher si les itinéraires réalisés le sont dans l'ordre, false pour
+     *                         s'arrêter à REALISEE (suffisant pour les destinations simples)
+     */
+    public static Realisation realisation(Joueur joueur, Destination destination, boolean ordreItineraires) {
+        if (!joueur.destinationEstComplete(destination)) {
+            return Realisation.NON_REALISEE;
+        }
+        if (ordreItineraires && destination.getVilles().size() > 2
+                && estRealiseeDansLOrdre(joueur.getPlateau(), joueur.getMasqueRoutes(), destination)) {
+            return Realisation.REALISEE_DANS_L_ORDRE;
+        }
+        return Realisation.REALISEE;
+    }
+
+    /**
+     * @return les points rapportés par la destination (négatifs si elle n'est pas réalisée)
+     */
+    public static int valeur(Destination destination, Realisation realisation) {
+        return switch (realisation) {
+            case NON_REALISEE -> -destination.getPenalite();
+            case REALISEE -> destination.getValeurSimple();
+            case REALISEE_DANS_L_ORDRE -> destination.getValeurMax();
+        };
+    }
+
+    /**
+     * @return les points rapportés par un port construit dans une ville qui fait partie du nombre donné de
+     * destinations réalisées
+     */
+    public static int valeurPort(int nbDestinations) {
+        return switch (nbDestinations) {
+            case 0 -> 0;
+            case 1 -> 20;
+            case 2 -> 30;
+            default -> 40;
+        };
+    }
+
+    /**
+     * @param ordreItineraires true pour compter la valeur maximale des itinéraires réalisés dans l'ordre, false
+     *                         pour compter la valeur simple de tous les itinéraires réalisés
+     * @return le score de fin de partie du joueur
+     */
+    public static int scoreFinal(Joueur joueur, boolean ordreItineraires) {
+        int score = joueur.getScore();
+        List<Destination> realisees = new ArrayList<>();
+        for (Destination destination : joueur.getDestinations()) {
+            Realisation realisation = realisation(joueur, destination, ordreItineraires);
+            score += valeur(destination, realisation);
+            if (realisation != Realisation.NON_REALISEE) {
+                realisees.add(destination);
+            }
+        }
+        for (Ville port : joueur.getPorts()) {
+            int nb = 0;
+            for (Destination destination : realisees) {
+                if (destination.getVilles().contains(port.nom())) {
+                    nb++;
+                }
+            }
+            score += valeurPort(nb);
+        }
+        return score - PENALITE_PORT * (Joueur.NB_PORTS_MAX - joueur.getPorts().size());
+    }
+
+    /**
+     * @return les scores de fin de partie de tous les joueurs de la partie, dans l'ordre des joueurs
+     */
+    public static int[] scoresFinaux(Jeu jeu, boolean ordreItineraires) {
+        List<Joueur> joueurs = jeu.getJoueurs();
+        int[] scores = new int[joueurs.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = scoreFinal(joueurs.get(i), ordreItineraires);
+        }
+        return scores;
+    }
+
+    /**
+     * @param plateau le plateau de la partie du joueur
+     * @param routes  les routes du joueur (bitset indexé par Route.getIndice() sur ce plateau)
+     * @return true si les routes contiennent un chemin qui passe par les villes de la destination dans l'ordre
+     */
+    static boolean estRealiseeDansLOrdre(Plateau plateau, long[] routes, Destination destination) {
+        List<String> noms = destination.getVilles();
+        int[] etapes = new int[noms.size()];
+        for (int i = 0; i < etapes.length; i++) {
+            etapes[i] = plateau.indiceVille(plateau.getVille(noms.get(i)));
+            if (etapes[i] < 0) {
+                return false;
+            }
+        }
+        return parcourir(plateau, routes.clone(), etapes, 1, etapes[0]);
+    }
+
+    /**
+     * Parcours en profondeur (sur le graphe CSR du plateau) à partir de la ville d'indice donné, avec les routes
+     * encore disponibles (retirées du bitset pendant qu'elles sont empruntées)
+     *
+     * @param etape indice dans etapes de la prochaine ville à atteindre
+     */
+    private static boolean parcourir(Plateau plateau, long[] disponibles, int[] etapes, int etape, int ville) {
+        if (ville == etapes[etape]) {
+            etape++;
+            if (etape == etapes.length) {
+                return true;
+            }
+        }
+        for (int position = plateau.debutVoisins(ville); position < plateau.finVoisins(ville); position++) {
+            int route = plateau.routeVoisine(position);
+            long bit = 1L << route;
+            if ((disponibles[route >> 6] & bit) != 0) {
+                disponibles[route >> 6] ^= bit;
+                boolean trouve = parcourir(plateau, disponibles, etapes, etape, plateau.voisin(position));
+                disponibles[route >> 6] ^= bit;
+                if (trouve) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,204 @@
+package fr.umontpellier.iut.rails;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.CharacterEscapes;
+import com.fasterxml.jackson.core.io.SerializedString;
+import fr.umontpellier.iut.rails.data.CarteTransport;
+import fr.umontpellier.iut.rails.data.Destination;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Encodeur JSON de l'état du jeu, qui écrit un instantané (voir ObjetJson et Jeu.etatJson()) directement avec un
+ * JsonGenerator de Jackson, dans un tampon réutilisé d'un appel à l'autre.
+ *
+ * Le texte produit est identique à celui de Gson (utilisé auparavant sur Jeu.dataMap()) : mêmes champs dans le
+ * même ordre pour les cartes, destinations et boutons, et mêmes échappements : caractères de contrôle,
+ * caractères HTML &lt; &gt; &amp; = ' et séparateurs de lignes U+2028 et U+2029 écrits en hexadécimal minuscule.
+ *
+ * Un encodeur n'est pas thread-safe : chaque utilisateur (par exemple chaque partie) a le sien.
+ */
+public final class EncodeurEtat {
+    /**
+     * Fabrique des générateurs, configurée pour reproduire les échappements de Gson
+     */
+    private static final JsonFactory FABRIQUE = new JsonFactoryBuilder()
+            .characterEscapes(new EchappementsGson())
+            .build();
+
+    /**
+     * Écriture d'une valeur JSON avec un générateur
+     */
+    @FunctionalInterface
+    public interface Ecriture {
+        void ecrire(JsonGenerator generateur) throws IOException;
+    }
+
+    private final CharArrayWriter tampon;
+
+    public EncodeurEtat() {
+        tampon = new CharArrayWriter(4096);
+    }
+
+    /**
+     * @return le texte JSON de la valeur (ObjetJson, tableau ou valeur simple)
+     */
+    public String encoder(Object valeur) {
+        return encoder(generateur -> ecrireValeur(generateur, valeur));
+    }
+
+    /**
+     * @return le texte JSON produit par l'écriture
+     */
+    public String encoder(Ecriture ecriture) {
+        tampon.reset();
+        try (JsonGenerator generateur = FABRIQUE.createGenerator(tampon)) {
+            ecriture.ecrire(generateur);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tampon.toString();
+    }
+
+    /**
+     * Écrit une valeur d'un instantané de l'état du jeu
+     */
+    public static void ecrireValeur(JsonGenerator generateur, Object valeur) throws IOException {
+        if (valeur == null) {
+            generateur.writeNull();
+        } else if (valeur instanceof ObjetJson objet) {
+            generateur.writeStartObject();
+            for (int i = 0; i < objet.taille(); i++) {
+                generateur.writeFieldName(objet.getCle(i));
+                ecrireValeur(generateur, objet.getValeur(i));
+            }
+            generateur.writeEndObject();
+        } else if (valeur instanceof Object[] tableau) {
+            generateur.writeStartArray();
+            for (Object element : tableau) {
+                ecrireValeur(generateur, element);
+            }
+            generateur.writeEndArray();
+        } else if (valeur instanceof String chaine) {
+            generateur.writeString(chaine);
+        } else if (valeur instanceof Integer entier) {
+            generateur.writeNumber(entier);
+        } else if (valeur instanceof Long entier) {
+            generateur.writeNumber(entier);
+        } else if (valeur instanceof Boolean booleen) {
+            generateur.writeBoolean(booleen);
+        } else if (valeur instanceof Enum<?> constante) {
+            generateur.writeString(constante.name());
+        } else if (valeur instanceof CarteTransport carte) {
+            ecrireCarte(generateur, carte);
+        } else if (valeur instanceof Destination destination) {
+            ecrireDestination(generateur, destination);
+        } else if (valeur instanceof Bouton bouton) {
+            generateur.writeStartObject();
+            ecrireChampChaine(generateur, "label", bouton.label());
+            ecrireChampChaine(generateur, "valeur", bouton.valeur());
+            generateur.writeEndObject();
+        } else if (valeur instanceof List<?> liste) {
+            ecrireValeur(generateur, liste.toArray());
+        } else {
+            throw new IllegalArgumentException("Valeur non encodable : " + valeur.getClass().getName());
+        }
+    }
+
+    private static void ecrireCarte(JsonGenerator generateur, CarteTransport carte) throws IOException {
+        generateur.writeStartObject();
+        if (carte.getType() != null) {
+            generateur.writeStringField("type", carte.getType().name());
+        }
+        if (carte.getCouleur() != null) {
+            generateur.writeStringField("couleur", carte.getCouleur().name());
+        }
+        generateur.writeBooleanField("estDouble", carte.estDouble());
+        generateur.writeBooleanField("ancre", carte.getAncre());
+        ecrireChampChaine(generateur, "nom", carte.getNom());
+        generateur.writeEndObject();
+    }
+
+    private static void ecrireDestination(JsonGenerator generateur, Destination destination) throws IOException {
+        generateur.writeStartObject();
+        if (destination.getVilles() != null) {
+            generateur.writeArrayFieldStart("villes");
+            for (String ville : destination.getVilles()) {
+                generateur.writeString(ville);
+            }
+            generateur.writeEndArray();
+        }
+        generateur.writeNumberField("valeurSimple", destination.getValeurSimple());
+        generateur.writeNumberField("valeurMax", destination.getValeurMax());
+        generateur.writeNumberField("penalite", destination.getPenalite());
+        ecrireChampChaine(generateur, "nom", destination.getNom());
+        generateur.writeEndObject();
+    }
+
+    /**
+     * Écrit un champ chaîne, omis si la valeur est null (comme le fait Gson)
+     */
+    private static void ecrireChampChaine(JsonGenerator generateur, String cle, String valeur) throws IOException {
+        if (valeur != null) {
+            generateur.writeStringField(cle, valeur);
+        }
+    }
+
+    /**
+     * Échappements des chaînes identiques à ceux de Gson (avec l'échappement HTML, actif par défaut)
+     */
+    private static final class EchappementsGson extends CharacterEscapes {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] codes;
+        /**
+         * Séquences d'échappement des caractères ASCII échappés différemment du standard JSON
+         */
+        private final SerializableString[] sequences;
+        private final SerializableString sequence2028;
+        private final SerializableString sequence2029;
+
+        EchappementsGson() {
+            codes = standardAsciiEscapesForJSON();
+            sequences = new SerializableString[codes.length];
+            for (int c = 0; c < 0x20; c++) {
+                if (c != '\b' && c != '\t' && c != '\n' && c != '\f' && c != '\r') {
+                    personnaliser(c);
+                }
+            }
+            for (char c : "<>&='".toCharArray()) {
+                personnaliser(c);
+            }
+            sequence2028 = sequenceHexadecimale(0x2028);
+            sequence2029 = sequenceHexadecimale(0x2029);
+        }
+
+        private void personnaliser(int c) {
+            codes[c] = ESCAPE_CUSTOM;
+            sequences[c] = sequenceHexadecimale(c);
+        }
+
+        private static SerializableString sequenceHexadecimale(int c) {
+            return new SerializedString(String.format("\\u%04x", c));
+        }
+
+        @Override
+        public int[] getEscapeCodesForAscii() {
+            return codes;
+        }
+
+        @Override
+        public SerializableString getEscapeSequence(int c) {
+            if (c < sequences.length) {
+                return sequences[c];
+            }
+            return c == 0x2028 ? sequence2028 : c == 0x2029 ? sequence2029 : null;
+        }
+    }
+}
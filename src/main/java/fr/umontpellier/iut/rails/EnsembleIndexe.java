@@ -0,0 +1,235 @@
+package fr.umontpellier.iut.rails;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+
+/**
+ * Sous-ensemble modifiable des éléments d'un univers fixe et indexé (les routes ou les ports du plateau partagé),
+ * représenté par un bitset : appartenance, ajout et retrait en temps constant, sans copie de l'univers.
+ *
+ * Vu comme une liste, l'ensemble contient ses éléments dans l'ordre de l'univers. Un élément ajouté reprend donc sa
+ * place dans l'univers (et non la fin de la liste), et ajouter un élément déjà présent ne le duplique pas.
+ *
+ * Les mots du bitset (getMots()) permettent de combiner l'ensemble avec des masques sur le même univers (par
+ * exemple les routes reliées à une ville, voir Plateau), et la copie d'un ensemble ne copie que ses mots.
+ */
+final class EnsembleIndexe<T> extends AbstractList<T> {
+    private final List<T> univers;
+    /**
+     * Indice d'un objet dans l'univers (négatif si l'objet n'en fait pas partie)
+     */
+    private final ToIntFunction<Object> indice;
+    private final long[] mots;
+    private int taille;
+
+    /**
+     * @param plein true pour créer l'ensemble de tous les éléments de l'univers, false pour l'ensemble vide
+     */
+    EnsembleIndexe(List<T> univers, ToIntFunction<Object> indice, boolean plein) {
+        this.univers = univers;
+        this.indice = indice;
+        this.mots = new long[(univers.size() + 63) / 64];
+        if (plein) {
+            for (int i = 0; i < univers.size(); i++) {
+                mots[i >> 6] |= 1L << i;
+            }
+            taille = univers.size();
+        }
+    }
+
+    private EnsembleIndexe(EnsembleIndexe<T> ensemble) {
+        this.univers = ensemble.univers;
+        this.indice = ensemble.indice;
+        this.mots = ensemble.mots.clone();
+        this.taille = ensemble.taille;
+    }
+
+    /**
+     * @return une copie indépendante de l'ensemble, sur le même univers
+     */
+    EnsembleIndexe<T> copie() {
+        return new EnsembleIndexe<>(this);
+    }
+
+    /**
+     * @return une copie des mots du bitset (le bit i est à 1 si l'élément d'indice i de l'univers est présent)
+     */
+    long[] getMots() {
+        return mots.clone();
+    }
+
+    /**
+     * @param masque un bitset sur le même univers
+     * @return true si l'ensemble contient au moins un élément du masque
+     */
+    boolean intersecte(long[] masque) {
+        for (int mot = 0; mot < mots.length && mot < masque.length; mot++) {
+            if ((mots[mot] & masque[mot]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return l'indice de l'objet dans l'univers, ou -1 s'il n'en fait pas partie
+     */
+    private int indiceDe(Object objet) {
+        int i = indice.applyAsInt(objet);
+        return i >= 0 && i < univers.size() && Objects.equals(univers.get(i), objet) ? i : -1;
+    }
+
+    private boolean estPresent(int i) {
+        return (mots[i >> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * @return l'indice dans l'univers du premier élément présent à partir de l'indice i (inclus), ou -1
+     */
+    private int suivant(int i) {
+        int mot = i >> 6;
+        if (mot >= mots.length) {
+            return -1;
+        }
+        long bits = mots[mot] & (-1L << i);
+        while (true) {
+            if (bits != 0) {
+                return (mot << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++mot == mots.length) {
+                return -1;
+            }
+            bits = mots[mot];
+        }
+    }
+
+    @Override
+    public int size() {
+        return taille;
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, taille);
+        int reste = index;
+        for (int mot = 0; ; mot++) {
+            int nb = Long.bitCount(mots[mot]);
+            if (reste < nb) {
+                long bits = mots[mot];
+                for (int k = 0; k < reste; k++) {
+                    bits &= bits - 1;
+                }
+                return univers.get((mot << 6) + Long.numberOfTrailingZeros(bits));
+            }
+            reste -= nb;
+        }
+    }
+
+    @Override
+    public boolean contains(Object objet) {
+        int i = indiceDe(objet);
+        return i >= 0 && estPresent(i);
+    }
+
+    @Override
+    public int indexOf(Object objet) {
+        int i = indiceDe(objet);
+        if (i < 0 || !estPresent(i)) {
+            return -1;
+        }
+        int position = Long.bitCount(mots[i >> 6] & ((1L << i) - 1));
+        for (int mot = 0; mot < i >> 6; mot++) {
+            position += Long.bitCount(mots[mot]);
+        }
+        return position;
+    }
+
+    @Override
+    public int lastIndexOf(Object objet) {
+        return indexOf(objet);
+    }
+
+    /**
+     * Ajoute l'élément à l'ensemble (à sa place dans l'univers)
+     *
+     * @return false si l'élément était déjà présent
+     * @throws IllegalArgumentException si l'élément ne fait pas partie de l'univers
+     */
+    @Override
+    public boolean add(T element) {
+        int i = indiceDe(element);
+        if (i < 0) {
+            throw new IllegalArgumentException(element + " n'est pas sur le plateau");
+        }
+        if (estPresent(i)) {
+            return false;
+        }
+        mots[i >> 6] |= 1L << i;
+        taille++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object objet) {
+        int i = indiceDe(objet);
+        if (i < 0 || !estPresent(i)) {
+            return false;
+        }
+        mots[i >> 6] &= ~(1L << i);
+        taille--;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public T remove(int index) {
+        T element = get(index);
+        remove(element);
+        return element;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(mots, 0);
+        taille = 0;
+        modCount++;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private int prochain = suivant(0);
+            private int dernier = -1;
+
+            @Override
+            public boolean hasNext() {
+                return prochain >= 0;
+            }
+
+            @Override
+            public T next() {
+                if (prochain < 0) {
+                    throw new NoSuchElementException();
+                }
+                dernier = prochain;
+                prochain = suivant(prochain + 1);
+                return univers.get(dernier);
+            }
+
+            @Override
+            public void remove() {
+                if (dernier < 0) {
+                    throw new IllegalStateException();
+                }
+                EnsembleIndexe.this.remove(univers.get(dernier));
+                dernier = -1;
+            }
+        };
+    }
+}
@@ -0,0 +1,118 @@
+package fr.umontpellier.iut.rails;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Messages du log d'une partie, rangés dans un tableau circulaire de taille fixe : quand il est plein, un nouveau
+ * message remplace le plus ancien. Chaque message reçoit un numéro, à partir de 0, qui ne change pas quand les
+ * messages plus anciens sont oubliés.
+ *
+ * Vu comme une liste, l'historique contient les messages conservés, du plus ancien au plus récent. Seuls les
+ * derniers messages font partie de l'état de la partie envoyé aux clients (voir Jeu.etatJson()) ; les précédents
+ * sont envoyés à la demande, par pages (voir page()).
+ *
+ * Les messages sont ajoutés par le thread de la partie et les pages lues par ceux du serveur : les méthodes sont
+ * synchronisées.
+ */
+final class HistoriqueLog extends AbstractList<String> implements RandomAccess {
+    private final String[] messages;
+    /**
+     * Numéro du prochain message ajouté (c'est aussi le nombre de messages ajoutés depuis le début)
+     */
+    private long numeroSuivant;
+    private int taille;
+
+    /**
+     * @param capacite nombre de messages conservés
+     */
+    HistoriqueLog(int capacite) {
+        messages = new String[Math.max(capacite, 1)];
+    }
+
+    /**
+     * @return la position dans le tableau du message de numéro donné
+     */
+    private int position(long numero) {
+        return (int) (numero % messages.length);
+    }
+
+    /**
+     * @return le numéro du plus ancien message conservé
+     */
+    synchronized long getPremierNumero() {
+        return numeroSuivant - taille;
+    }
+
+    synchronized long getNumeroSuivant() {
+        return numeroSuivant;
+    }
+
+    /**
+     * @return le numéro du premier des `nombre` derniers messages
+     */
+    synchronized long debutDerniers(int nombre) {
+        return Math.max(getPremierNumero(), numeroSuivant - nombre);
+    }
+
+    /**
+     * @return les `nombre` derniers messages (ou tous les messages conservés s'il y en a moins), du plus ancien au
+     * plus récent, dans un nouveau tableau
+     */
+    synchronized Object[] derniers(int nombre) {
+        return messages(debutDerniers(nombre), numeroSuivant);
+    }
+
+    private static final String[] CLES_PAGE = {"debut", "messages"};
+
+    /**
+     * Renvoie une page de l'historique : les (au plus) `nombre` messages conservés qui précèdent le message de
+     * numéro `avant`, et le numéro du premier d'entre eux ({"debut": n, "messages": [...]})
+     */
+    synchronized ObjetJson page(long avant, int nombre) {
+        long fin = Math.max(getPremierNumero(), Math.min(avant, numeroSuivant));
+        long debut = Math.max(getPremierNumero(), fin - nombre);
+        return new ObjetJson(CLES_PAGE, debut, messages(debut, fin));
+    }
+
+    private Object[] messages(long debut, long fin) {
+        Object[] resultat = new Object[(int) Math.max(0, fin - debut)];
+        for (int i = 0; i < resultat.length; i++) {
+            resultat[i] = messages[position(debut + i)];
+        }
+        return resultat;
+    }
+
+    @Override
+    public synchronized boolean add(String message) {
+        messages[position(numeroSuivant)] = message;
+        numeroSuivant++;
+        taille = Math.min(taille + 1, messages.length);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public synchronized String get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return messages[position(getPremierNumero() + index)];
+    }
+
+    @Override
+    public synchronized int size() {
+        return taille;
+    }
+
+    /**
+     * Oublie tous les messages (les numéros continuent à partir du dernier message ajouté)
+     */
+    @Override
+    public synchronized void clear() {
+        Arrays.fill(messages, null);
+        taille = 0;
+        modCount++;
+    }
+}
@@ -1,12 +1,12 @@
 package fr.umontpellier.iut.rails;
 
-import com.google.gson.Gson;
-import fr.umontpellier.iut.gui.GameServer;
 import fr.umontpellier.iut.rails.data.*;
 
 import java.util.*;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
 
 
 public class Jeu implements Runnable {
@@ -19,13 +19,22 @@ public class Jeu implements Runnable {
      */
     private Joueur joueurCourant;
     /**
-     * Liste des villes disponibles sur le plateau de jeu
+     * Plateau du monde, partagé par toutes les parties
      */
-    private final List<Ville> portsLibres;
+    private final Plateau plateau;
     /**
-     * Liste des routes disponibles sur le plateau de jeu
+     * Liste des villes disponibles sur le plateau de jeu (sous-ensemble des ports du plateau)
      */
-    private final List<Route> routesLibres;
+    private final EnsembleIndexe<Ville> portsLibres;
+    /**
+     * Liste des routes disponibles sur le plateau de jeu (sous-ensemble des routes du plateau)
+     */
+    private final EnsembleIndexe<Route> routesLibres;
+    /**
+     * Vues en lecture seule des ports et routes libres (renvoyées par getPortsLibres() et getRoutesLibres())
+     */
+    private final List<Ville> vuePortsLibres;
+    private final List<Route> vueRoutesLibres;
     /**
      * Pile de pioche et défausse des cartes wagon
      */
@@ -35,85 +44,204 @@ public class Jeu implements Runnable {
      */
     private final PilesCartesTransport pilesDeCartesBateau;
     /**
-     * Cartes de la pioche face visible (normalement il y a 6 cartes face visible)
+     * Nombre maximal de remises des cartes visibles à la suite lorsque 3 jokers sont visibles
+     */
+    private static final int NB_REMISES_MAX = 10;
+    /**
+     * Cartes de la pioche face visible (normalement il y a 6 cartes face visible), rangées dans les emplacements
+     * d'un MarcheCartes
      */
-    private final List<CarteTransport> cartesTransportVisibles;
+    private final MarcheCartes cartesTransportVisibles;
     /**
      * Pile des cartes "Destination"
      */
     private final List<Destination> pileDestinations;
+    /**
+     * Graine du générateur aléatoire de la partie (deux parties de même graine, jouées avec les mêmes instructions,
+     * sont identiques)
+     */
+    private final long graine;
+    /**
+     * Générateur aléatoire de la partie, utilisé pour tous les mélanges et tirages
+     */
+    private final SplittableRandom aleatoire;
+    /**
+     * Journal des instructions et actions acceptées par le MoteurPartie (voir Rejoueur)
+     */
+    private final Journal journal;
     /**
      * File d'attente des instructions recues par le serveur
      */
     private final BlockingQueue<String> inputQueue;
     /**
-     * Messages d'information du jeu
+     * Nombre de messages du log conservés par la partie (propriété système `rails.log.capacite`)
      */
-    private final List<String> log;
+    static final int CAPACITE_LOG = Integer.getInteger("rails.log.capacite", 500);
+    /**
+     * Nombre de derniers messages du log inclus dans l'état de la partie (les précédents sont envoyés à la demande,
+     * voir pageLog())
+     */
+    static final int FENETRE_LOG = 50;
+    /**
+     * Messages d'information du jeu (les CAPACITE_LOG derniers, numérotés, voir HistoriqueLog)
+     */
+    private final HistoriqueLog log;
+
+    /**
+     * Identifiant de la partie sur le serveur (null si la partie n'est pas hébergée par un serveur)
+     */
+    private String idPartie;
+    /**
+     * Sorties qui reçoivent les questions posées aux joueurs (console, clients du serveur, fichier...), aucune par
+     * défaut
+     */
+    private final List<SortieJeu> sorties;
 
     private String instruction;
     private Collection<Bouton> boutons;
+    /**
+     * Mode sans affichage (simulations) : prompt() n'affiche rien et ne diffuse pas l'état de la partie, et les
+     * messages du log ne sont pas conservés
+     */
+    private boolean sansAffichage;
 
     public Jeu(String[] nomJoueurs) {
-        // initialisation des entrées/sorties
-        inputQueue = new LinkedBlockingQueue<>();
-        log = new ArrayList<>();
-
-        // création des villes et des routes
-        Plateau plateau = Plateau.makePlateauMonde();
-        portsLibres = plateau.getPorts();
-        routesLibres = plateau.getRoutes();
-
-        // création des piles de pioche et défausses des cartes Transport (wagon et
-        // bateau)
-        ArrayList<CarteTransport> cartesWagon = new ArrayList<>();
-        ArrayList<CarteTransport> cartesBateau = new ArrayList<>();
-        for (Couleur c : Couleur.values()) {
-            if (c == Couleur.GRIS) {
-                continue;
-            }
-            for (int i = 0; i < 4; i++) {
-                // Cartes wagon simples avec une ancre
-                cartesWagon.add(new CarteTransport(TypeCarteTransport.WAGON, c, false, true));
-            }
-            for (int i = 0; i < 7; i++) {
-                // Cartes wagon simples sans ancre
-                cartesWagon.add(new CarteTransport(TypeCarteTransport.WAGON, c, false, false));
+        this(nomJoueurs, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * @param graine graine du générateur aléatoire de la partie
+     */
+    public Jeu(String[] nomJoueurs, long graine) {
+        // les cartes et destinations de la partie sont numérotées à partir de 1 (C1, D1...), même si d'autres
+        // parties sont créées en même temps (voir Identifiants)
+        Identifiants.commencerPartie();
+        try {
+            this.graine = graine;
+            this.aleatoire = new SplittableRandom(graine);
+            this.journal = new Journal(graine, nomJoueurs);
+
+            // initialisation des entrées/sorties
+            inputQueue = new LinkedBlockingQueue<>();
+            log = new HistoriqueLog(CAPACITE_LOG);
+            sorties = new ArrayList<>();
+
+            // plateau partagé, routes et ports libres propres à la partie
+            plateau = Plateau.getPlateauMonde();
+            portsLibres = new EnsembleIndexe<>(plateau.getPorts(), plateau::indicePort, true);
+            routesLibres = new EnsembleIndexe<>(plateau.getRoutes(), plateau::indiceRoute, true);
+            vuePortsLibres = Collections.unmodifiableList(portsLibres);
+            vueRoutesLibres = Collections.unmodifiableList(routesLibres);
+
+            // création des piles de pioche et défausses des cartes Transport (wagon et
+            // bateau)
+            ArrayList<CarteTransport> cartesWagon = new ArrayList<>();
+            ArrayList<CarteTransport> cartesBateau = new ArrayList<>();
+            for (Couleur c : Couleur.values()) {
+                if (c == Couleur.GRIS) {
+                    continue;
+                }
+                for (int i = 0; i < 4; i++) {
+                    // Cartes wagon simples avec une ancre
+                    cartesWagon.add(new CarteTransport(TypeCarteTransport.WAGON, c, false, true));
+                }
+                for (int i = 0; i < 7; i++) {
+                    // Cartes wagon simples sans ancre
+                    cartesWagon.add(new CarteTransport(TypeCarteTransport.WAGON, c, false, false));
+                }
+                for (int i = 0; i < 4; i++) {
+                    // Cartes bateau simples (toutes avec une ancre)
+                    cartesBateau.add(new CarteTransport(TypeCarteTransport.BATEAU, c, false, true));
+                }
+                for (int i = 0; i < 6; i++) {
+                    // Cartes bateau doubles (toutes sans ancre)
+                    cartesBateau.add(new CarteTransport(TypeCarteTransport.BATEAU, c, true, false));
+                }
             }
-            for (int i = 0; i < 4; i++) {
-                // Cartes bateau simples (toutes avec une ancre)
-                cartesBateau.add(new CarteTransport(TypeCarteTransport.BATEAU, c, false, true));
+            for (int i = 0; i < 14; i++) {
+                // Cartes wagon joker
+                cartesWagon.add(new CarteTransport(TypeCarteTransport.JOKER, Couleur.GRIS, false, true));
             }
-            for (int i = 0; i < 6; i++) {
-                // Cartes bateau doubles (toutes sans ancre)
-                cartesBateau.add(new CarteTransport(TypeCarteTransport.BATEAU, c, true, false));
+            pilesDeCartesWagon = new PilesCartesTransport(cartesWagon, aleatoire.split());
+            pilesDeCartesBateau = new PilesCartesTransport(cartesBateau, aleatoire.split());
+
+            // création de la liste pile de cartes transport visibles
+            // (les cartes seront retournées plus tard, au début de la partie dans run())
+            cartesTransportVisibles = new MarcheCartes();
+
+            // création des destinations
+            pileDestinations = Destination.makeDestinationsMonde();
+            melanger(pileDestinations, aleatoire);
+
+            // création des joueurs
+            ArrayList<Joueur.CouleurJouer> couleurs = new ArrayList<>(Arrays.asList(Joueur.CouleurJouer.values()));
+            melanger(couleurs, aleatoire);
+            joueurs = new ArrayList<>();
+            for (String nomJoueur : nomJoueurs) {
+                joueurs.add(new Joueur(nomJoueur, this, couleurs.remove(0)));
             }
+            this.joueurCourant = joueurs.get(0);
+        } finally {
+            Identifiants.terminerPartie();
         }
-        for (int i = 0; i < 14; i++) {
-            // Cartes wagon joker
-            cartesWagon.add(new CarteTransport(TypeCarteTransport.JOKER, Couleur.GRIS, false, true));
+    }
+
+    public long getGraine() {
+        return graine;
+    }
+
+    /**
+     * Mélange de Fisher-Yates de la liste avec le générateur donné
+     */
+    static <T> void melanger(List<T> liste, SplittableRandom aleatoire) {
+        for (int i = liste.size() - 1; i > 0; i--) {
+            Collections.swap(liste, i, aleatoire.nextInt(i + 1));
         }
-        pilesDeCartesWagon = new PilesCartesTransport(cartesWagon);
-        pilesDeCartesBateau = new PilesCartesTransport(cartesBateau);
-
-        // création de la liste pile de cartes transport visibles
-        // (les cartes seront retournées plus tard, au début de la partie dans run())
-        cartesTransportVisibles = new ArrayList<>();
-
-        // création des destinations
-        pileDestinations = Destination.makeDestinationsMonde();
-        Collections.shuffle(pileDestinations);
-
-        // création des joueurs
-        ArrayList<Joueur.CouleurJouer> couleurs = new ArrayList<>(Arrays.asList(Joueur.CouleurJouer.values()));
-        Collections.shuffle(couleurs);
-        joueurs = new ArrayList<>();
-        for (String nomJoueur : nomJoueurs) {
-            joueurs.add(new Joueur(nomJoueur, this, couleurs.remove(0)));
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public String getIdPartie() {
+        return idPartie;
+    }
+
+    public void setIdPartie(String idPartie) {
+        this.idPartie = idPartie;
+    }
+
+    /**
+     * Ajoute une sortie aux sorties de la partie (à appeler avant de démarrer la partie)
+     */
+    public void ajouterSortie(SortieJeu sortie) {
+        sorties.add(sortie);
+    }
+
+    /**
+     * Ferme les sorties de la partie, après l'écriture des affichages en attente (à la fin de la partie, et quand
+     * le serveur la retire)
+     */
+    public void fermerSorties() {
+        for (SortieJeu sortie : sorties) {
+            sortie.fermer();
         }
-        this.joueurCourant = joueurs.get(0);
+    }
 
+    public boolean estSansAffichage() {
+        return sansAffichage;
+    }
 
+    public void setSansAffichage(boolean sansAffichage) {
+        this.sansAffichage = sansAffichage;
+    }
+
+    Joueur getJoueurCourant() {
+        return joueurCourant;
+    }
+
+    void setJoueurCourant(Joueur joueurCourant) {
+        this.joueurCourant = joueurCourant;
     }
 
     public List<Joueur> getJoueurs() {
@@ -124,18 +252,98 @@ public class Jeu implements Runnable {
         routesLibres.remove(route);
     }
 
+    /**
+     * @return le plateau (partagé) de la partie
+     */
+    Plateau getPlateau() {
+        return plateau;
+    }
+
+    /**
+     * Routes que le joueur ne peut pas capturer à cause d'une route parallèle : les routes parallèles à ses
+     * propres routes et, à moins de 4 joueurs, les routes parallèles aux routes déjà prises
+     *
+     * @return un bitset indexé par Route.getIndice()
+     */
+    long[] getRoutesBloquees(Joueur joueur) {
+        long[] prises = joueur.getMasqueRoutes();
+        if (joueurs.size() < 4) {
+            long[] libres = routesLibres.getMots();
+            for (int mot = 0; mot < prises.length; mot++) {
+                prises[mot] |= ~libres[mot];
+            }
+        }
+        return plateau.paralleles(prises);
+    }
+
     public List<Destination> getPileDestinations() {
         return pileDestinations;
     }
 
+    /**
+     * @return une vue en lecture seule des ports libres, dans l'ordre du plateau (la vue suit les ports construits
+     * par la suite : la copier pour conserver l'état courant)
+     */
     public List<Ville> getPortsLibres() {
-        return new ArrayList<>(portsLibres);
+        return vuePortsLibres;
     }
 
+    /**
+     * @return une vue en lecture seule des routes libres, dans l'ordre du plateau (la vue suit les routes prises
+     * par la suite : la copier pour conserver l'état courant)
+     */
     public List<Route> getRoutesLibres() {
-        return new ArrayList<>(routesLibres);
+        return vueRoutesLibres;
+    }
+
+    /**
+     * @return la route libre de nom donné, ou null si aucune route libre n'a ce nom
+     */
+    Route getRouteLibre(String nom) {
+        Route route = plateau.getRoute(nom);
+        return route != null && routesLibres.contains(route) ? route : null;
     }
 
+    boolean estRouteLibre(Route route) {
+        return routesLibres.contains(route);
+    }
+
+    boolean estPortLibre(Ville ville) {
+        return portsLibres.contains(ville);
+    }
+
+    /**
+     * @return le port libre de nom donné, ou null si aucun port libre n'a ce nom
+     */
+    Ville getPortLibre(String nom) {
+        Ville ville = plateau.getVille(nom);
+        return ville != null && portsLibres.contains(ville) ? ville : null;
+    }
+
+    /**
+     * @return l'emplacement de la carte visible de nom donné, ou -1 si aucune carte visible n'a ce nom
+     */
+    int getEmplacementCarteVisible(String nom) {
+        for (int emplacement = 0; emplacement < MarcheCartes.NB_EMPLACEMENTS; emplacement++) {
+            CarteTransport carte = cartesTransportVisibles.carte(emplacement);
+            if (carte != null && carte.getNom().equals(nom)) {
+                return emplacement;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return la carte visible de l'emplacement donné (de 0 à MarcheCartes.NB_EMPLACEMENTS - 1), ou null s'il est
+     * vide
+     */
+    CarteTransport getCarteVisible(int emplacement) {
+        return cartesTransportVisibles.carte(emplacement);
+    }
+
+    /**
+     * @return une copie des cartes visibles (sans les emplacements vides), dans l'ordre des emplacements
+     */
     public List<CarteTransport> getCartesTransportVisibles() {
         return new ArrayList<>(cartesTransportVisibles);
     }
@@ -154,10 +362,7 @@ public class Jeu implements Runnable {
         int tour = 0;
         boolean finPartie=false;
 
-        for (int j = 0; j < 3; j++) {
-            cartesTransportVisibles.add(piocherCarteWagon());
-            cartesTransportVisibles.add(piocherCarteBateau());
-        }
+        retournerCartesVisibles();
 
         //PREMIER TOUR
 
@@ -210,6 +415,7 @@ public class Jeu implements Runnable {
         }
         // FIN PARTIE
         prompt("Fin de la partie.", new ArrayList<>(), true);
+        fermerSorties();
     }
     public Destination piocherDestination() {
         // throw new RuntimeException("Méthode non implémentée !");
@@ -225,41 +431,59 @@ public class Jeu implements Runnable {
         return d;
     }
 
-    public void piocherCarteVisible(CarteTransport c){
-        this.joueurCourant.ajoutCarteTransport(c);
-        this.cartesTransportVisibles.remove(c);
+    /**
+     * Le joueur courant prend la carte visible de l'emplacement donné, qui reste vide jusqu'à ce qu'une carte la
+     * remplace (voir remplacerCarteVisible())
+     *
+     * @return la carte prise, ou null si l'emplacement était vide
+     */
+    public CarteTransport prendreCarteVisible(int emplacement) {
+        CarteTransport carte = cartesTransportVisibles.prendre(emplacement);
+        if (carte != null) {
+            this.joueurCourant.ajoutCarteTransport(carte);
+        }
+        return carte;
     }
 
-    public void remplacerCarteVisible(String choix){
+    /**
+     * Retourne une carte de la pioche choisie ("BATEAU" ou "WAGON") sur l'emplacement donné
+     */
+    public void remplacerCarteVisible(int emplacement, String choix){
         if(choix.equals("BATEAU")){
-            this.cartesTransportVisibles.add(this.piocherCarteBateau());
+            remplacerCarteVisible(emplacement, this.piocherCarteBateau());
         }
         else if (choix.equals("WAGON")){
-            this.cartesTransportVisibles.add(this.piocherCarteWagon());
+            remplacerCarteVisible(emplacement, this.piocherCarteWagon());
         }
     }
-    public void defausserSi3CartesJokerSontPresent() {
-        int nbJoker = 0;
-        for(CarteTransport c : cartesTransportVisibles){
-            if(c.getType().equals(TypeCarteTransport.JOKER)){
-                nbJoker++;
-            }
 
-        }
-        if(nbJoker>=3){
-            for(CarteTransport c : cartesTransportVisibles){
-                if(c.getType().equals(TypeCarteTransport.BATEAU)){
-                    this.pilesDeCartesBateau.defausser(c);
+    /**
+     * Pose la carte sur l'emplacement donné (une carte null laisse l'emplacement vide)
+     */
+    void remplacerCarteVisible(int emplacement, CarteTransport carte) {
+        cartesTransportVisibles.remplacer(emplacement, carte);
+    }
+    /**
+     * Si au moins 3 jokers sont visibles, les cartes visibles sont défaussées (chacune dans sa pile) et 3 cartes
+     * wagon et 3 cartes bateau sont retournées à leur place, jusqu'à ce qu'il y ait moins de 3 jokers visibles (au
+     * plus NB_REMISES_MAX fois, si les pioches ne contiennent presque plus que des jokers)
+     */
+    public void defausserSi3CartesJokerSontPresent() {
+        for (int remise = 0; remise < NB_REMISES_MAX && cartesTransportVisibles.getNbJokers() >= 3; remise++) {
+            for (int emplacement = 0; emplacement < MarcheCartes.NB_EMPLACEMENTS; emplacement++) {
+                CarteTransport carte = cartesTransportVisibles.prendre(emplacement);
+                if (carte == null) {
+                    continue;
                 }
-                if(c.getType().equals(TypeCarteTransport.WAGON)){
-                    this.pilesDeCartesBateau.defausser(c);
+                if (carte.getType() == TypeCarteTransport.BATEAU) {
+                    pilesDeCartesBateau.defausser(carte);
+                } else {
+                    pilesDeCartesWagon.defausser(carte);
                 }
             }
-            for (int i = 0; i < 3; i++) {
-                this.cartesTransportVisibles.add(this.piocherCarteBateau());
-            }
-            for (int i = 0; i < 3; i++) {
-                this.cartesTransportVisibles.add(this.piocherCarteWagon());
+            for (int emplacement = 0; emplacement < MarcheCartes.NB_EMPLACEMENTS; emplacement++) {
+                cartesTransportVisibles.remplacer(emplacement,
+                        emplacement % 2 == 0 ? piocherCarteWagon() : piocherCarteBateau());
             }
         }
     }
@@ -312,8 +536,7 @@ public class Jeu implements Runnable {
         ArrayList<Destination> resultat = new ArrayList<>();
 
         for(int i=0; i<numberCardToGet; i++){
-            Random rand = new Random();
-            int randomNumber = rand.nextInt(this.pileDestinations.size());
+            int randomNumber = aleatoire.nextInt(this.pileDestinations.size());
 
             resultat.add(this.pileDestinations.get(randomNumber));
             this.pileDestinations.remove(randomNumber);
@@ -347,15 +570,50 @@ public class Jeu implements Runnable {
         this.pilesDeCartesWagon.defausser(carte);
     }
 
-    public void enleverCarteVisible(CarteTransport carte){
-        this.cartesTransportVisibles.remove(carte);
+    /**
+     * Retourne une carte sur chaque emplacement vide des cartes visibles, en alternant cartes wagon et cartes bateau
+     * (3 de chaque si aucune carte n'est visible)
+     */
+    void retournerCartesVisibles() {
+        int nbRetournees = 0;
+        for (int emplacement = 0; emplacement < MarcheCartes.NB_EMPLACEMENTS; emplacement++) {
+            if (cartesTransportVisibles.carte(emplacement) == null) {
+                cartesTransportVisibles.remplacer(emplacement,
+                        nbRetournees++ % 2 == 0 ? piocherCarteWagon() : piocherCarteBateau());
+            }
+        }
+    }
+
+    /**
+     * Retire la carte des cartes visibles (son emplacement reste vide)
+     *
+     * @return l'emplacement qu'elle occupait, ou -1 si elle n'était pas visible
+     */
+    public int enleverCarteVisible(CarteTransport carte){
+        int emplacement = cartesTransportVisibles.emplacement(carte);
+        if (emplacement >= 0) {
+            cartesTransportVisibles.prendre(emplacement);
+        }
+        return emplacement;
     }
 
     /**
      * Ajoute un message au log du jeu
      */
     public void log(String message) {
-        log.add(message);
+        if (!sansAffichage) {
+            log.add(message);
+        }
+    }
+
+    /**
+     * Renvoie une page des messages du log plus anciens que ceux de l'état de la partie :
+     * {"debut": n, "messages": [...]}, où n est le numéro du premier message de la page
+     *
+     * @param avant numéro du message qui suit la page
+     */
+    public ObjetJson pageLog(long avant) {
+        return log.page(avant, FENETRE_LOG);
     }
 
     /**
@@ -375,39 +633,34 @@ public class Jeu implements Runnable {
      *
      * @return une chaîne de caractères correspondant à l'entrée suivante dans la
      * file
+     * @throws CancellationException si le thread de la partie est interrompu pendant l'attente
      */
     public String lireLigne() {
         try {
             return inputQueue.take();
         } catch (InterruptedException e) {
-            e.printStackTrace();
-            return null;
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Partie interrompue");
         }
     }
 
     /**
-     * Envoie l'état de la partie pour affichage aux joueurs avant de faire un choix
+     * Envoie l'état de la partie pour affichage aux joueurs avant de faire un choix, à chacune des sorties de la
+     * partie (voir ajouterSortie())
      *
      * @param instruction l'instruction qui est donnée au joueur
      * @param boutons     labels des choix proposés s'il y en a
      * @param peutPasser  indique si le joueur peut passer sans faire de choix
      */
     public void prompt(String instruction, Collection<Bouton> boutons, boolean peutPasser) {
+        if (sansAffichage) {
+            return;
+        }
         this.instruction = instruction;
         this.boutons = boutons;
-
-        System.out.println();
-        System.out.println(this);
-        if (boutons.isEmpty()) {
-            System.out.printf(">>> %s: %s <<<\n", joueurCourant.getNom(), instruction);
-        } else {
-            StringJoiner joiner = new StringJoiner(" / ");
-            for (Bouton bouton : boutons) {
-                joiner.add(bouton.toPrompt());
-            }
-            System.out.printf(">>> %s: %s [%s] <<<\n", joueurCourant.getNom(), instruction, joiner);
+        for (SortieJeu sortie : sorties) {
+            sortie.afficher(this, instruction, boutons);
         }
-        GameServer.setEtatJeu(new Gson().toJson(dataMap()));
     }
 
     @Override
@@ -425,29 +678,56 @@ public class Jeu implements Runnable {
                 Map.entry("joueurCourant", joueurs.indexOf(joueurCourant)),
                 Map.entry("piocheWagon", pilesDeCartesWagon.dataMap()),
                 Map.entry("piocheBateau", pilesDeCartesBateau.dataMap()),
-                Map.entry("cartesTransportVisibles", cartesTransportVisibles),
+                Map.entry("cartesTransportVisibles", cartesTransportVisibles.getEmplacements()),
                 Map.entry("nbDestinations", pileDestinations.size()),
                 Map.entry("instruction", instruction),
                 Map.entry("boutons", boutons),
-                Map.entry("log", log));
+                Map.entry("log", Arrays.asList(log.derniers(FENETRE_LOG))),
+                Map.entry("logDebut", log.debutDerniers(FENETRE_LOG)),
+                Map.entry("graine", Long.toString(graine)));
     }
 
-    public Ville getVille(String choix) {
-        for (Ville v : getPortsLibres()) {
-            if (v.nom().equals(choix)) {
-                return v;
-            }
+    private static final String[] CLES_ETAT = {"joueurs", "joueurCourant", "piocheWagon", "piocheBateau",
+            "cartesTransportVisibles", "nbDestinations", "instruction", "boutons", "log", "logDebut", "graine"};
+
+    /**
+     * Renvoie un instantané de l'état du jeu, avec les mêmes clés et valeurs que dataMap(), à encoder avec
+     * EncodeurEtat. L'instantané ne copie que des références (les cartes et destinations sont immuables) : il
+     * reste valable après les modifications suivantes du jeu.
+     */
+    public ObjetJson etatJson() {
+        Object[] etatsJoueurs = new Object[joueurs.size()];
+        for (int i = 0; i < etatsJoueurs.length; i++) {
+            etatsJoueurs[i] = joueurs.get(i).etatJson();
         }
-        return null;
+        return new ObjetJson(CLES_ETAT,
+                etatsJoueurs,
+                joueurs.indexOf(joueurCourant),
+                pilesDeCartesWagon.etatJson(),
+                pilesDeCartesBateau.etatJson(),
+                cartesTransportVisibles.getEmplacements().toArray(),
+                pileDestinations.size(),
+                instruction,
+                boutons == null ? null : boutons.toArray(),
+                log.derniers(FENETRE_LOG),
+                log.debutDerniers(FENETRE_LOG),
+                Long.toString(graine));
+    }
+
+    /**
+     * @return le port libre de nom donné, ou null si aucun port libre n'a ce nom
+     */
+    public Ville getVille(String choix) {
+        return getPortLibre(choix);
     }
 
     public void enleverCarteTransport(CarteTransport carteTransportX) {
         if(carteTransportX.getType().equals(TypeCarteTransport.BATEAU)){
-            this.cartesTransportVisibles.remove(carteTransportX);
+            enleverCarteVisible(carteTransportX);
             this.pilesDeCartesBateau.defausser(carteTransportX);
         }
         else if (carteTransportX.getType().equals(TypeCarteTransport.WAGON)){
-            this.cartesTransportVisibles.remove(carteTransportX);
+            enleverCarteVisible(carteTransportX);
             this.pilesDeCartesWagon.defausser(carteTransportX);
         }
     }
@@ -5,6 +5,11 @@ import fr.umontpellier.iut.rails.data.*;
 import java.util.*;
 
 public class Joueur {
+    /**
+     * Nombre maximal de ports qu'un joueur peut construire
+     */
+    static final int NB_PORTS_MAX = 3;
+
     public enum CouleurJouer {
         JAUNE, ROUGE, BLEU, VERT, ROSE;
     }
@@ -22,13 +27,22 @@ public class Joueur {
      */
     private final CouleurJouer couleur;
     /**
-     * Liste des villes sur lesquelles le joueur a construit un port
+     * Liste des villes sur lesquelles le joueur a construit un port (bitset sur les ports du plateau, dans l'ordre
+     * du plateau)
      */
     private final List<Ville> ports;
     /**
-     * Liste des routes capturées par le joueur
+     * Liste des routes capturées par le joueur (bitset sur les routes du plateau, dans l'ordre du plateau)
      */
     private final List<Route> routes;
+    /**
+     * Les routes du joueur vues comme bitset (même objet que routes)
+     */
+    private final EnsembleIndexe<Route> ensembleRoutes;
+    /**
+     * Villes reliées par les routes du joueur (mises à jour à partir de ensembleRoutes à chaque question)
+     */
+    private final Connexions connexions;
     /**
      * Nombre de pions wagons que le joueur peut encore poser sur le plateau
      */
@@ -68,13 +82,16 @@ public class Joueur {
         this.nom = nom;
         this.jeu = jeu;
         this.couleur = couleur;
-        this.ports = new ArrayList<>();
-        this.routes = new ArrayList<>();
+        Plateau plateau = jeu.getPlateau();
+        this.ports = new EnsembleIndexe<>(plateau.getPorts(), plateau::indicePort, false);
+        this.ensembleRoutes = new EnsembleIndexe<>(plateau.getRoutes(), plateau::indiceRoute, false);
+        this.routes = ensembleRoutes;
+        this.connexions = new Connexions(plateau);
         this.nbPionsWagon = 0;
         this.nbPionsWagonEnReserve = 25;
         this.nbPionsBateau = 0;
         this.nbPionsBateauEnReserve = 50;
-        this.cartesTransport = new ArrayList<>();
+        this.cartesTransport = new MainCartes();
         this.cartesTransportPosees = new ArrayList<>();
         this.destinations = new ArrayList<>();
         this.score = 0;
@@ -120,6 +137,117 @@ public class Joueur {
         this.nbPionsBateauEnReserve = nbPionsBateauEnReserve;
     }
 
+    int getScore() {
+        return score;
+    }
+
+    List<Route> getRoutes() {
+        return routes;
+    }
+
+    List<Ville> getPorts() {
+        return ports;
+    }
+
+    List<Destination> getDestinations() {
+        return destinations;
+    }
+
+    /**
+     * @return une copie du bitset des routes du joueur (indexé par Route.getIndice())
+     */
+    long[] getMasqueRoutes() {
+        return ensembleRoutes.getMots();
+    }
+
+    /**
+     * @return le plateau de la partie du joueur (celui qui indexe ses routes et ses ports)
+     */
+    Plateau getPlateau() {
+        return jeu.getPlateau();
+    }
+
+    List<CarteTransport> getCartesTransportPosees() {
+        return cartesTransportPosees;
+    }
+
+    /**
+     * Déplace une carte de la main du joueur vers ses cartes posées (paiement en cours)
+     */
+    void poserCarteTransport(CarteTransport carte) {
+        cartesTransport.remove(carte);
+        cartesTransportPosees.add(carte);
+    }
+
+    /**
+     * Défausse les cartes posées (les jokers et cartes wagon dans la défausse wagon, les cartes bateau dans la
+     * défausse bateau)
+     */
+    void defausserCartesTransportPosees() {
+        for (CarteTransport carte : cartesTransportPosees) {
+            if (carte.getType() == TypeCarteTransport.BATEAU) {
+                jeu.defausserCarteBateau(carte);
+            } else {
+                jeu.defausserCarteWagon(carte);
+            }
+        }
+        cartesTransportPosees.clear();
+    }
+
+    /**
+     * Ajoute une route aux routes du joueur, en utilisant les pions correspondants et en marquant les points de
+     * la route (le paiement en cartes est géré séparément)
+     */
+    void capturerRoute(Route route) {
+        if (route instanceof RouteMaritime) {
+            nbPionsBateau -= route.getLongueur();
+        } else {
+            nbPionsWagon -= route.getLongueur();
+        }
+        score += route.getScore();
+        routes.add(route);
+    }
+
+    void construirePort(Ville ville) {
+        ports.add(ville);
+    }
+
+    /**
+     * @return le nombre maximal de pions wagon que le joueur peut prendre en échange de pions bateau
+     */
+    int getNbPionsWagonEchangeables() {
+        return Math.min(nbPionsWagonEnReserve, nbPionsBateau);
+    }
+
+    /**
+     * @return le nombre maximal de pions bateau que le joueur peut prendre en échange de pions wagon
+     */
+    int getNbPionsBateauEchangeables() {
+        return Math.min(nbPionsBateauEnReserve, nbPionsWagon);
+    }
+
+    /**
+     * Prend n pions wagon dans la réserve et remet n pions bateau dans la réserve (le joueur perd n points)
+     */
+    void echangerPionsWagon(int n) {
+        nbPionsWagon += n;
+        nbPionsWagonEnReserve -= n;
+        nbPionsBateau -= n;
+        nbPionsBateauEnReserve += n;
+        score -= n;
+    }
+
+    /**
+     * Prend n pions bateau dans la réserve et remet n pions wagon dans la réserve (le joueur perd n points)
+     */
+    void echangerPionsBateau(int n) {
+        nbPionsBateau += n;
+        nbPionsBateauEnReserve -= n;
+        nbPionsWagon -= n;
+        nbPionsWagonEnReserve += n;
+        score -= n;
+    }
+
     public void enleverDestination(Destination destination) {
         this.destinations.remove(destination);
     }
@@ -371,8 +499,9 @@ public class Joueur {
         while (true) {
             jeu.prompt(instruction, boutons, peutPasser);
             entree = jeu.lireLigne();
-            // si une réponse valide est obtenue, elle est renvoyée
+            // si une réponse valide est obtenue, elle est journalisée (voir Journal) et renvoyée
             if (choixDistincts.contains(entree)) {
+                jeu.getJournal().ajouter(entree);
                 return entree;
             }
         }
@@ -413,6 +542,7 @@ public class Joueur {
             try {
                 int choix = Integer.parseInt(entree);
                 if (choix >= min && choix <= max) {
+                    jeu.getJournal().ajouter(entree);
                     return choix;
                 } else {
                     log(String.format("Veuillez entrer un nombre entre %d et %d", min, max));
@@ -457,52 +587,33 @@ public class Joueur {
         return String.format("<span class=\"joueur\">%s</span>", nom);
     }
 
+    /**
+     * @return true si toutes les villes de la destination (ou de l'itinéraire) sont reliées entre elles par les
+     * routes du joueur
+     */
     boolean destinationEstComplete(Destination d) {
-        // Cette méthode pour l'instant renvoie false pour que le jeu puisse s'exécuter.
-        // À vous de modifier le corps de cette fonction pour qu'elle retourne la valeur attendue.
-        for(Route route: jeu.getRoutesLibres()){
-            if (d.equals(jeu.getRoutesLibres())){
-                return true;
-            }
-        }
-        return false;
+        connexions.mettreAJour(ensembleRoutes.getMots());
+        return connexions.sontReliees(d.getVilles());
+    }
+
+    /**
+     * @return true si les deux villes sont reliées par les routes du joueur
+     */
+    boolean sontReliees(Ville ville1, Ville ville2) {
+        connexions.mettreAJour(ensembleRoutes.getMots());
+        return connexions.sontReliees(ville1, ville2);
     }
 
+    /**
+     * @return le score de fin de partie du joueur (voir Decompte), sans le bonus des itinéraires réalisés dans
+     * l'ordre : un itinéraire réalisé rapporte sa valeur simple
+     */
     public int calculerScoreFinal() {
-        int lg= Joueur.this.routes.size();
-        if (lg==1){
-            return this.score= score +1;
-        }
-        else if (lg==2) {
-            return this.score= score +2;
-        }
-        else if (lg==3) {
-            return this.score= score +4;
-        }
-        else if (lg==4) {
-            return this.score= score +7;
-        }
-        else if (lg==5) {
-            return this.score= score +10;
-        }
-        else if (lg==6) {
-            return this.score= score +15;
-        }
-        else if (lg==7) {
-            return this.score= score +18;
-        }
-        else if (lg==8) {
-            return this.score= score +21;
-        }
-        return this.score;
+        return Decompte.scoreFinal(this, false);
     }
+
     public boolean possedeRouteVille(Ville ville){
-        for (Route r: this.routes) {
-            if(r.getVille1().equals(ville) || r.getVille2().equals(ville)){
-                return true;
-            }
-        }
-        return false;
+        return ensembleRoutes.intersecte(jeu.getPlateau().getMasqueRoutesVille(ville));
     }
 
 
@@ -525,12 +636,10 @@ public class Joueur {
         this.cartesTransport.add(carteChosi);
 
         if(carteChosi.getType().equals(TypeCarteTransport.JOKER)){
-            jeu.enleverCarteVisible(carteChosi);
-            remplacerCarte();
+            remplacerCarte(jeu.enleverCarteVisible(carteChosi));
         }
         else{
-            jeu.enleverCarteVisible(carteChosi);
-            remplacerCarte();
+            remplacerCarte(jeu.enleverCarteVisible(carteChosi));
             piocherDeuxiemeChoix(false);
 
         }
@@ -558,8 +667,7 @@ public class Joueur {
                 for (CarteTransport c: jeu.getCartesTransportVisibles()) {
                     if (c.getNom().equals(choix)) {
                         this.cartesTransport.add(c);
-                        jeu.enleverCarteVisible(c);
-                        remplacerCarte();
+                        remplacerCarte(jeu.enleverCarteVisible(c));
                         break;
                     }
                 }
@@ -587,8 +695,7 @@ public class Joueur {
                 for (CarteTransport c: jeu.getCartesTransportVisibles()) {
                     if (c.getNom().equals(choix)) {
                         this.cartesTransport.add(c);
-                        jeu.enleverCarteVisible(c);
-                        remplacerCarte();
+                        remplacerCarte(jeu.enleverCarteVisible(c));
                         break;
                     }
                 }
@@ -597,7 +704,10 @@ public class Joueur {
         }
     }
 
-    public void remplacerCarte(){
+    /**
+     * Demande au joueur la pioche (bateau ou wagon) dont une carte est retournée sur l'emplacement vide donné
+     */
+    public void remplacerCarte(int emplacement){
         List<String> BateauOuWagon = new ArrayList<>();
         if(!jeu.piocheBateauEstVide()){
             BateauOuWagon.add("BATEAU");
@@ -605,16 +715,12 @@ public class Joueur {
         if(!jeu.piocheWagonEstVide()){
             BateauOuWagon.add("WAGON");
         }
-        if(BateauOuWagon.isEmpty()){
+        if(emplacement < 0 || BateauOuWagon.isEmpty()){
             return;
         }
 
         String choixRemplacement = choisir("Par quelle carte voulez vous remplacer la carte manquante  ?", BateauOuWagon, null, false);
-        if (choixRemplacement.equals("BATEAU")) {
-            jeu.remplacerCarteVisible(choixRemplacement);
-        } else {
-            jeu.remplacerCarteVisible(choixRemplacement);
-        }
+        jeu.remplacerCarteVisible(emplacement, choixRemplacement);
     }
     /**************************************************************************
      *  Gestion des ports
@@ -760,7 +866,7 @@ public class Joueur {
     }
     public boolean peutPayerPort(){
         int sommeCouleur;
-        List<CarteTransport> liste = new ArrayList<>(this.cartesTransport);
+        List<CarteTransport> liste = this.cartesTransport;
         List<Couleur> ListeCouleur = new ArrayList<Couleur>(EnumSet.allOf(Couleur.class));
         for (Couleur c: ListeCouleur) {
             sommeCouleur = nombreCouleurWagonJoueur(liste,c)+nombreCouleurBateauJoueur(liste,c)+nombreJoker(liste);
@@ -810,7 +916,9 @@ public class Joueur {
     }
 
     public int nombreCouleurWagonJoueur(List<CarteTransport> cartesTransport,Couleur couleur){
-
+        if (cartesTransport instanceof MainCartes main) {
+            return main.nombre(couleur);
+        }
         int nombreCouleurWagonJoueur = 0;
         List<CarteTransport> listeCartesWagon = new ArrayList<>();
         for (CarteTransport c: cartesTransport) {
@@ -843,6 +951,9 @@ public class Joueur {
     }
 
     public int nombreCouleurBateauJoueur(List<CarteTransport> cartesTransport,Couleur couleur){
+        if (cartesTransport instanceof MainCartes main) {
+            return main.nombre(couleur);
+        }
         List<CarteTransport> listeCartesBateau = new ArrayList<>();
         int nombreCouleurBateauJoueur = 0;
         for (CarteTransport c: cartesTransport) {
@@ -876,6 +987,9 @@ public class Joueur {
     }
 
     public int nombreJoker(List<CarteTransport> cartesTransport){
+        if (cartesTransport instanceof MainCartes main) {
+            return main.nombre(TypeCarteTransport.JOKER);
+        }
         List<CarteTransport> listeCartesJoker = new ArrayList<>();
         for (CarteTransport c: cartesTransport) {
             if(c.getType().equals(TypeCarteTransport.JOKER)){
@@ -904,17 +1018,14 @@ public class Joueur {
         }*/
 
     public int nombreCouleurBateauJoueurAvecDoubles(Couleur couleur){
-        int nb=0;
-        for (CarteTransport c: this.cartesTransport) {
-            if(c.getType().equals(TypeCarteTransport.BATEAU)){
-                if(c.getCouleur().equals(couleur)){
-                    if(c.estDouble()){
-                        nb+=2;
-                    }
-                    else{
-                        nb++;
-                    }
-                }
+        if (cartesTransport instanceof MainCartes main) {
+            return main.nombre(TypeCarteTransport.BATEAU, couleur, false)
+                    + 2 * main.nombre(TypeCarteTransport.BATEAU, couleur, true);
+        }
+        int nb = 0;
+        for (CarteTransport c : cartesTransport) {
+            if (c.getType().equals(TypeCarteTransport.BATEAU) && c.getCouleur().equals(couleur)) {
+                nb += c.estDouble() ? 2 : 1;
             }
         }
         return nb;
@@ -928,7 +1039,7 @@ public class Joueur {
     }
 
     public void prendreRouteTerrestre(Route route){
-        List<CarteTransport> copieCarteTransport= new ArrayList<>(this.cartesTransport);
+        List<CarteTransport> copieCarteTransport= new MainCartes(this.cartesTransport);
 
         int prix = route.getLongueur();
         List<String> cartesPourPayerString=recupererNomCartesTransport(this.cartesTransport);
@@ -979,7 +1090,7 @@ public class Joueur {
     }
 
     public void prendreRouteMaritime(Route route){
-        List<CarteTransport> copieCarteTransport= new ArrayList<>(this.cartesTransport);
+        List<CarteTransport> copieCarteTransport= new MainCartes(this.cartesTransport);
         List<CarteTransport> CarteTransportDefausse= new ArrayList<>();
         int prix = route.getLongueur();
         List<String> cartesPourPayerString=recupererNomCartesTransport(this.cartesTransport);
@@ -1053,7 +1164,7 @@ public class Joueur {
 
 
             List<Couleur> ListeBonneCouleur = peutPayerWagonGrisAvecQuellesCouleurs(this.cartesTransport, route.getLongueur());
-            List<CarteTransport> copieCarteTransport = new ArrayList<>(this.cartesTransport);
+            List<CarteTransport> copieCarteTransport = new MainCartes(this.cartesTransport);
             Couleur couleurFinal=null;
             int prix = route.getLongueur();
             List<String> cartesPourPayerString = recupererNomCartesTransport(this.cartesTransport);
@@ -1129,7 +1240,7 @@ public class Joueur {
         if (!listeCouleur().isEmpty()) {
             List<Couleur> ListeBonneCouleur = peutPayerBateauGrisAvecQuellesCouleurs(this.cartesTransport, route.getLongueur());
             List<CarteTransport> CarteTransportDefausse= new ArrayList<>();
-            List<CarteTransport> copieCarteTransport = new ArrayList<>(this.cartesTransport);
+            List<CarteTransport> copieCarteTransport = new MainCartes(this.cartesTransport);
             Couleur couleurFinal = null;
             int prix = route.getLongueur();
             List<String> cartesPourPayerString = recupererNomCartesTransport(this.cartesTransport);
@@ -1299,6 +1410,9 @@ public class Joueur {
 
 
     public int combienDeBateauSimpleRestant(List<CarteTransport> list, Couleur couleur) {
+        if (list instanceof MainCartes main) {
+            return main.nombre(TypeCarteTransport.BATEAU, couleur, false);
+        }
         int nb = 0;
         for (CarteTransport c : list) {
             if (c.getType().equals(TypeCarteTransport.BATEAU)) {
@@ -1313,6 +1427,9 @@ public class Joueur {
     }
 
     public int combienDeBateauDoubleRestant(List<CarteTransport> list, Couleur couleur) {
+        if (list instanceof MainCartes main) {
+            return main.nombre(TypeCarteTransport.BATEAU, couleur, true);
+        }
         int nb = 0;
         for (CarteTransport c : list) {
             if (c.getType().equals(TypeCarteTransport.BATEAU)) {
@@ -1328,20 +1445,17 @@ public class Joueur {
 
     public int compteurDeCarteWagonDeCouleurPlusJoker(Couleur c, List<CarteTransport> listCartes){
         int cpt=0;
-        for(CarteTransport carte : listCartes){
-            if(carte.getType().equals(TypeCarteTransport.WAGON)){
-                if(carte.getCouleur().equals(c)){
+        if (listCartes instanceof MainCartes main) {
+            cpt = main.nombre(TypeCarteTransport.WAGON, c);
+        } else {
+            for (CarteTransport carte : listCartes) {
+                if (carte.getType().equals(TypeCarteTransport.WAGON) && carte.getCouleur().equals(c)) {
                     cpt++;
                 }
             }
         }
-        for(CarteTransport carte : this.cartesTransport) {
-            if (carte.getType().equals(TypeCarteTransport.JOKER)) {
-                cpt++;
-            }
-        }
-        return cpt;
-
+        // les jokers sont comptés dans la main du joueur
+        return cpt + nombreJoker(this.cartesTransport);
     }
 
     public boolean peutPayerRoutePaire(Route route){
@@ -1372,258 +1486,27 @@ public class Joueur {
         return false;
     }
 
+    /**
+     * Le joueur paye la route paire carte par carte : une carte est refusée si elle ne permet pas de terminer un
+     * paiement valide avec le reste de la main (voir ReglesPaiement), ce qui garantit que le paiement se termine.
+     */
     public void PrendreRoutePaire(Route route){
-        List<CarteTransport> copieCarteTransport= new ArrayList<>(this.cartesTransport);
-        List<CarteTransport> copieCarteTransportMaisComplete= new ArrayList<>(this.cartesTransport);
-        List<List<CarteTransport>> ListeDeListeDeCarteTransport = new ArrayList<>();
-        int prix = route.getLongueur()*2;
-        int prixBase = route.getLongueur();
-        int PaireRouge=0;
-        int PaireVert=0;
-        int PaireJaune=0;
-        int PaireViolette=0;
-        int PaireNoire=0;
-        int PaireBlanche=0;
-
-
-        int NbPaireCommence=0;
-        Couleur CouleurBesoinJoker = null;
-        while (CouleurBesoinJoker==null) {
-            for (Couleur c : Couleur.values()) {
-                if (compteurDeCarteWagonDeCouleurPlusJoker(c, copieCarteTransport) == 2) {
-                    CouleurBesoinJoker = c;
-
-                }
-            }
+        if (!ReglesPaiement.peutPayerRoute(route, this.cartesTransport)) {
+            return;
         }
-
-        List<String> cartesPourPayerString=recupererNomCartesTransport(this.cartesTransport);
-        while (prix>0) {
-            String choix = choisir("Veuillez Payer pour la route", cartesPourPayerString, null, false);
-            for (CarteTransport c : copieCarteTransport) {
+        List<CarteTransport> cartesPosees = new ArrayList<>();
+        while (!ReglesPaiement.estPaiementRouteComplet(route, cartesPosees)) {
+            String choix = choisir("Veuillez Payer pour la route", recupererNomCartesTransport(this.cartesTransport), null, false);
+            for (CarteTransport c : this.cartesTransport) {
                 if (c.getNom().equals(choix)) {
-                    if (c.getType().equals(TypeCarteTransport.WAGON)) {
-                        if (compteurDeCarteWagonDeCouleurPlusJoker(c.getCouleur(),copieCarteTransportMaisComplete) >= 2) {
-                            if(c.getCouleur().equals(Couleur.ROUGE) && (NbPaireCommence < prixBase || PaireRouge==1)){
-                                if(PaireRouge==0){
-                                    NbPaireCommence++;
-                                    prix--;
-                                    PaireRouge++;
-                                    this.cartesTransport.remove(c);
-                                    jeu.defausserCarteWagon(c);
-                                    copieCarteTransport.remove(c);
-                                    break;
-                                }
-                                if(PaireRouge==1){
-                                    prix--;
-                                    PaireRouge=0;
-                                    this.cartesTransport.remove(c);
-                                    jeu.defausserCarteWagon(c);
-                                    copieCarteTransport.remove(c);
-                                    break;
-                                }
-                            }
-                            else if(c.getCouleur().equals(Couleur.VERT) && (NbPaireCommence < prixBase || PaireVert==1)){
-                                if(PaireVert==0){
-                                    NbPaireCommence++;
-                                    prix--;
-                                    PaireVert++;
-                                    this.cartesTransport.remove(c);
-                                    jeu.defausserCarteWagon(c);
-                                    copieCarteTransport.remove(c);
-                                    break;
-                                }
-                                if(PaireVert==1){
-                                    prix--;
-                                    PaireVert=0;
-                                    this.cartesTransport.remove(c);
-                                    jeu.defausserCarteWagon(c);
-                                    copieCarteTransport.remove(c);
-                                    break;
-                                }
-
-                            }
-                            else if(c.getCouleur().equals(Couleur.JAUNE) && (NbPaireCommence < prixBase || PaireJaune==1)){
-                                if(PaireJaune==0){
-                                    NbPaireCommence++;
-                                    prix--;
-                                    PaireJaune++;
-                                    this.cartesTransport.remove(c);
-                                    jeu.defausserCarteWagon(c);
-                                    copieCarteTransport.remove(c);
-                                    break;
-                                }
-                                if(PaireJaune==1){
-                                    prix--;
-                                    PaireJaune=0;
-                                    this.cartesTransport.remove(c);
-                                    jeu.defausserCarteWagon(c);
-                                    copieCarteTransport.remove(c);
-                                    break;
-                                }
-                            }
-                            else if(c.getCouleur().equals(Couleur.VIOLET) && (NbPaireCommence < prixBase || PaireViolette==1)){
-                                if(PaireViolette==0){
-                                    NbPaireCommence++;
-                                    prix--;
-                                    PaireViolette++;
-                                    this.cartesTransport.remove(c);
-                                    jeu.defausserCarteWagon(c);
-                                    copieCarteTransport.remove(c);
-                                    break;
-                                }
-                                if(PaireViolette==1){
-                                    prix--;
-                                    PaireViolette=0;
-                                    this.cartesTransport.remove(c);
-                                    jeu.defausserCarteWagon(c);
-                                    copieCarteTransport.remove(c);
-                                    break;
-                                }
-                            }
-                            else if(c.getCouleur().equals(Couleur.NOIR) && (NbPaireCommence < prixBase || PaireNoire==1)){
-                                if(PaireNoire==0){
-                                    NbPaireCommence++;
-                                    prix--;
-                                    PaireNoire++;
-                                    this.cartesTransport.remove(c);
-                                    jeu.defausserCarteWagon(c);
-                                    copieCarteTransport.remove(c);
-                                    break;
-                                }
-                                if(PaireNoire==1){
-                                    prix--;
-                                    PaireNoire=0;
-                                    this.cartesTransport.remove(c);
-                                    jeu.defausserCarteWagon(c);
-                                    copieCarteTransport.remove(c);
-                                    break;
-                                }
-                            }
-                            else if(c.getCouleur().equals(Couleur.BLANC) && (NbPaireCommence < prixBase || PaireBlanche==1)){
-                                if(PaireBlanche==0){
-                                    NbPaireCommence++;
-                                    prix--;
-                                    PaireBlanche++;
-                                    this.cartesTransport.remove(c);
-                                    jeu.defausserCarteWagon(c);
-                                    copieCarteTransport.remove(c);
-                                    break;
-                                }
-                                if(PaireBlanche==1){
-                                    prix--;
-                                    PaireBlanche=0;
-                                    this.cartesTransport.remove(c);
-                                    jeu.defausserCarteWagon(c);
-                                    copieCarteTransport.remove(c);
-                                    break;
-                                }
-                            }
-                        } else {
-                            copieCarteTransport.remove(c);
-                            break;
-                        }
-                    }
-                    else if (c.getType().equals(TypeCarteTransport.JOKER) && CouleurBesoinJoker.equals(Couleur.ROUGE)) {
-                        prix--;
-                        if(PaireRouge==0){
-                            PaireRouge++;
-                            NbPaireCommence++;
-                        }
-                        if(PaireRouge==1){
-                            PaireRouge=0;
-                        }
-                        this.cartesTransport.remove(c);
-                        jeu.defausserCarteWagon(c);
-                        copieCarteTransport.remove(c);
-                        break;
-                    }
-                    else if (c.getType().equals(TypeCarteTransport.JOKER) && CouleurBesoinJoker.equals(Couleur.BLANC)) {
-                        prix--;
-                        if(PaireBlanche==0){
-                            PaireBlanche++;
-                            NbPaireCommence++;
-                        }
-                        if(PaireBlanche==1){
-                            PaireBlanche=0;
-                        }
-                        this.cartesTransport.remove(c);
-                        jeu.defausserCarteWagon(c);
-                        copieCarteTransport.remove(c);
-                        break;
-                    }
-                    else if (c.getType().equals(TypeCarteTransport.JOKER) && CouleurBesoinJoker.equals(Couleur.NOIR)) {
-                        prix--;
-                        if(PaireNoire==0){
-                            PaireNoire++;
-                            NbPaireCommence++;
-                        }
-                        if(PaireNoire==1){
-                            PaireNoire=0;
-                        }
+                    if (ReglesPaiement.peutAjouterCarteRoute(route, cartesPosees, this.cartesTransport, c)) {
+                        cartesPosees.add(c);
                         this.cartesTransport.remove(c);
                         jeu.defausserCarteWagon(c);
-                        copieCarteTransport.remove(c);
-                        break;
-                    }
-                    else if (c.getType().equals(TypeCarteTransport.JOKER) && CouleurBesoinJoker.equals(Couleur.VIOLET)) {
-                        prix--;
-                        if(PaireViolette==0){
-                            PaireViolette++;
-                            NbPaireCommence++;
-                        }
-                        if(PaireViolette==1){
-                            PaireViolette=0;
-                        }
-                        this.cartesTransport.remove(c);
-                        jeu.defausserCarteWagon(c);
-                        copieCarteTransport.remove(c);
-                        break;
-                    }
-                    else if (c.getType().equals(TypeCarteTransport.JOKER) && CouleurBesoinJoker.equals(Couleur.JAUNE)) {
-                        prix--;
-                        if(PaireJaune==0){
-                            PaireJaune++;
-                            NbPaireCommence++;
-                        }
-                        if(PaireJaune==1){
-                            PaireJaune=0;
-                        }
-                        this.cartesTransport.remove(c);
-                        jeu.defausserCarteWagon(c);
-                        copieCarteTransport.remove(c);
-                        break;
-                    }
-                    else if (c.getType().equals(TypeCarteTransport.JOKER) && CouleurBesoinJoker.equals(Couleur.VERT)) {
-                        prix--;
-                        if(PaireVert==0){
-                            PaireVert++;
-                            NbPaireCommence++;
-                        }
-                        if(PaireVert==1){
-                            PaireVert=0;
-                        }
-                        this.cartesTransport.remove(c);
-                        jeu.defausserCarteWagon(c);
-                        copieCarteTransport.remove(c);
-                        break;
-                    }
-                    else if (c.getType().equals(TypeCarteTransport.JOKER) && CouleurBesoinJoker.equals(null)) {
-                        prix--;
-                        this.cartesTransport.remove(c);
-                        jeu.defausserCarteWagon(c);
-                        copieCarteTransport.remove(c);
-                        break;
-                    }
-
-                    else {
-                        copieCarteTransport.remove(c);
-                        break;
                     }
+                    break;
                 }
-
             }
-
         }
         this.nbPionsWagon-=route.getLongueur();
         this.score+=route.getScore();
@@ -1674,4 +1557,34 @@ public class Joueur {
                 Map.entry("ports", ports.stream().map(Ville::nom).toList()),
                 Map.entry("routes", routes.stream().map(Route::getNom).toList()));
     }
+
+    private static final String[] CLES_ETAT = {"nom", "couleur", "score", "pionsWagon", "pionsWagonReserve",
+            "pionsBateau", "pionsBateauReserve", "destinationsIncompletes", "destinationsCompletes", "main", "inPlay",
+            "ports", "routes"};
+
+    /**
+     * Renvoie un instantané du joueur avec les mêmes clés que dataMap() (voir Jeu.etatJson())
+     */
+    ObjetJson etatJson() {
+        List<Destination> incompletes = new ArrayList<>();
+        List<Destination> completes = new ArrayList<>();
+        for (Destination d : destinations) {
+            (destinationEstComplete(d) ? completes : incompletes).add(d);
+        }
+        CarteTransport[] main = cartesTransport.toArray(new CarteTransport[0]);
+        Arrays.sort(main);
+        CarteTransport[] enJeu = cartesTransportPosees.toArray(new CarteTransport[0]);
+        Arrays.sort(enJeu);
+        Object[] nomsPorts = new Object[ports.size()];
+        for (int i = 0; i < nomsPorts.length; i++) {
+            nomsPorts[i] = ports.get(i).nom();
+        }
+        Object[] nomsRoutes = new Object[routes.size()];
+        for (int i = 0; i < nomsRoutes.length; i++) {
+            nomsRoutes[i] = routes.get(i).getNom();
+        }
+        return new ObjetJson(CLES_ETAT, nom, couleur, score, nbPionsWagon, nbPionsWagonEnReserve, nbPionsBateau,
+                nbPionsBateauEnReserve, incompletes.toArray(), completes.toArray(), main, enJeu, nomsPorts,
+                nomsRoutes);
+    }
 }
@@ -0,0 +1,208 @@
+package fr.umontpellier.iut.rails;
+
+import fr.umontpellier.iut.rails.data.CarteTransport;
+import fr.umontpellier.iut.rails.data.Destination;
+import fr.umontpellier.iut.rails.data.TypeCarteTransport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Journal d'une partie : la graine et les noms des joueurs, suivis de chaque instruction ou action acceptée, dans
+ * l'ordre, que la partie soit jouée par un MoteurPartie ou par la boucle bloquante de Jeu.run() (les réponses
+ * validées par Joueur.choisir() et Joueur.choisirNombre()). Avec le générateur aléatoire de la partie, c'est tout
+ * ce qu'il faut pour la rejouer à l'identique (voir Rejoueur).
+ *
+ * Une entrée est soit une instruction textuelle (MoteurPartie.traiter()), soit une action typée
+ * (MoteurPartie.appliquer()) codée par "#" suivi de sa sorte et de ses paramètres séparés par des tabulations, par
+ * exemple "#route\tR104\tC143\tC144\tC146". Les cartes, routes et destinations y sont désignées par leur nom,
+ * qui ne dépend que de la partie (voir Identifiants).
+ */
+public final class Journal {
+    private static final char SEPARATEUR = '\t';
+
+    private final long graine;
+    private final String[] nomJoueurs;
+    private final List<String> entrees;
+
+    public Journal(long graine, String[] nomJoueurs) {
+        this.graine = graine;
+        this.nomJoueurs = nomJoueurs.clone();
+        this.entrees = new ArrayList<>();
+    }
+
+    public long getGraine() {
+        return graine;
+    }
+
+    public String[] getNomJoueurs() {
+        return nomJoueurs.clone();
+    }
+
+    /**
+     * @return une copie des entrées du journal
+     */
+    public synchronized List<String> getEntrees() {
+        return new ArrayList<>(entrees);
+    }
+
+    public synchronized int taille() {
+        return entrees.size();
+    }
+
+    synchronized void ajouter(String entree) {
+        entrees.add(entree);
+    }
+
+    /**
+     * Renvoie le journal sous forme de texte : une première ligne avec la graine et les noms des joueurs (séparés
+     * par des tabulations), puis une ligne par entrée
+     */
+    public synchronized String exporter() {
+        StringBuilder texte = new StringBuilder();
+        texte.append(graine);
+        for (String nom : nomJoueurs) {
+            texte.append(SEPARATEUR).append(nom);
+        }
+        for (String entree : entrees) {
+            texte.append('\n').append(entree);
+        }
+        return texte.append('\n').toString();
+    }
+
+    /**
+     * Relit un journal écrit par exporter()
+     *
+     * @throws IllegalArgumentException si l'en-tête du journal n'est pas valide
+     */
+    public static Journal importer(String texte) {
+        List<String> lignes = texte.lines().toList();
+        if (lignes.isEmpty()) {
+            throw new IllegalArgumentException("Journal vide");
+        }
+        String[] entete = lignes.get(0).split(String.valueOf(SEPARATEUR), -1);
+        Journal journal;
+        try {
+            journal = new Journal(Long.parseLong(entete[0]), Arrays.copyOfRange(entete, 1, entete.length));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Graine invalide : " + entete[0], e);
+        }
+        journal.entrees.addAll(lignes.subList(1, lignes.size()));
+        return journal;
+    }
+
+    /**
+     * @return true si l'entrée est une action typée (sinon c'est une instruction textuelle)
+     */
+    static boolean estAction(String entree) {
+        return entree.startsWith("#");
+    }
+
+    /**
+     * Code une action acceptée par le moteur
+     */
+    static String coder(Action action) {
+        List<String> champs = new ArrayList<>();
+        if (action instanceof Action.ChoisirPionsWagon choix) {
+            Collections.addAll(champs, "#pions", String.valueOf(choix.nombre()));
+        } else if (action instanceof Action.GarderDestinations choix) {
+            champs.add("#garder");
+            for (Destination destination : choix.destinations()) {
+                champs.add(destination.getNom());
+            }
+        } else if (action instanceof Action.PiocherCarte pioche) {
+            Collections.addAll(champs, "#piocher", pioche.pioche().name());
+        } else if (action instanceof Action.PrendreCarteVisible prise) {
+            Collections.addAll(champs, "#visible", String.valueOf(prise.emplacement()));
+        } else if (action instanceof Action.PiocherDestinations) {
+            champs.add("#destinations");
+        } else if (action instanceof Action.EchangerPions echange) {
+            Collections.addAll(champs, "#echanger", echange.wagons() ? "WAGON" : "BATEAU",
+                    String.valueOf(echange.nombre()));
+        } else if (action instanceof Action.PrendreRoute prise) {
+            Collections.addAll(champs, "#route", prise.route().getNom());
+            ajouterCartes(champs, prise.paiement());
+        } else if (action instanceof Action.ConstruirePort construction) {
+            Collections.addAll(champs, "#port", construction.ville().nom());
+            ajouterCartes(champs, construction.paiement());
+        } else if (action instanceof Action.PoserCarte pose) {
+            Collections.addAll(champs, "#poser", pose.carte().getNom());
+        } else if (action instanceof Action.Passer) {
+            champs.add("#passer");
+        }
+        return String.join(String.valueOf(SEPARATEUR), champs);
+    }
+
+    private static void ajouterCartes(List<String> champs, List<CarteTransport> cartes) {
+        for (CarteTransport carte : cartes) {
+            champs.add(carte.getNom());
+        }
+    }
+
+    /**
+     * Décode une action typée dans l'état courant du moteur. Les objets désignés par l'action (cartes de la main
+     * du joueur courant, destinations proposées, route ou port libre) sont cherchés dans la partie du moteur : un
+     * objet introuvable est remplacé par null, et l'action sera refusée par le moteur.
+     *
+     * @return l'action décodée, ou null si la sorte d'action est inconnue
+     */
+    static Action decoder(String entree, MoteurPartie moteur) {
+        Jeu jeu = moteur.getJeu();
+        String[] champs = entree.split(String.valueOf(SEPARATEUR), -1);
+        try {
+            return switch (champs[0]) {
+                case "#pions" -> new Action.ChoisirPionsWagon(Integer.parseInt(champs[1]));
+                case "#garder" -> {
+                    List<Destination> gardees = new ArrayList<>();
+                    for (int i = 1; i < champs.length; i++) {
+                        gardees.add(trouverDestination(moteur.getDestinationsProposees(), champs[i]));
+                    }
+                    yield new Action.GarderDestinations(gardees);
+                }
+                case "#piocher" -> new Action.PiocherCarte(TypeCarteTransport.valueOf(champs[1]));
+                case "#visible" -> new Action.PrendreCarteVisible(Integer.parseInt(champs[1]));
+                case "#destinations" -> new Action.PiocherDestinations();
+                case "#echanger" -> new Action.EchangerPions(champs[1].equals("WAGON"), Integer.parseInt(champs[2]));
+                case "#route" -> new Action.PrendreRoute(jeu.getRouteLibre(champs[1]),
+                        trouverCartes(champs, jeu));
+                case "#port" -> new Action.ConstruirePort(jeu.getPortLibre(champs[1]), trouverCartes(champs, jeu));
+                case "#poser" -> new Action.PoserCarte(trouverCarte(jeu, champs[1]));
+                case "#passer" -> new Action.Passer();
+                default -> null;
+            };
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private static Destination trouverDestination(List<Destination> destinations, String nom) {
+        for (Destination destination : destinations) {
+            if (destination.getNom().equals(nom)) {
+                return destination;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return les cartes de la main du joueur courant désignées par les champs à partir du troisième
+     */
+    private static List<CarteTransport> trouverCartes(String[] champs, Jeu jeu) {
+        List<CarteTransport> cartes = new ArrayList<>();
+        for (int i = 2; i < champs.length; i++) {
+            cartes.add(trouverCarte(jeu, champs[i]));
+        }
+        return cartes;
+    }
+
+    private static CarteTransport trouverCarte(Jeu jeu, String nom) {
+        for (CarteTransport carte : jeu.getJoueurCourant().getCartesTransport()) {
+            if (carte.getNom().equals(nom)) {
+                return carte;
+            }
+        }
+        return null;
+    }
+}
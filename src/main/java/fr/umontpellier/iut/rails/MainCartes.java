@@ -0,0 +1,134 @@
+package fr.umontpellier.iut.rails;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+import fr.umontpellier.iut.rails.data.CarteTransport;
+import fr.umontpellier.iut.rails.data.Couleur;
+import fr.umontpellier.iut.rails.data.SorteCarte;
+import fr.umontpellier.iut.rails.data.TypeCarteTransport;
+
+/**
+ * Cartes transport en main d'un joueur : liste de cartes (dans l'ordre où elles ont été reçues) tenue à jour avec
+ * le nombre de cartes de chaque sorte (type, couleur, double ou non, ancre ou non).
+ *
+ * Toutes les modifications de la liste (ajout, retrait, remplacement, y compris par un itérateur ou une sous-liste)
+ * passent par add(int, E), remove(int) et set(), qui mettent les nombres à jour : les questions du type "combien de
+ * cartes bateau rouges doubles" se font en temps constant, sans parcourir la main.
+ */
+final class MainCartes extends AbstractList<CarteTransport> implements RandomAccess {
+    private static final int NB_TYPES = TypeCarteTransport.values().length;
+    private static final int NB_COULEURS = Couleur.values().length;
+
+    private final ArrayList<CarteTransport> cartes;
+    /**
+     * Nombre de cartes de chaque sorte, à l'indice de la sorte (voir SorteCarte)
+     */
+    private final int[] nombres = new int[SorteCarte.NB_SORTES];
+    /**
+     * Nombre de cartes de chaque type et de chaque couleur (tous types confondus)
+     */
+    private final int[] nombresParType = new int[NB_TYPES];
+    private final int[] nombresParCouleur = new int[NB_COULEURS];
+
+    MainCartes() {
+        cartes = new ArrayList<>();
+    }
+
+    MainCartes(Collection<CarteTransport> cartes) {
+        this.cartes = new ArrayList<>(cartes.size());
+        addAll(cartes);
+    }
+
+    private static int sorte(TypeCarteTransport type, Couleur couleur, boolean estDouble, boolean ancre) {
+        return SorteCarte.indice(type, couleur, estDouble, ancre);
+    }
+
+    private void compter(CarteTransport carte, int n) {
+        nombres[carte.getSorte().indice()] += n;
+        nombresParType[carte.getType().ordinal()] += n;
+        nombresParCouleur[carte.getCouleur().ordinal()] += n;
+    }
+
+    @Override
+    public CarteTransport get(int index) {
+        return cartes.get(index);
+    }
+
+    @Override
+    public int size() {
+        return cartes.size();
+    }
+
+    @Override
+    public CarteTransport set(int index, CarteTransport carte) {
+        CarteTransport ancienne = cartes.set(index, carte);
+        compter(ancienne, -1);
+        compter(carte, 1);
+        return ancienne;
+    }
+
+    @Override
+    public void add(int index, CarteTransport carte) {
+        cartes.add(index, carte);
+        compter(carte, 1);
+        modCount++;
+    }
+
+    @Override
+    public CarteTransport remove(int index) {
+        CarteTransport carte = cartes.remove(index);
+        compter(carte, -1);
+        modCount++;
+        return carte;
+    }
+
+    @Override
+    public void clear() {
+        cartes.clear();
+        Arrays.fill(nombres, 0);
+        Arrays.fill(nombresParType, 0);
+        Arrays.fill(nombresParCouleur, 0);
+        modCount++;
+    }
+
+    /**
+     * @return le nombre de cartes du type donné
+     */
+    int nombre(TypeCarteTransport type) {
+        return nombresParType[type.ordinal()];
+    }
+
+    /**
+     * @return le nombre de cartes de la couleur donnée, tous types confondus
+     */
+    int nombre(Couleur couleur) {
+        return nombresParCouleur[couleur.ordinal()];
+    }
+
+    /**
+     * @return le nombre de cartes du type et de la couleur donnés
+     */
+    int nombre(TypeCarteTransport type, Couleur couleur) {
+        int i = sorte(type, couleur, false, false);
+        return nombres[i] + nombres[i + 1] + nombres[i + 2] + nombres[i + 3];
+    }
+
+    /**
+     * @return le nombre de cartes du type et de la couleur donnés, doubles ou simples
+     */
+    int nombre(TypeCarteTransport type, Couleur couleur, boolean estDouble) {
+        int i = sorte(type, couleur, estDouble, false);
+        return nombres[i] + nombres[i + 1];
+    }
+
+    /**
+     * @return le nombre de cartes du type, de la couleur, double ou non et avec ancre ou non donnés
+     */
+    int nombre(TypeCarteTransport type, Couleur couleur, boolean estDouble, boolean ancre) {
+        return nombres[sorte(type, couleur, estDouble, ancre)];
+    }
+}
@@ -0,0 +1,173 @@
+package fr.umontpellier.iut.rails;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+import fr.umontpellier.iut.rails.data.CarteTransport;
+import fr.umontpellier.iut.rails.data.TypeCarteTransport;
+
+/**
+ * Cartes transport visibles : six emplacements fixes, chacun vide ou occupé par une carte, et le nombre de jokers
+ * visibles tenu à jour.
+ *
+ * Une carte prise (prendre()) laisse son emplacement vide sans déplacer les autres, et la carte qui la remplace
+ * (remplacer()) prend sa place. L'état de la partie contient les six emplacements (getEmplacements(), null pour un
+ * emplacement vide) : d'un état au suivant, seul l'élément de l'emplacement modifié change dans le tableau des
+ * cartes visibles, et le delta envoyé aux clients ne contient que cet élément (voir DiffJson).
+ *
+ * Vu comme une liste, le marché contient les cartes des emplacements occupés, dans l'ordre des emplacements.
+ * Retirer une carte vide son emplacement ; une carte ajoutée à la fin de la liste prend l'emplacement qui suit le
+ * dernier emplacement occupé. Les cartes null ne sont pas acceptées.
+ */
+final class MarcheCartes extends AbstractList<CarteTransport> implements RandomAccess {
+    static final int NB_EMPLACEMENTS = 6;
+
+    private final CarteTransport[] emplacements = new CarteTransport[NB_EMPLACEMENTS];
+    /**
+     * Vue en lecture seule, de taille fixe, des emplacements
+     */
+    private final List<CarteTransport> vueEmplacements = Collections.unmodifiableList(Arrays.asList(emplacements));
+    private int taille;
+    private int nbJokers;
+
+    /**
+     * @return la carte de l'emplacement donné, ou null s'il est vide
+     */
+    CarteTransport carte(int emplacement) {
+        return emplacements[emplacement];
+    }
+
+    /**
+     * @return les six emplacements (null pour un emplacement vide), vue en lecture seule qui suit les modifications
+     * du marché
+     */
+    List<CarteTransport> getEmplacements() {
+        return vueEmplacements;
+    }
+
+    /**
+     * @return l'emplacement de la carte (comparée par identité), ou -1 si elle n'est pas visible
+     */
+    int emplacement(CarteTransport carte) {
+        for (int i = 0; i < NB_EMPLACEMENTS; i++) {
+            if (emplacements[i] == carte) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Vide l'emplacement donné
+     *
+     * @return la carte qui l'occupait, ou null s'il était vide
+     */
+    CarteTransport prendre(int emplacement) {
+        return remplacer(emplacement, null);
+    }
+
+    /**
+     * Remplace la carte de l'emplacement donné (une carte null, par exemple si la pioche est vide, laisse
+     * l'emplacement vide)
+     *
+     * @return la carte qui occupait l'emplacement, ou null s'il était vide
+     */
+    CarteTransport remplacer(int emplacement, CarteTransport carte) {
+        CarteTransport ancienne = emplacements[emplacement];
+        if (ancienne != null) {
+            compter(ancienne, -1);
+        }
+        emplacements[emplacement] = carte;
+        if (carte != null) {
+            compter(carte, 1);
+        }
+        if ((ancienne == null) != (carte == null)) {
+            modCount++;
+        }
+        return ancienne;
+    }
+
+    int getNbJokers() {
+        return nbJokers;
+    }
+
+    private void compter(CarteTransport carte, int n) {
+        taille += n;
+        if (carte.getType() == TypeCarteTransport.JOKER) {
+            nbJokers += n;
+        }
+    }
+
+    /**
+     * @return l'emplacement de la carte d'indice donné dans la liste des cartes visibles
+     */
+    private int emplacementIndice(int index) {
+        int restant = index;
+        if (index >= 0) {
+            for (int i = 0; i < NB_EMPLACEMENTS; i++) {
+                if (emplacements[i] != null && restant-- == 0) {
+                    return i;
+                }
+            }
+        }
+        throw new IndexOutOfBoundsException(index);
+    }
+
+    @Override
+    public CarteTransport get(int index) {
+        return emplacements[emplacementIndice(index)];
+    }
+
+    @Override
+    public int size() {
+        return taille;
+    }
+
+    /**
+     * Remplace la carte d'indice donné, sur son emplacement
+     */
+    @Override
+    public CarteTransport set(int index, CarteTransport carte) {
+        Objects.requireNonNull(carte);
+        return remplacer(emplacementIndice(index), carte);
+    }
+
+    /**
+     * Ajoute la carte à la fin des cartes visibles : elle prend l'emplacement qui suit le dernier emplacement occupé
+     *
+     * @throws IllegalStateException si le dernier emplacement est occupé
+     */
+    @Override
+    public boolean add(CarteTransport carte) {
+        Objects.requireNonNull(carte);
+        int emplacement = NB_EMPLACEMENTS;
+        while (emplacement > 0 && emplacements[emplacement - 1] == null) {
+            emplacement--;
+        }
+        if (emplacement == NB_EMPLACEMENTS) {
+            throw new IllegalStateException("Le dernier des " + NB_EMPLACEMENTS + " emplacements est occupé");
+        }
+        remplacer(emplacement, carte);
+        return true;
+    }
+
+    /**
+     * Retire la carte d'indice donné : son emplacement reste vide
+     */
+    @Override
+    public CarteTransport remove(int index) {
+        return prendre(emplacementIndice(index));
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(emplacements, null);
+        taille = 0;
+        nbJokers = 0;
+        modCount++;
+    }
+}
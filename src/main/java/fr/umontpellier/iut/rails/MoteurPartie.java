@@ -0,0 +1,988 @@
+package fr.umontpellier.iut.rails;
+
+import fr.umontpellier.iut.rails.data.CarteTransport;
+import fr.umontpellier.iut.rails.data.Destination;
+import fr.umontpellier.iut.rails.data.TypeCarteTransport;
+import fr.umontpellier.iut.rails.data.Ville;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moteur de partie non bloquant.
+ *
+ * Contrairement à Jeu.run(), qui bloque un thread en attendant chaque instruction (Jeu.lireLigne()), le moteur
+ * conserve explicitement l'étape de la partie (l'état de la machine) entre deux instructions. Chaque instruction
+ * est traitée par un appel à traiter(), qui fait avancer la partie jusqu'au prochain choix attendu puis rend la
+ * main : une partie en attente n'occupe aucun thread.
+ *
+ * Les règles appliquées sont celles de Joueur.jouerTour(). Une instruction invalide est ignorée et la même
+ * question est reposée au joueur.
+ *
+ * Les joueurs automatiques peuvent aussi jouer avec des actions typées : actionsPossibles() énumère les actions
+ * possibles dans l'état courant, et appliquer() les applique directement, sans analyse d'instruction textuelle.
+ *
+ * Chaque instruction ou action acceptée est ajoutée au journal de la partie (Jeu.getJournal()), qui permet de la
+ * rejouer à l'identique (voir Rejoueur).
+ *
+ * Si le jeu est en mode sans affichage (Jeu.setSansAffichage()), aucune question n'est préparée ni envoyée : les
+ * décisions sont fournies par un Decideur (voir Simulation).
+ */
+public class MoteurPartie {
+    public enum Etat {
+        /**
+         * Mise en place : le joueur courant choisit les destinations initiales qu'il défausse
+         */
+        MISE_EN_PLACE_DESTINATIONS,
+        /**
+         * Mise en place : le joueur courant choisit son nombre de pions wagon
+         */
+        MISE_EN_PLACE_PIONS,
+        /**
+         * Début du tour : le joueur courant choisit son action
+         */
+        ATTENTE_ACTION,
+        ATTENTE_NOMBRE_PIONS_WAGON,
+        ATTENTE_NOMBRE_PIONS_BATEAU,
+        /**
+         * Le joueur a pioché des destinations et choisit celles qu'il défausse
+         */
+        ATTENTE_CHOIX_DESTINATIONS,
+        /**
+         * Le joueur a pris une carte visible et choisit la pioche qui la remplace
+         */
+        ATTENTE_REMPLACEMENT,
+        ATTENTE_DEUXIEME_CARTE,
+        ATTENTE_PAIEMENT_ROUTE,
+        ATTENTE_PAIEMENT_PORT,
+        FIN_PARTIE
+    }
+
+    private static final int NB_DESTINATIONS_INITIALES = 5;
+    private static final int NB_DESTINATIONS_INITIALES_MIN = 3;
+    private static final int NB_DESTINATIONS_PIOCHEES = 4;
+    private static final int NB_PIONS_WAGON_MIN = 10;
+    private static final int NB_PIONS_WAGON_MAX = 25;
+    private static final int NB_PIONS_TOTAL = 60;
+    /**
+     * Nombre de pions (wagon et bateau) en dessous duquel la fin de partie est déclenchée
+     */
+    private static final int SEUIL_FIN_PARTIE = 6;
+    /**
+     * Instruction qui termine le paiement en cours avec le meilleur paiement possible (voir
+     * ReglesPaiement.meilleurPaiementRoute())
+     */
+    public static final String PAIEMENT_AUTOMATIQUE = "PAYER";
+
+    private final Jeu jeu;
+    private Etat etat;
+    /**
+     * Nombre de tours terminés (mise en place comprise)
+     */
+    private int tour;
+    /**
+     * Nombre de tours restant à jouer une fois la fin de partie déclenchée (-1 tant qu'elle ne l'est pas)
+     */
+    private int toursRestants;
+    /**
+     * Destinations proposées au joueur courant
+     */
+    private final List<Destination> destinationsProposees;
+    /**
+     * Nombre minimal de destinations que le joueur doit garder parmi celles proposées
+     */
+    private int nbDestinationsMin;
+    /**
+     * Route en cours de paiement
+     */
+    private Route routeEnCours;
+    /**
+     * Port en cours de paiement
+     */
+    private Ville portEnCours;
+    /**
+     * Indique si le joueur peut encore piocher une deuxième carte après avoir remplacé la carte visible prise
+     */
+    private boolean deuxiemeCarteApresRemplacement;
+    /**
+     * Emplacement de la carte visible prise, sur lequel est retournée la carte qui la remplace
+     */
+    private int emplacementARemplacer;
+
+    public MoteurPartie(Jeu jeu) {
+        this.jeu = jeu;
+        this.destinationsProposees = new ArrayList<>();
+        this.toursRestants = -1;
+    }
+
+    public Jeu getJeu() {
+        return jeu;
+    }
+
+    public Etat getEtat() {
+        return etat;
+    }
+
+    /**
+     * @return true si la partie est terminée
+     */
+    public boolean estTerminee() {
+        return etat == Etat.FIN_PARTIE;
+    }
+
+    /**
+     * @return le nombre de tours terminés (mise en place comprise)
+     */
+    public int getNbTours() {
+        return tour;
+    }
+
+    List<Destination> getDestinationsProposees() {
+        return destinationsProposees;
+    }
+
+    int getNbDestinationsMin() {
+        return nbDestinationsMin;
+    }
+
+    Route getRouteEnCours() {
+        return routeEnCours;
+    }
+
+    /**
+     * Démarre la partie : retourne les cartes visibles, commence la mise en place du premier joueur et envoie la
+     * première question aux clients
+     */
+    public void demarrer() {
+        jeu.retournerCartesVisibles();
+        jeu.defausserSi3CartesJokerSontPresent();
+        jeu.setJoueurCourant(jeu.getJoueurs().get(0));
+        commencerMiseEnPlace();
+        demander();
+    }
+
+    /**
+     * Commence directement le tour du joueur courant, sans mise en place (utilisé pour reprendre une partie déjà
+     * initialisée)
+     */
+    void commencerTour() {
+        etat = Etat.ATTENTE_ACTION;
+        demander();
+    }
+
+    /**
+     * Traite une instruction du joueur courant, puis envoie la question suivante aux clients.
+     *
+     * @param entree l'instruction reçue
+     * @return true si l'instruction était valide (et a fait avancer la partie), false si elle a été ignorée
+     */
+    public boolean traiter(String entree) {
+        if (etat == Etat.FIN_PARTIE) {
+            return false;
+        }
+        boolean valide = switch (etat) {
+            case MISE_EN_PLACE_DESTINATIONS, ATTENTE_CHOIX_DESTINATIONS -> traiterChoixDestination(entree);
+            case MISE_EN_PLACE_PIONS -> traiterNombrePionsInitial(entree);
+            case ATTENTE_ACTION -> traiterAction(entree);
+            case ATTENTE_NOMBRE_PIONS_WAGON, ATTENTE_NOMBRE_PIONS_BATEAU -> traiterEchangePions(entree);
+            case ATTENTE_REMPLACEMENT -> traiterRemplacement(entree);
+            case ATTENTE_DEUXIEME_CARTE -> traiterDeuxiemeCarte(entree);
+            case ATTENTE_PAIEMENT_ROUTE, ATTENTE_PAIEMENT_PORT -> traiterPaiement(entree);
+            case FIN_PARTIE -> false;
+        };
+        if (valide) {
+            jeu.getJournal().ajouter(entree);
+        }
+        demander();
+        fermerSortiesSiTerminee();
+        return valide;
+    }
+
+    /**
+     * Ferme les sorties du jeu quand la partie vient de se terminer (après l'envoi de la dernière question)
+     */
+    private void fermerSortiesSiTerminee() {
+        if (etat == Etat.FIN_PARTIE) {
+            jeu.fermerSorties();
+        }
+    }
+
+    /**
+     * Traite une entrée écrite comme dans le journal de la partie : action typée codée ("#route\tR104\t...", voir
+     * Journal) ou instruction textuelle
+     *
+     * @return true si l'entrée était valide (et a fait avancer la partie), false si elle a été ignorée
+     */
+    public boolean traiterEntreeJournal(String entree) {
+        if (!Journal.estAction(entree)) {
+            return traiter(entree);
+        }
+        Action action = Journal.decoder(entree, this);
+        return action != null && appliquer(action);
+    }
+
+    /**
+     * Envoie aux clients la question correspondant à l'état courant
+     */
+    private void demander() {
+        if (jeu.estSansAffichage()) {
+            return;
+        }
+        switch (etat) {
+            case MISE_EN_PLACE_DESTINATIONS, ATTENTE_CHOIX_DESTINATIONS -> {
+                List<Bouton> boutons = new ArrayList<>();
+                for (Destination destination : destinationsProposees) {
+                    boutons.add(new Bouton(destination.getNom()));
+                }
+                jeu.prompt(String.format("Quelles destinations voulez-vous enlever (%d max) ?",
+                        destinationsProposees.size() - nbDestinationsMin), boutons, true);
+            }
+            case MISE_EN_PLACE_PIONS -> jeu.prompt(String.format(
+                    "Veuillez choisir le nombre de pions wagon que vous voulez, entre %d et %d",
+                    NB_PIONS_WAGON_MIN, NB_PIONS_WAGON_MAX), new ArrayList<>(), false);
+            case ATTENTE_ACTION -> jeu.prompt("Veuillez choisir une option a effectuer ce tour",
+                    new ArrayList<>(), false);
+            case ATTENTE_NOMBRE_PIONS_WAGON -> jeu.prompt(String.format(
+                    "Choisissez combien de pions wagon voulez-vous prendre (1 à %d)",
+                    jeu.getJoueurCourant().getNbPionsWagonEchangeables()), new ArrayList<>(), false);
+            case ATTENTE_NOMBRE_PIONS_BATEAU -> jeu.prompt(String.format(
+                    "Choisissez combien de pions bateau voulez-vous prendre (1 à %d)",
+                    jeu.getJoueurCourant().getNbPionsBateauEchangeables()), new ArrayList<>(), false);
+            case ATTENTE_REMPLACEMENT -> jeu.prompt(
+                    "Par quelle carte voulez vous remplacer la carte manquante (WAGON ou BATEAU) ?",
+                    new ArrayList<>(), false);
+            case ATTENTE_DEUXIEME_CARTE -> jeu.prompt("Quelle autre carte voulez-vous piocher ?",
+                    new ArrayList<>(), true);
+            case ATTENTE_PAIEMENT_ROUTE -> jeu.prompt("Veuillez payer pour la route " + routeEnCours,
+                    boutonsPaiement(), false);
+            case ATTENTE_PAIEMENT_PORT -> jeu.prompt("Veuillez payer pour le port de " + portEnCours.nom(),
+                    boutonsPaiement(), false);
+            case FIN_PARTIE -> jeu.prompt("Fin de la partie.", new ArrayList<>(), true);
+        }
+    }
+
+    /**************************************************************************
+     *  Mise en place
+     **************************************************************************/
+
+    /**
+     * Distribue les cartes transport et les destinations initiales du joueur courant
+     */
+    private void commencerMiseEnPlace() {
+        Joueur joueur = jeu.getJoueurCourant();
+        for (int i = 0; i < 3; i++) {
+            ajouterCarteMain(joueur, jeu.piocherCarteWagon());
+        }
+        for (int i = 0; i < 7; i++) {
+            ajouterCarteMain(joueur, jeu.piocherCarteBateau());
+        }
+        proposerDestinations(NB_DESTINATIONS_INITIALES, NB_DESTINATIONS_INITIALES_MIN);
+        etat = Etat.MISE_EN_PLACE_DESTINATIONS;
+    }
+
+    private boolean traiterNombrePionsInitial(String entree) {
+        Integer wagons = lireNombre(entree, NB_PIONS_WAGON_MIN, NB_PIONS_WAGON_MAX);
+        return wagons != null && choisirPionsWagon(wagons);
+    }
+
+    private boolean choisirPionsWagon(int wagons) {
+        if (wagons < NB_PIONS_WAGON_MIN || wagons > NB_PIONS_WAGON_MAX) {
+            return false;
+        }
+        Joueur joueur = jeu.getJoueurCourant();
+        joueur.setNbPionsBateauEnReserve(joueur.getNbPionsBateauEnReserve() - (NB_PIONS_TOTAL - wagons));
+        joueur.setNbPionsWagonEnReserve(joueur.getNbPionsWagonEnReserve() - wagons);
+        joueur.setNbPionsBateau(NB_PIONS_TOTAL - wagons);
+        joueur.setNbPionsWagon(wagons);
+
+        tour++;
+        jeu.setJoueurCourant(jeu.getJoueurs().get(tour % jeu.getJoueurs().size()));
+        if (tour < jeu.getJoueurs().size()) {
+            commencerMiseEnPlace();
+        } else {
+            etat = Etat.ATTENTE_ACTION;
+        }
+        return true;
+    }
+
+    /**************************************************************************
+     *  Destinations
+     **************************************************************************/
+
+    private void proposerDestinations(int nombre, int nbMin) {
+        destinationsProposees.clear();
+        for (int i = 0; i < nombre; i++) {
+            Destination destination = jeu.piocherDestination();
+            if (destination == null) {
+                break;
+            }
+            destinationsProposees.add(destination);
+        }
+        nbDestinationsMin = nbMin;
+    }
+
+    /**
+     * Le joueur défausse une des destinations proposées, ou passe ("") pour garder les destinations restantes
+     */
+    private boolean traiterChoixDestination(String entree) {
+        if (!entree.equals("")) {
+            Destination defaussee = null;
+            for (Destination destination : destinationsProposees) {
+                if (destination.getNom().equals(entree)) {
+                    defaussee = destination;
+                    break;
+                }
+            }
+            if (defaussee == null || destinationsProposees.size() <= nbDestinationsMin) {
+                return false;
+            }
+            destinationsProposees.remove(defaussee);
+            // les destinations défaussées sont remises sous la pile
+            jeu.getPileDestinations().add(defaussee);
+            if (destinationsProposees.size() > nbDestinationsMin) {
+                return true;
+            }
+        }
+        terminerChoixDestinations();
+        return true;
+    }
+
+    /**
+     * Le joueur garde les destinations données parmi celles proposées (au moins nbDestinationsMin, ou toutes s'il
+     * y en a moins) et remet les autres sous la pile
+     */
+    private boolean garderDestinations(List<Destination> gardees) {
+        int nbGardees = 0;
+        for (Destination destination : destinationsProposees) {
+            if (contientInstance(gardees, destination)) {
+                nbGardees++;
+            }
+        }
+        if (nbGardees != gardees.size() || nbGardees < Math.min(nbDestinationsMin, destinationsProposees.size())) {
+            return false;
+        }
+        for (Destination destination : List.copyOf(destinationsProposees)) {
+            if (!contientInstance(gardees, destination)) {
+                destinationsProposees.remove(destination);
+                jeu.getPileDestinations().add(destination);
+            }
+        }
+        terminerChoixDestinations();
+        return true;
+    }
+
+    private void terminerChoixDestinations() {
+        Joueur joueur = jeu.getJoueurCourant();
+        joueur.ajouterDestinationDansJoueur(destinationsProposees);
+        destinationsProposees.clear();
+        if (etat == Etat.MISE_EN_PLACE_DESTINATIONS) {
+            etat = Etat.MISE_EN_PLACE_PIONS;
+        } else {
+            finirTour();
+        }
+    }
+
+    /**************************************************************************
+     *  Choix de l'action
+     **************************************************************************/
+
+    private boolean traiterAction(String entree) {
+        Joueur joueur = jeu.getJoueurCourant();
+        switch (entree) {
+            case "WAGON", "BATEAU" -> {
+                CarteTransport carte = piocherCarte(entree);
+                if (carte == null) {
+                    return false;
+                }
+                joueur.ajoutCarteTransport(carte);
+                passerADeuxiemeCarte();
+                return true;
+            }
+            case "DESTINATION" -> {
+                if (jeu.getPileDestinations().isEmpty()) {
+                    return false;
+                }
+                proposerDestinations(NB_DESTINATIONS_PIOCHEES, 1);
+                etat = Etat.ATTENTE_CHOIX_DESTINATIONS;
+                return true;
+            }
+            case "PIONS WAGON" -> {
+                if (joueur.getNbPionsWagonEchangeables() < 1) {
+                    return false;
+                }
+                etat = Etat.ATTENTE_NOMBRE_PIONS_WAGON;
+                return true;
+            }
+            case "PIONS BATEAU" -> {
+                if (joueur.getNbPionsBateauEchangeables() < 1) {
+                    return false;
+                }
+                etat = Etat.ATTENTE_NOMBRE_PIONS_BATEAU;
+                return true;
+            }
+        }
+
+        int emplacement = jeu.getEmplacementCarteVisible(entree);
+        if (emplacement >= 0) {
+            prendreCarteVisible(emplacement, jeu.getCarteVisible(emplacement).getType() != TypeCarteTransport.JOKER);
+            return true;
+        }
+
+        Route route = jeu.getRouteLibre(entree);
+        if (route != null) {
+            if (!peutCapturerRoute(joueur, route)) {
+                return false;
+            }
+            routeEnCours = route;
+            etat = Etat.ATTENTE_PAIEMENT_ROUTE;
+            return true;
+        }
+
+        Ville port = jeu.getPortLibre(entree);
+        if (port != null) {
+            if (!peutConstruirePort(joueur, port)) {
+                return false;
+            }
+            portEnCours = port;
+            etat = Etat.ATTENTE_PAIEMENT_PORT;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Indique si le joueur peut commencer à payer une route libre : il a assez de pions, n'est pas bloqué par la
+     * route parallèle et possède des cartes permettant de la payer
+     */
+    boolean peutCapturerRoute(Joueur joueur, Route route) {
+        long[] bloquees = route.getRouteParallele() == null ? null : jeu.getRoutesBloquees(joueur);
+        return peutCapturerRoute(joueur, route, bloquees);
+    }
+
+    /**
+     * @param bloquees routes bloquées par une route parallèle (voir Jeu.getRoutesBloquees()), calculées une fois
+     *                 pour toutes les routes envisagées (peut être null si la route n'a pas de route parallèle)
+     */
+    private boolean peutCapturerRoute(Joueur joueur, Route route, long[] bloquees) {
+        int pions = route instanceof RouteMaritime ? joueur.getNbPionsBateau() : joueur.getNbPionsWagon();
+        if (pions < route.getLongueur()) {
+            return false;
+        }
+        // une seule des deux routes doubles est utilisable à moins de 4 joueurs, et un joueur ne peut jamais
+        // capturer les deux
+        int indice = route.getIndice();
+        if (bloquees != null && (bloquees[indice >> 6] & (1L << indice)) != 0) {
+            return false;
+        }
+        return ReglesPaiement.peutPayerRoute(route, joueur.getCartesTransport());
+    }
+
+    boolean peutConstruirePort(Joueur joueur, Ville ville) {
+        return ville.estPort()
+                && joueur.getPorts().size() < Joueur.NB_PORTS_MAX
+                && joueur.possedeRouteVille(ville)
+                && ReglesPaiement.peutPayerPort(joueur.getCartesTransport());
+    }
+
+    private boolean traiterEchangePions(String entree) {
+        Joueur joueur = jeu.getJoueurCourant();
+        boolean wagons = etat == Etat.ATTENTE_NOMBRE_PIONS_WAGON;
+        int max = wagons ? joueur.getNbPionsWagonEchangeables() : joueur.getNbPionsBateauEchangeables();
+        Integer n = lireNombre(entree, 1, max);
+        return n != null && echangerPions(wagons, n);
+    }
+
+    private boolean echangerPions(boolean wagons, int n) {
+        Joueur joueur = jeu.getJoueurCourant();
+        int max = wagons ? joueur.getNbPionsWagonEchangeables() : joueur.getNbPionsBateauEchangeables();
+        if (n < 1 || n > max) {
+            return false;
+        }
+        if (wagons) {
+            joueur.echangerPionsWagon(n);
+        } else {
+            joueur.echangerPionsBateau(n);
+        }
+        finirTour();
+        return true;
+    }
+
+    /**************************************************************************
+     *  Pioche des cartes transport
+     **************************************************************************/
+
+    /**
+     * @param pioche "WAGON" ou "BATEAU"
+     * @return la carte piochée, ou null si la pioche demandée est vide (ou n'existe pas)
+     */
+    private CarteTransport piocherCarte(String pioche) {
+        if (pioche.equals("WAGON") && !jeu.piocheWagonEstVide()) {
+            return jeu.piocherCarteWagon();
+        }
+        if (pioche.equals("BATEAU") && !jeu.piocheBateauEstVide()) {
+            return jeu.piocherCarteBateau();
+        }
+        return null;
+    }
+
+    /**
+     * Le joueur prend la carte visible de l'emplacement donné. Il doit ensuite choisir la pioche dont une carte est
+     * retournée sur cet emplacement (si une pioche n'est pas vide), puis éventuellement piocher sa deuxième carte.
+     */
+    private void prendreCarteVisible(int emplacement, boolean deuxiemeCarte) {
+        jeu.prendreCarteVisible(emplacement);
+        emplacementARemplacer = emplacement;
+        deuxiemeCarteApresRemplacement = deuxiemeCarte;
+        if (jeu.piocheWagonEstVide() && jeu.piocheBateauEstVide()) {
+            apresRemplacement();
+        } else {
+            etat = Etat.ATTENTE_REMPLACEMENT;
+        }
+    }
+
+    private boolean traiterRemplacement(String entree) {
+        CarteTransport carte = piocherCarte(entree);
+        if (carte == null) {
+            return false;
+        }
+        jeu.remplacerCarteVisible(emplacementARemplacer, carte);
+        jeu.defausserSi3CartesJokerSontPresent();
+        apresRemplacement();
+        return true;
+    }
+
+    private void apresRemplacement() {
+        if (deuxiemeCarteApresRemplacement) {
+            passerADeuxiemeCarte();
+        } else {
+            finirTour();
+        }
+    }
+
+    /**
+     * Passe au choix de la deuxième carte, ou termine le tour s'il n'y a plus aucune carte à piocher
+     */
+    private void passerADeuxiemeCarte() {
+        boolean cartePossible = !jeu.piocheWagonEstVide() || !jeu.piocheBateauEstVide();
+        for (CarteTransport carte : jeu.getCartesTransportVisibles()) {
+            cartePossible |= carte.getType() != TypeCarteTransport.JOKER;
+        }
+        if (cartePossible) {
+            etat = Etat.ATTENTE_DEUXIEME_CARTE;
+        } else {
+            finirTour();
+        }
+    }
+
+    /**
+     * Deuxième carte : une carte d'une pioche, ou une carte visible qui n'est pas un joker. Le joueur peut aussi
+     * passer ("").
+     */
+    private boolean traiterDeuxiemeCarte(String entree) {
+        if (entree.equals("")) {
+            finirTour();
+            return true;
+        }
+        CarteTransport carte = piocherCarte(entree);
+        if (carte != null) {
+            jeu.getJoueurCourant().ajoutCarteTransport(carte);
+            finirTour();
+            return true;
+        }
+        int emplacement = jeu.getEmplacementCarteVisible(entree);
+        if (emplacement < 0 || jeu.getCarteVisible(emplacement).getType() == TypeCarteTransport.JOKER) {
+            return false;
+        }
+        prendreCarteVisible(emplacement, false);
+        return true;
+    }
+
+    /**************************************************************************
+     *  Paiement des routes et des ports
+     **************************************************************************/
+
+    /**
+     * Le joueur pose une carte de sa main pour payer la route ou le port en cours. La carte est refusée si elle ne
+     * permet pas d'aboutir à un paiement valide (voir ReglesPaiement).
+     */
+    private boolean traiterPaiement(String entree) {
+        if (entree.equals(PAIEMENT_AUTOMATIQUE)) {
+            return payerAutomatiquement();
+        }
+        for (CarteTransport carte : jeu.getJoueurCourant().getCartesTransport()) {
+            if (carte.getNom().equals(entree)) {
+                return poserCarte(carte);
+            }
+        }
+        return false;
+    }
+
+    private boolean poserCarte(CarteTransport carte) {
+        Joueur joueur = jeu.getJoueurCourant();
+        if (!contientInstance(joueur.getCartesTransport(), carte)) {
+            return false;
+        }
+        List<CarteTransport> posees = joueur.getCartesTransportPosees();
+        boolean port = etat == Etat.ATTENTE_PAIEMENT_PORT;
+        boolean acceptee = port
+                ? ReglesPaiement.peutAjouterCartePort(posees, joueur.getCartesTransport(), carte)
+                : ReglesPaiement.peutAjouterCarteRoute(routeEnCours, posees, joueur.getCartesTransport(), carte);
+        if (!acceptee) {
+            return false;
+        }
+        joueur.poserCarteTransport(carte);
+
+        if (port && ReglesPaiement.estPaiementPortComplet(posees)) {
+            construirePortEnCours();
+        } else if (!port && ReglesPaiement.estPaiementRouteComplet(routeEnCours, posees)) {
+            capturerRouteEnCours();
+        }
+        return true;
+    }
+
+    /**
+     * @return les cartes à poser pour terminer le paiement en cours au mieux, ou null si le paiement ne peut pas
+     * être terminé
+     */
+    private List<CarteTransport> meilleurPaiementEnCours() {
+        Joueur joueur = jeu.getJoueurCourant();
+        return etat == Etat.ATTENTE_PAIEMENT_PORT
+                ? ReglesPaiement.meilleurPaiementPort(joueur.getCartesTransportPosees(), joueur.getCartesTransport())
+                : ReglesPaiement.meilleurPaiementRoute(routeEnCours, joueur.getCartesTransportPosees(),
+                joueur.getCartesTransport());
+    }
+
+    /**
+     * Le joueur termine le paiement en cours en posant les cartes du meilleur paiement qui complète les cartes
+     * déjà posées
+     */
+    private boolean payerAutomatiquement() {
+        List<CarteTransport> paiement = meilleurPaiementEnCours();
+        if (paiement == null || paiement.isEmpty()) {
+            return false;
+        }
+        for (CarteTransport carte : paiement) {
+            poserCarte(carte);
+        }
+        return true;
+    }
+
+    /**
+     * @return le bouton de paiement automatique, s'il est possible de terminer le paiement en cours
+     */
+    private List<Bouton> boutonsPaiement() {
+        List<Bouton> boutons = new ArrayList<>();
+        if (meilleurPaiementEnCours() != null) {
+            boutons.add(new Bouton("Payer automatiquement", PAIEMENT_AUTOMATIQUE));
+        }
+        return boutons;
+    }
+
+    /**
+     * Le paiement de la route en cours est complet : le joueur défausse les cartes posées et capture la route
+     */
+    private void capturerRouteEnCours() {
+        Joueur joueur = jeu.getJoueurCourant();
+        joueur.defausserCartesTransportPosees();
+        jeu.enleverRouteLibre(routeEnCours);
+        joueur.capturerRoute(routeEnCours);
+        joueur.log(joueur.toLog() + " capture la route " + routeEnCours.toLog());
+        routeEnCours = null;
+        finirTour();
+    }
+
+    /**
+     * Le paiement du port en cours est complet : le joueur défausse les cartes posées et construit le port
+     */
+    private void construirePortEnCours() {
+        Joueur joueur = jeu.getJoueurCourant();
+        joueur.defausserCartesTransportPosees();
+        jeu.enleverPortLibre(portEnCours);
+        joueur.construirePort(portEnCours);
+        joueur.log(joueur.toLog() + " construit un port à " + portEnCours.nom());
+        portEnCours = null;
+        finirTour();
+    }
+
+    /**************************************************************************
+     *  Actions typées
+     **************************************************************************/
+
+    /**
+     * Énumère les actions possibles du joueur courant dans l'état courant de la partie. Les captures de routes et
+     * constructions de ports sont énumérées avec chacun de leurs paiements possibles (voir
+     * ReglesPaiement.paiementsRoute()).
+     *
+     * @return les actions possibles (liste vide si la partie n'est pas démarrée ou est terminée)
+     */
+    public List<Action> actionsPossibles() {
+        List<Action> actions = new ArrayList<>();
+        if (etat == null) {
+            return actions;
+        }
+        Joueur joueur = jeu.getJoueurCourant();
+        switch (etat) {
+            case MISE_EN_PLACE_DESTINATIONS, ATTENTE_CHOIX_DESTINATIONS -> {
+                int n = destinationsProposees.size();
+                int nbMin = Math.min(nbDestinationsMin, n);
+                for (int masque = 0; masque < 1 << n; masque++) {
+                    if (Integer.bitCount(masque) >= nbMin) {
+                        List<Destination> gardees = new ArrayList<>();
+                        for (int i = 0; i < n; i++) {
+                            if ((masque & 1 << i) != 0) {
+                                gardees.add(destinationsProposees.get(i));
+                            }
+                        }
+                        actions.add(new Action.GarderDestinations(gardees));
+                    }
+                }
+            }
+            case MISE_EN_PLACE_PIONS -> {
+                for (int n = NB_PIONS_WAGON_MIN; n <= NB_PIONS_WAGON_MAX; n++) {
+                    actions.add(new Action.ChoisirPionsWagon(n));
+                }
+            }
+            case ATTENTE_ACTION -> {
+                ajouterPioches(actions);
+                for (int emplacement = 0; emplacement < MarcheCartes.NB_EMPLACEMENTS; emplacement++) {
+                    if (jeu.getCarteVisible(emplacement) != null) {
+                        actions.add(new Action.PrendreCarteVisible(emplacement));
+                    }
+                }
+                if (!jeu.getPileDestinations().isEmpty()) {
+                    actions.add(new Action.PiocherDestinations());
+                }
+                ajouterEchangesPions(actions, true);
+                ajouterEchangesPions(actions, false);
+                List<CarteTransport> main = joueur.getCartesTransport();
+                long[] bloquees = jeu.getRoutesBloquees(joueur);
+                for (Route route : jeu.getRoutesLibres()) {
+                    if (peutCapturerRoute(joueur, route, bloquees)) {
+                        for (List<CarteTransport> paiement : ReglesPaiement.paiementsRoute(route, main)) {
+                            actions.add(new Action.PrendreRoute(route, paiement));
+                        }
+                    }
+                }
+                if (joueur.getPorts().size() < Joueur.NB_PORTS_MAX && ReglesPaiement.peutPayerPort(main)) {
+                    List<List<CarteTransport>> paiements = ReglesPaiement.paiementsPort(main);
+                    for (Ville ville : jeu.getPortsLibres()) {
+                        if (peutConstruirePort(joueur, ville)) {
+                            for (List<CarteTransport> paiement : paiements) {
+                                actions.add(new Action.ConstruirePort(ville, paiement));
+                            }
+                        }
+                    }
+                }
+            }
+            case ATTENTE_NOMBRE_PIONS_WAGON -> ajouterEchangesPions(actions, true);
+            case ATTENTE_NOMBRE_PIONS_BATEAU -> ajouterEchangesPions(actions, false);
+            case ATTENTE_REMPLACEMENT -> ajouterPioches(actions);
+            case ATTENTE_DEUXIEME_CARTE -> {
+                actions.add(new Action.Passer());
+                ajouterPioches(actions);
+                for (int emplacement = 0; emplacement < MarcheCartes.NB_EMPLACEMENTS; emplacement++) {
+                    CarteTransport carte = jeu.getCarteVisible(emplacement);
+                    if (carte != null && carte.getType() != TypeCarteTransport.JOKER) {
+                        actions.add(new Action.PrendreCarteVisible(emplacement));
+                    }
+                }
+            }
+            case ATTENTE_PAIEMENT_ROUTE, ATTENTE_PAIEMENT_PORT -> {
+                List<CarteTransport> main = joueur.getCartesTransport();
+                List<CarteTransport> posees = joueur.getCartesTransportPosees();
+                for (CarteTransport carte : main) {
+                    if (etat == Etat.ATTENTE_PAIEMENT_PORT
+                            ? ReglesPaiement.peutAjouterCartePort(posees, main, carte)
+                            : ReglesPaiement.peutAjouterCarteRoute(routeEnCours, posees, main, carte)) {
+                        actions.add(new Action.PoserCarte(carte));
+                    }
+                }
+            }
+            case FIN_PARTIE -> {
+            }
+        }
+        return actions;
+    }
+
+    private void ajouterPioches(List<Action> actions) {
+        if (!jeu.piocheWagonEstVide()) {
+            actions.add(new Action.PiocherCarte(TypeCarteTransport.WAGON));
+        }
+        if (!jeu.piocheBateauEstVide()) {
+            actions.add(new Action.PiocherCarte(TypeCarteTransport.BATEAU));
+        }
+    }
+
+    private void ajouterEchangesPions(List<Action> actions, boolean wagons) {
+        Joueur joueur = jeu.getJoueurCourant();
+        int max = wagons ? joueur.getNbPionsWagonEchangeables() : joueur.getNbPionsBateauEchangeables();
+        for (int n = 1; n <= max; n++) {
+            actions.add(new Action.EchangerPions(wagons, n));
+        }
+    }
+
+    /**
+     * Applique une action du joueur courant, puis envoie la question suivante aux clients.
+     *
+     * @param action l'action à appliquer
+     * @return true si l'action était possible (et a fait avancer la partie), false si elle a été ignorée
+     */
+    public boolean appliquer(Action action) {
+        if (etat == null || etat == Etat.FIN_PARTIE) {
+            return false;
+        }
+        boolean valide = appliquerAction(action);
+        if (valide) {
+            jeu.getJournal().ajouter(Journal.coder(action));
+        }
+        demander();
+        fermerSortiesSiTerminee();
+        return valide;
+    }
+
+    private boolean appliquerAction(Action action) {
+        Joueur joueur = jeu.getJoueurCourant();
+        if (action instanceof Action.ChoisirPionsWagon choix) {
+            return etat == Etat.MISE_EN_PLACE_PIONS && choisirPionsWagon(choix.nombre());
+        }
+        if (action instanceof Action.GarderDestinations choix) {
+            return (etat == Etat.MISE_EN_PLACE_DESTINATIONS || etat == Etat.ATTENTE_CHOIX_DESTINATIONS)
+                    && garderDestinations(choix.destinations());
+        }
+        if (action instanceof Action.PiocherCarte pioche) {
+            if (pioche.pioche() != TypeCarteTransport.WAGON && pioche.pioche() != TypeCarteTransport.BATEAU) {
+                return false;
+            }
+            String nom = pioche.pioche().name();
+            return switch (etat) {
+                case ATTENTE_ACTION -> traiterAction(nom);
+                case ATTENTE_REMPLACEMENT -> traiterRemplacement(nom);
+                case ATTENTE_DEUXIEME_CARTE -> traiterDeuxiemeCarte(nom);
+                default -> false;
+            };
+        }
+        if (action instanceof Action.PrendreCarteVisible prise) {
+            int emplacement = prise.emplacement();
+            if (emplacement < 0 || emplacement >= MarcheCartes.NB_EMPLACEMENTS
+                    || jeu.getCarteVisible(emplacement) == null) {
+                return false;
+            }
+            boolean joker = jeu.getCarteVisible(emplacement).getType() == TypeCarteTransport.JOKER;
+            if (etat == Etat.ATTENTE_ACTION) {
+                prendreCarteVisible(emplacement, !joker);
+                return true;
+            }
+            if (etat == Etat.ATTENTE_DEUXIEME_CARTE && !joker) {
+                prendreCarteVisible(emplacement, false);
+                return true;
+            }
+            return false;
+        }
+        if (action instanceof Action.PiocherDestinations) {
+            return etat == Etat.ATTENTE_ACTION && traiterAction("DESTINATION");
+        }
+        if (action instanceof Action.EchangerPions echange) {
+            Etat attendu = echange.wagons() ? Etat.ATTENTE_NOMBRE_PIONS_WAGON : Etat.ATTENTE_NOMBRE_PIONS_BATEAU;
+            return (etat == Etat.ATTENTE_ACTION || etat == attendu)
+                    && echangerPions(echange.wagons(), echange.nombre());
+        }
+        if (action instanceof Action.PrendreRoute prise) {
+            Route route = prise.route();
+            if (etat != Etat.ATTENTE_ACTION || route == null || !jeu.estRouteLibre(route)
+                    || !peutCapturerRoute(joueur, route) || !sontDansLaMain(joueur, prise.paiement())
+                    || !ReglesPaiement.estPaiementRouteComplet(route, prise.paiement())) {
+                return false;
+            }
+            prise.paiement().forEach(joueur::poserCarteTransport);
+            routeEnCours = route;
+            capturerRouteEnCours();
+            return true;
+        }
+        if (action instanceof Action.ConstruirePort construction) {
+            Ville ville = construction.ville();
+            if (etat != Etat.ATTENTE_ACTION || ville == null || !jeu.estPortLibre(ville)
+                    || !peutConstruirePort(joueur, ville) || !sontDansLaMain(joueur, construction.paiement())
+                    || !ReglesPaiement.estPaiementPortComplet(construction.paiement())) {
+                return false;
+            }
+            construction.paiement().forEach(joueur::poserCarteTransport);
+            portEnCours = ville;
+            construirePortEnCours();
+            return true;
+        }
+        if (action instanceof Action.PoserCarte pose) {
+            return (etat == Etat.ATTENTE_PAIEMENT_ROUTE || etat == Etat.ATTENTE_PAIEMENT_PORT)
+                    && poserCarte(pose.carte());
+        }
+        if (action instanceof Action.Passer) {
+            return etat == Etat.ATTENTE_DEUXIEME_CARTE && traiterDeuxiemeCarte("");
+        }
+        return false;
+    }
+
+    /**
+     * @return true si toutes les cartes (distinctes) sont dans la main du joueur
+     */
+    private static boolean sontDansLaMain(Joueur joueur, List<CarteTransport> cartes) {
+        List<CarteTransport> main = new ArrayList<>(joueur.getCartesTransport());
+        for (CarteTransport carte : cartes) {
+            if (!main.remove(carte)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true si la liste contient l'objet (comparaison par identité)
+     */
+    private static boolean contientInstance(List<?> liste, Object objet) {
+        for (Object element : liste) {
+            if (element == objet) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**************************************************************************
+     *  Fin du tour
+     **************************************************************************/
+
+    /**
+     * Termine le tour du joueur courant : déclenche ou fait avancer la fin de partie, puis passe au joueur suivant
+     */
+    private void finirTour() {
+        Joueur joueur = jeu.getJoueurCourant();
+        if (toursRestants > 0) {
+            toursRestants--;
+        } else if (joueur.getNbPionsWagon() + joueur.getNbPionsBateau() <= SEUIL_FIN_PARTIE) {
+            toursRestants = 2 * jeu.getJoueurs().size();
+        }
+        tour++;
+        jeu.setJoueurCourant(jeu.getJoueurs().get(tour % jeu.getJoueurs().size()));
+        etat = toursRestants == 0 ? Etat.FIN_PARTIE : Etat.ATTENTE_ACTION;
+    }
+
+    private void ajouterCarteMain(Joueur joueur, CarteTransport carte) {
+        if (carte != null) {
+            joueur.ajoutCarteTransport(carte);
+        }
+    }
+
+    /**
+     * @return le nombre entre min et max (inclus) représenté par `entree`, ou null si l'entrée n'est pas valide
+     */
+    private Integer lireNombre(String entree, int min, int max) {
+        try {
+            int n = Integer.parseInt(entree);
+            if (n >= min && n <= max) {
+                return n;
+            }
+            jeu.log(String.format("Veuillez entrer un nombre entre %d et %d", min, max));
+        } catch (NumberFormatException e) {
+            jeu.log("Veuillez entrer un nombre valide");
+        }
+        return null;
+    }
+}
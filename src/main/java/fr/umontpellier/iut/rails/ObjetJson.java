@@ -0,0 +1,68 @@
+package fr.umontpellier.iut.rails;
+
+/**
+ * Objet JSON d'un instantané de l'état du jeu (voir Jeu.etatJson()).
+ *
+ * Les valeurs sont des ObjetJson, des tableaux (Object[]) ou des valeurs simples : String, Number, Boolean,
+ * énumérations et objets immuables du jeu (CarteTransport, Destination, Bouton), qui sont écrits par
+ * EncodeurEtat. Un instantané ne contient que des références : il est peu coûteux à construire et deux
+ * instantanés successifs peuvent être comparés valeur par valeur.
+ */
+public final class ObjetJson {
+    private final String[] cles;
+    private final Object[] valeurs;
+
+    /**
+     * @param cles    les clés de l'objet, dans l'ordre d'écriture
+     * @param valeurs les valeurs associées aux clés (dans le même ordre)
+     */
+    public ObjetJson(String[] cles, Object... valeurs) {
+        if (cles.length != valeurs.length) {
+            throw new IllegalArgumentException("Nombre de clés et de valeurs différents");
+        }
+        this.cles = cles;
+        this.valeurs = valeurs;
+    }
+
+    public int taille() {
+        return cles.length;
+    }
+
+    public String getCle(int i) {
+        return cles[i];
+    }
+
+    public Object getValeur(int i) {
+        return valeurs[i];
+    }
+
+    /**
+     * @return la valeur associée à la clé, ou null si l'objet ne contient pas la clé
+     */
+    public Object get(String cle) {
+        for (int i = 0; i < cles.length; i++) {
+            if (cles[i].equals(cle)) {
+                return valeurs[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true si les deux objets ont les mêmes clés, dans le même ordre
+     */
+    public boolean memesCles(ObjetJson autre) {
+        if (cles == autre.cles) {
+            return true;
+        }
+        if (cles.length != autre.cles.length) {
+            return false;
+        }
+        for (int i = 0; i < cles.length; i++) {
+            if (!cles[i].equals(autre.cles[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,153 @@
+package fr.umontpellier.iut.rails;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.RandomAccess;
+import java.util.SplittableRandom;
+
+import fr.umontpellier.iut.rails.data.CarteTransport;
+
+/**
+ * Pile de cartes transport (pioche ou défausse) rangée dans un tableau circulaire : l'élément d'indice 0 est le
+ * dessus de la pile.
+ *
+ * Prendre ou poser une carte sur le dessus ou sous la pile se fait en temps constant, sans décaler les autres
+ * cartes. Le tableau a dès le départ la taille du paquet complet (voir PilesCartesTransport), il n'est donc jamais
+ * agrandi en cours de partie : les opérations sur les piles n'allouent pas de mémoire.
+ */
+final class PileCartes extends AbstractList<CarteTransport> implements RandomAccess {
+    private CarteTransport[] cartes;
+    /**
+     * Position dans le tableau de la carte du dessus
+     */
+    private int debut;
+    private int taille;
+
+    /**
+     * @param capacite nombre de cartes que la pile peut contenir sans agrandir son tableau
+     */
+    PileCartes(int capacite) {
+        cartes = new CarteTransport[Math.max(capacite, 1)];
+    }
+
+    PileCartes(Collection<CarteTransport> cartes, int capacite) {
+        this(Math.max(capacite, cartes.size()));
+        for (CarteTransport carte : cartes) {
+            this.cartes[taille++] = carte;
+        }
+    }
+
+    /**
+     * @return la position dans le tableau de la carte d'indice donné
+     */
+    private int position(int index) {
+        int position = debut + index;
+        return position < cartes.length ? position : position - cartes.length;
+    }
+
+    @Override
+    public CarteTransport get(int index) {
+        if (index < 0 || index >= taille) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return cartes[position(index)];
+    }
+
+    @Override
+    public int size() {
+        return taille;
+    }
+
+    @Override
+    public CarteTransport set(int index, CarteTransport carte) {
+        CarteTransport ancienne = get(index);
+        cartes[position(index)] = carte;
+        return ancienne;
+    }
+
+    @Override
+    public void add(int index, CarteTransport carte) {
+        if (index < 0 || index > taille) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        if (taille == cartes.length) {
+            agrandir();
+        }
+        if (index == 0) {
+            debut = debut == 0 ? cartes.length - 1 : debut - 1;
+        } else {
+            for (int i = taille; i > index; i--) {
+                cartes[position(i)] = cartes[position(i - 1)];
+            }
+        }
+        cartes[position(index)] = carte;
+        taille++;
+        modCount++;
+    }
+
+    @Override
+    public CarteTransport remove(int index) {
+        CarteTransport carte = get(index);
+        if (index == 0) {
+            cartes[debut] = null;
+            debut = position(1);
+        } else {
+            for (int i = index; i < taille - 1; i++) {
+                cartes[position(i)] = cartes[position(i + 1)];
+            }
+            cartes[position(taille - 1)] = null;
+        }
+        taille--;
+        modCount++;
+        return carte;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < taille; i++) {
+            cartes[position(i)] = null;
+        }
+        debut = 0;
+        taille = 0;
+        modCount++;
+    }
+
+    private void agrandir() {
+        CarteTransport[] nouvelles = new CarteTransport[cartes.length * 2];
+        for (int i = 0; i < taille; i++) {
+            nouvelles[i] = cartes[position(i)];
+        }
+        cartes = nouvelles;
+        debut = 0;
+    }
+
+    /**
+     * Échange le contenu des deux piles (sans copier les cartes)
+     */
+    void echanger(PileCartes autre) {
+        CarteTransport[] tableau = cartes;
+        cartes = autre.cartes;
+        autre.cartes = tableau;
+        int entier = debut;
+        debut = autre.debut;
+        autre.debut = entier;
+        entier = taille;
+        taille = autre.taille;
+        autre.taille = entier;
+        modCount++;
+        autre.modCount++;
+    }
+
+    /**
+     * Mélange la pile sur place (Fisher-Yates, mêmes tirages que Jeu.melanger())
+     */
+    void melanger(SplittableRandom aleatoire) {
+        for (int i = taille - 1; i > 0; i--) {
+            int a = position(i);
+            int b = position(aleatoire.nextInt(i + 1));
+            CarteTransport carte = cartes[a];
+            cartes[a] = cartes[b];
+            cartes[b] = carte;
+        }
+    }
+}
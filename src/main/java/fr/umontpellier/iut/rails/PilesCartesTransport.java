@@ -5,19 +5,36 @@ import fr.umontpellier.iut.rails.data.Couleur;
 import fr.umontpellier.iut.rails.data.TypeCarteTransport;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
 
+/**
+ * Pioche et défausse d'un paquet de cartes transport. Les deux piles sont des PileCartes de la taille du paquet :
+ * piocher retire la carte du dessus en temps constant, et lorsque la pioche est vide, la défausse prend sa place
+ * (les tableaux des deux piles sont échangés) puis est mélangée sur place.
+ */
 public class PilesCartesTransport {
-    private final List<CarteTransport> pilePioche;
-    private final List<CarteTransport> pileDefausse;
+    private final PileCartes pilePioche;
+    private final PileCartes pileDefausse;
+    /**
+     * Générateur utilisé pour mélanger la pioche et la défausse
+     */
+    private final SplittableRandom aleatoire;
 
     public PilesCartesTransport(List<CarteTransport> cartes) {
-        pilePioche = cartes;
-        pileDefausse = new ArrayList<>();
+        this(cartes, new SplittableRandom());
+    }
+
+    /**
+     * @param aleatoire générateur (issu de celui de la partie) utilisé pour tous les mélanges des piles
+     */
+    public PilesCartesTransport(List<CarteTransport> cartes, SplittableRandom aleatoire) {
+        pilePioche = new PileCartes(cartes, cartes.size());
+        pileDefausse = new PileCartes(cartes.size());
+        this.aleatoire = aleatoire;
         // on mélange la pile de pioche
-        Collections.shuffle(pilePioche);
+        pilePioche.melanger(aleatoire);
     }
 
     /**
@@ -30,22 +47,30 @@ public class PilesCartesTransport {
            return null;
         }
         else if(pilePioche.isEmpty()){
-            Collections.shuffle(pileDefausse);
-            pilePioche.addAll(pileDefausse);
-            pileDefausse.clear();
+            // la défausse devient la pioche, et la pioche (vide) la défausse
+            pilePioche.echanger(pileDefausse);
+            pilePioche.melanger(aleatoire);
         }
-        CarteTransport carteRetournee=pilePioche.remove(0);
-        return carteRetournee;
+        return pilePioche.remove(0);
     }
 
     public void defausser(CarteTransport carte) {
         this.pileDefausse.add(carte);
     }
 
+    /**
+     * Mélange les cartes de la défausse et les remet sous la pioche (la défausse est vide ensuite)
+     */
     public void remplacer(){
-
-        Collections.shuffle(pileDefausse);
-        pilePioche.addAll(pileDefausse);
+        pileDefausse.melanger(aleatoire);
+        if (pilePioche.isEmpty()) {
+            pilePioche.echanger(pileDefausse);
+            return;
+        }
+        for (CarteTransport carte : pileDefausse) {
+            pilePioche.add(carte);
+        }
+        pileDefausse.clear();
     }
 
     /**
@@ -67,4 +92,13 @@ public class PilesCartesTransport {
                 Map.entry("pioche", pilePioche.size()),
                 Map.entry("defausse", pileDefausse));
     }
+
+    private static final String[] CLES_ETAT = {"pioche", "defausse"};
+
+    /**
+     * Renvoie un instantané des piles avec les mêmes clés que dataMap() (voir Jeu.etatJson())
+     */
+    ObjetJson etatJson() {
+        return new ObjetJson(CLES_ETAT, pilePioche.size(), pileDefausse.toArray());
+    }
 }
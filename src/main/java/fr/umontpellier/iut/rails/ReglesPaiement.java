@@ -0,0 +1,549 @@
+package fr.umontpellier.iut.rails;
+
+import fr.umontpellier.iut.rails.data.CarteTransport;
+import fr.umontpellier.iut.rails.data.Couleur;
+import fr.umontpellier.iut.rails.data.TypeCarteTransport;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Règles de paiement des routes et des ports.
+ *
+ * Le paiement se fait carte par carte. Une carte peut être ajoutée au paiement en cours s'il existe un paiement
+ * valide et minimal (dans lequel aucune carte n'est inutile) qui contient les cartes déjà posées, la nouvelle carte
+ * et éventuellement d'autres cartes de la main du joueur. Le paiement est terminé lorsque les cartes posées forment
+ * à elles seules un paiement valide et minimal.
+ */
+public final class ReglesPaiement {
+    /**
+     * Nombre de cartes à défausser pour construire un port (2 cartes wagon et 2 cartes bateau)
+     */
+    public static final int PRIX_PORT = 4;
+
+    private static final int NB_COULEURS = Couleur.values().length;
+    private static final Comptes AUCUNE_CARTE = new Comptes();
+
+    private ReglesPaiement() {
+    }
+
+    /**
+     * @return true si les cartes de la main permettent de payer la route
+     */
+    public static boolean peutPayerRoute(Route route, List<CarteTransport> main) {
+        return existeCompletion(route, AUCUNE_CARTE, new Comptes(main));
+    }
+
+    /**
+     * @return true si les cartes de la main permettent de payer un port
+     */
+    public static boolean peutPayerPort(List<CarteTransport> main) {
+        return existeCompletion(null, AUCUNE_CARTE, new Comptes(main));
+    }
+
+    /**
+     * Indique si une carte de la main peut être ajoutée au paiement en cours d'une route.
+     *
+     * @param route  la route à payer
+     * @param posees les cartes déjà posées pour payer la route
+     * @param main   les cartes en main (contenant `carte`)
+     * @param carte  la carte que le joueur veut ajouter au paiement
+     */
+    public static boolean peutAjouterCarteRoute(Route route, List<CarteTransport> posees,
+                                                List<CarteTransport> main, CarteTransport carte) {
+        return peutAjouterCarte(route, posees, main, carte);
+    }
+
+    /**
+     * Indique si une carte de la main peut être ajoutée au paiement en cours d'un port.
+     */
+    public static boolean peutAjouterCartePort(List<CarteTransport> posees, List<CarteTransport> main,
+                                               CarteTransport carte) {
+        return peutAjouterCarte(null, posees, main, carte);
+    }
+
+    /**
+     * @return true si les cartes posées forment un paiement complet de la route
+     */
+    public static boolean estPaiementRouteComplet(Route route, List<CarteTransport> posees) {
+        return existeCompletion(route, new Comptes(posees), AUCUNE_CARTE);
+    }
+
+    /**
+     * @return true si les cartes posées forment un paiement complet d'un port
+     */
+    public static boolean estPaiementPortComplet(List<CarteTransport> posees) {
+        return existeCompletion(null, new Comptes(posees), AUCUNE_CARTE);
+    }
+
+    /**
+     * Propose les paiements de la route possibles avec les cartes de la main : le meilleur paiement de chaque
+     * couleur utilisable (un seul pour une route paire), au sens de meilleurPaiementRoute().
+     */
+    public static List<List<CarteTransport>> paiementsRoute(Route route, List<CarteTransport> main) {
+        return paiements(route, main);
+    }
+
+    /**
+     * Propose les paiements d'un port possibles avec les cartes de la main : le meilleur paiement de chaque
+     * couleur utilisable, au sens de meilleurPaiementPort().
+     */
+    public static List<List<CarteTransport>> paiementsPort(List<CarteTransport> main) {
+        return paiements(null, main);
+    }
+
+    /**
+     * Cherche le meilleur paiement de la route qui contient les cartes déjà posées. Les paiements sont comparés
+     * dans l'ordre : le moins de jokers, puis le moins de cartes avec ancre (que le joueur garde pour ses ports),
+     * puis le moins de cartes, puis le moins de cartes bateau doubles.
+     *
+     * @param posees les cartes déjà posées (liste vide si le paiement n'est pas commencé)
+     * @param main   les cartes en main
+     * @return les cartes de la main à ajouter aux cartes posées pour terminer le paiement (liste vide si les
+     * cartes posées suffisent), ou null si le paiement ne peut pas être terminé
+     */
+    public static List<CarteTransport> meilleurPaiementRoute(Route route, List<CarteTransport> posees,
+                                                             List<CarteTransport> main) {
+        return meilleurPaiement(route, posees, main);
+    }
+
+    /**
+     * Cherche le meilleur paiement d'un port qui contient les cartes déjà posées (mêmes critères que
+     * meilleurPaiementRoute())
+     */
+    public static List<CarteTransport> meilleurPaiementPort(List<CarteTransport> posees,
+                                                            List<CarteTransport> main) {
+        return meilleurPaiement(null, posees, main);
+    }
+
+    private static List<List<CarteTransport>> paiements(Route route, List<CarteTransport> main) {
+        List<List<CarteTransport>> paiements = new ArrayList<>();
+        Comptes comptesMain = new Comptes(main);
+        if (!existeCompletion(route, AUCUNE_CARTE, comptesMain)) {
+            return paiements;
+        }
+        List<CarteTransport> triees = cartesUtiles(route, main);
+        if (route instanceof RoutePaire) {
+            paiements.add(new Recherche(route, AUCUNE_CARTE, triees).chercher());
+            return paiements;
+        }
+        for (Couleur couleur : Couleur.values()) {
+            if (couleur != Couleur.GRIS && (route == null || route.getCouleur() == Couleur.GRIS
+                    || route.getCouleur() == couleur)) {
+                Recherche recherche = new Recherche(route, AUCUNE_CARTE, cartesDeCouleur(triees, couleur));
+                List<CarteTransport> paiement = recherche.chercher();
+                if (paiement != null) {
+                    paiements.add(paiement);
+                }
+            }
+        }
+        return paiements;
+    }
+
+    private static List<CarteTransport> meilleurPaiement(Route route, List<CarteTransport> posees,
+                                                         List<CarteTransport> main) {
+        Comptes comptesPosees = new Comptes(posees);
+        if (!existeCompletion(route, comptesPosees, new Comptes(main))) {
+            return null;
+        }
+        List<CarteTransport> triees = cartesUtiles(route, main);
+        if (route instanceof RoutePaire) {
+            return new Recherche(route, comptesPosees, triees).chercher();
+        }
+        Recherche meilleure = null;
+        for (Couleur couleur : Couleur.values()) {
+            if (couleur == Couleur.GRIS) {
+                continue;
+            }
+            Recherche recherche = new Recherche(route, comptesPosees, cartesDeCouleur(triees, couleur));
+            if (recherche.chercher() != null && (meilleure == null || recherche.meilleurCout < meilleure.meilleurCout)) {
+                meilleure = recherche;
+            }
+        }
+        return meilleure == null ? null : meilleure.chercher();
+    }
+
+    /**
+     * @return les cartes de la main qui peuvent servir à payer la route (ou le port si route est null), triées
+     * dans l'ordre ORDRE_PAIEMENT
+     */
+    private static List<CarteTransport> cartesUtiles(Route route, List<CarteTransport> main) {
+        List<CarteTransport> cartes = new ArrayList<>();
+        for (CarteTransport carte : main) {
+            boolean utile = carte.getType() == TypeCarteTransport.JOKER
+                    || (route == null ? carte.getAncre()
+                    : route instanceof RouteMaritime ? carte.getType() == TypeCarteTransport.BATEAU
+                    : carte.getType() == TypeCarteTransport.WAGON);
+            if (utile) {
+                cartes.add(carte);
+            }
+        }
+        cartes.sort(ORDRE_PAIEMENT);
+        return cartes;
+    }
+
+    /**
+     * @return les cartes de la couleur et les jokers (dans le même ordre)
+     */
+    private static List<CarteTransport> cartesDeCouleur(List<CarteTransport> cartes, Couleur couleur) {
+        List<CarteTransport> resultat = new ArrayList<>();
+        for (CarteTransport carte : cartes) {
+            if (carte.getCouleur() == couleur || carte.getType() == TypeCarteTransport.JOKER) {
+                resultat.add(carte);
+            }
+        }
+        return resultat;
+    }
+
+    /**
+     * Ordre des cartes dans les paiements proposés : les jokers en dernier, et les cartes sans ancre avant les
+     * cartes avec ancre (à sorte égale)
+     */
+    private static final Comparator<CarteTransport> ORDRE_PAIEMENT = Comparator
+            .comparing((CarteTransport carte) -> carte.getType() == TypeCarteTransport.JOKER)
+            .thenComparing(CarteTransport::getCouleur)
+            .thenComparing(CarteTransport::getType)
+            .thenComparing(CarteTransport::estDouble)
+            .thenComparing(CarteTransport::getAncre);
+
+    /**
+     * Recherche exhaustive du meilleur paiement parmi des cartes triées dans l'ordre ORDRE_PAIEMENT.
+     *
+     * Les cartes sont regroupées par sorte sans tenir compte de l'ancre (type, couleur, double ou non) : deux
+     * paiements qui ne diffèrent que par l'ancre des cartes choisies sont soit tous les deux valides, soit aucun
+     * (sauf pour un port, où seules les cartes avec ancre sont proposées). Il suffit donc de choisir combien de
+     * cartes prendre dans chaque groupe, en prenant les cartes sans ancre en premier. Le nombre de cartes d'un
+     * paiement est borné par la longueur de la route (deux fois pour une route paire, 4 pour un port), ce qui
+     * borne la recherche ; chaque choix complet est vérifié par existeCompletion().
+     */
+    private static final class Recherche {
+        private final Route route;
+        /**
+         * Cartes posées et cartes choisies jusqu'ici
+         */
+        private final Comptes essai;
+        private final List<List<CarteTransport>> groupes = new ArrayList<>();
+        private final int[] sansAncre;
+        private final int[] choix;
+        private final int nbMax;
+        private int[] meilleurChoix;
+        private long meilleurCout = Long.MAX_VALUE;
+        private boolean cherche;
+
+        private Recherche(Route route, Comptes posees, List<CarteTransport> cartes) {
+            this.route = route;
+            this.essai = posees.copie();
+            CarteTransport precedente = null;
+            for (CarteTransport carte : cartes) {
+                if (precedente == null || carte.getType() != precedente.getType()
+                        || carte.getCouleur() != precedente.getCouleur()
+                        || carte.estDouble() != precedente.estDouble()) {
+                    groupes.add(new ArrayList<>());
+                }
+                groupes.get(groupes.size() - 1).add(carte);
+                precedente = carte;
+            }
+            sansAncre = new int[groupes.size()];
+            for (int g = 0; g < groupes.size(); g++) {
+                for (CarteTransport carte : groupes.get(g)) {
+                    if (!carte.getAncre()) {
+                        sansAncre[g]++;
+                    }
+                }
+            }
+            choix = new int[groupes.size()];
+            int nbCartes = route == null ? PRIX_PORT
+                    : route instanceof RoutePaire ? 2 * route.getLongueur() : route.getLongueur();
+            nbMax = nbCartes - posees.total;
+        }
+
+        /**
+         * @return les cartes du meilleur paiement, ou null s'il n'y en a pas
+         */
+        private List<CarteTransport> chercher() {
+            if (!cherche) {
+                cherche = true;
+                if (nbMax >= 0) {
+                    chercher(0, nbMax);
+                }
+            }
+            if (meilleurChoix == null) {
+                return null;
+            }
+            List<CarteTransport> paiement = new ArrayList<>();
+            for (int g = 0; g < groupes.size(); g++) {
+                paiement.addAll(groupes.get(g).subList(0, meilleurChoix[g]));
+            }
+            return paiement;
+        }
+
+        private void chercher(int g, int restant) {
+            if (g == groupes.size()) {
+                // seul un paiement maritime fait uniquement de doubles peut avoir moins de cartes que le maximum
+                if ((restant == 0 || route instanceof RouteMaritime) && existeCompletion(route, essai, AUCUNE_CARTE)) {
+                    long cout = cout();
+                    if (cout < meilleurCout) {
+                        meilleurCout = cout;
+                        meilleurChoix = choix.clone();
+                    }
+                }
+                return;
+            }
+            List<CarteTransport> groupe = groupes.get(g);
+            chercher(g + 1, restant);
+            int n = 0;
+            while (n < groupe.size() && n < restant) {
+                essai.ajouter(groupe.get(n), 1);
+                n++;
+                choix[g] = n;
+                chercher(g + 1, restant - n);
+            }
+            for (int i = 0; i < n; i++) {
+                essai.ajouter(groupe.get(i), -1);
+            }
+            choix[g] = 0;
+        }
+
+        /**
+         * @return le coût du choix courant (jokers, puis cartes avec ancre, puis cartes, puis doubles), comparable
+         * dans l'ordre lexicographique
+         */
+        private long cout() {
+            long jokers = 0, ancres = 0, cartes = 0, doubles = 0;
+            for (int g = 0; g < groupes.size(); g++) {
+                CarteTransport carte = groupes.get(g).get(0);
+                if (carte.getType() == TypeCarteTransport.JOKER) {
+                    jokers += choix[g];
+                }
+                if (carte.estDouble()) {
+                    doubles += choix[g];
+                }
+                ancres += Math.max(0, choix[g] - sansAncre[g]);
+                cartes += choix[g];
+            }
+            return ((jokers * 64 + ancres) * 64 + cartes) * 64 + doubles;
+        }
+    }
+
+    private static boolean peutAjouterCarte(Route route, List<CarteTransport> posees,
+                                            List<CarteTransport> main, CarteTransport carte) {
+        Comptes comptesPosees = new Comptes(posees);
+        comptesPosees.ajouter(carte, 1);
+        Comptes comptesMain = new Comptes(main);
+        comptesMain.ajouter(carte, -1);
+        return existeCompletion(route, comptesPosees, comptesMain);
+    }
+
+    /**
+     * Cherche un paiement valide et minimal contenant toutes les cartes posées et complété par des cartes de la
+     * main.
+     *
+     * @param route  la route à payer (null pour un port)
+     * @param posees les cartes déjà posées
+     * @param main   les cartes disponibles pour compléter le paiement
+     */
+    private static boolean existeCompletion(Route route, Comptes posees, Comptes main) {
+        if (route instanceof RoutePaire) {
+            return completionPaire(route.getLongueur(), posees, main);
+        }
+        for (Couleur couleur : Couleur.values()) {
+            if (couleur == Couleur.GRIS
+                    || route != null && route.getCouleur() != Couleur.GRIS && route.getCouleur() != couleur) {
+                continue;
+            }
+            int c = couleur.ordinal();
+            boolean possible;
+            if (route == null) {
+                possible = completionPort(c, posees, main);
+            } else if (route instanceof RouteMaritime) {
+                possible = completionMaritime(route.getLongueur(), c, posees, main);
+            } else {
+                possible = completionTerrestre(route.getLongueur(), c, posees, main);
+            }
+            if (possible) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Route terrestre : exactement `longueur` cartes wagon de la couleur (ou jokers)
+     */
+    private static boolean completionTerrestre(int longueur, int c, Comptes posees, Comptes main) {
+        int n = posees.total;
+        return n == posees.wagons[c] + posees.jokers
+                && n <= longueur
+                && n + main.wagons[c] + main.jokers >= longueur;
+    }
+
+    /**
+     * Route maritime : cartes bateau de la couleur (les doubles comptent pour 2) ou jokers, pour une valeur égale
+     * à la longueur de la route. La valeur peut dépasser la longueur d'une unité uniquement si le paiement n'est
+     * fait que de doubles (sinon une carte serait inutile).
+     */
+    private static boolean completionMaritime(int longueur, int c, Comptes posees, Comptes main) {
+        if (posees.total != posees.bateauxSimples[c] + posees.bateauxDoubles[c] + posees.jokers) {
+            return false;
+        }
+        int simplesMin = posees.bateauxSimples[c];
+        int simplesMax = simplesMin + main.bateauxSimples[c];
+        for (int d = posees.bateauxDoubles[c]; d <= posees.bateauxDoubles[c] + main.bateauxDoubles[c]; d++) {
+            for (int j = posees.jokers; j <= posees.jokers + main.jokers; j++) {
+                int simples = longueur - 2 * d - j;
+                if (simples >= simplesMin && simples <= simplesMax) {
+                    return true;
+                }
+                if (simplesMin == 0 && j == 0 && d > 0 && 2 * d == longueur + 1) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Route paire : `longueur` paires de cartes wagon, chaque paire étant de la même couleur (les jokers
+     * remplacent n'importe quelle carte)
+     */
+    private static boolean completionPaire(int longueur, Comptes posees, Comptes main) {
+        int nbCartes = 2 * longueur;
+        int wagonsPoses = 0;
+        for (int c = 0; c < NB_COULEURS; c++) {
+            wagonsPoses += posees.wagons[c];
+        }
+        if (posees.total != wagonsPoses + posees.jokers || posees.total > nbCartes) {
+            return false;
+        }
+        if (main.total == 0) {
+            // paiement terminé : chaque couleur en nombre impair est complétée par un joker
+            int impairs = 0;
+            for (int c = 0; c < NB_COULEURS; c++) {
+                impairs += posees.wagons[c] % 2;
+            }
+            return posees.total == nbCartes && impairs <= posees.jokers;
+        }
+        // atteignable[s][i] : on peut choisir s cartes wagon (posées comprises) dont i couleurs en nombre impair
+        boolean[][] atteignable = new boolean[nbCartes + 1][NB_COULEURS + 1];
+        atteignable[0][0] = true;
+        for (int c = 0; c < NB_COULEURS; c++) {
+            boolean[][] suivant = new boolean[nbCartes + 1][NB_COULEURS + 1];
+            int min = posees.wagons[c];
+            int max = Math.min(nbCartes, min + main.wagons[c]);
+            for (int s = 0; s <= nbCartes; s++) {
+                for (int i = 0; i <= c; i++) {
+                    if (!atteignable[s][i]) {
+                        continue;
+                    }
+                    for (int f = min; f <= max && s + f <= nbCartes; f++) {
+                        suivant[s + f][i + f % 2] = true;
+                    }
+                }
+            }
+            atteignable = suivant;
+        }
+        for (int j = posees.jokers; j <= posees.jokers + main.jokers && j <= nbCartes; j++) {
+            // chaque couleur en nombre impair est complétée par un joker
+            for (int i = 0; i <= Math.min(j, NB_COULEURS); i++) {
+                if (atteignable[nbCartes - j][i]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Port : 2 cartes wagon et 2 cartes bateau avec une ancre, toutes de la même couleur (les jokers remplacent
+     * n'importe laquelle de ces cartes)
+     */
+    private static boolean completionPort(int c, Comptes posees, Comptes main) {
+        int wagonsPoses = posees.wagonsAncre[c];
+        int bateauxPoses = posees.bateauxAncre[c];
+        if (posees.total != wagonsPoses + bateauxPoses + posees.jokers) {
+            return false;
+        }
+        for (int w = wagonsPoses; w <= Math.min(2, wagonsPoses + main.wagonsAncre[c]); w++) {
+            for (int b = bateauxPoses; b <= Math.min(2, bateauxPoses + main.bateauxAncre[c]); b++) {
+                int jokers = PRIX_PORT - w - b;
+                if (jokers >= posees.jokers && jokers <= posees.jokers + main.jokers) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Nombre de cartes de chaque sorte utile au paiement, par couleur
+     */
+    private static final class Comptes {
+        private final int[] wagons = new int[NB_COULEURS];
+        private final int[] wagonsAncre = new int[NB_COULEURS];
+        private final int[] bateauxSimples = new int[NB_COULEURS];
+        private final int[] bateauxDoubles = new int[NB_COULEURS];
+        private final int[] bateauxAncre = new int[NB_COULEURS];
+        private int jokers;
+        private int total;
+
+        private Comptes() {
+        }
+
+        private Comptes(List<CarteTransport> cartes) {
+            if (cartes instanceof MainCartes main) {
+                // nombres déjà tenus à jour par la main, sans la parcourir
+                for (Couleur couleur : Couleur.values()) {
+                    int c = couleur.ordinal();
+                    wagons[c] = main.nombre(TypeCarteTransport.WAGON, couleur);
+                    wagonsAncre[c] = main.nombre(TypeCarteTransport.WAGON, couleur, false, true)
+                            + main.nombre(TypeCarteTransport.WAGON, couleur, true, true);
+                    bateauxSimples[c] = main.nombre(TypeCarteTransport.BATEAU, couleur, false);
+                    bateauxDoubles[c] = main.nombre(TypeCarteTransport.BATEAU, couleur, true);
+                    bateauxAncre[c] = main.nombre(TypeCarteTransport.BATEAU, couleur, false, true)
+                            + main.nombre(TypeCarteTransport.BATEAU, couleur, true, true);
+                }
+                jokers = main.nombre(TypeCarteTransport.JOKER);
+                total = main.size();
+                return;
+            }
+            for (CarteTransport carte : cartes) {
+                ajouter(carte, 1);
+            }
+        }
+
+        private Comptes copie() {
+            Comptes copie = new Comptes();
+            System.arraycopy(wagons, 0, copie.wagons, 0, NB_COULEURS);
+            System.arraycopy(wagonsAncre, 0, copie.wagonsAncre, 0, NB_COULEURS);
+            System.arraycopy(bateauxSimples, 0, copie.bateauxSimples, 0, NB_COULEURS);
+            System.arraycopy(bateauxDoubles, 0, copie.bateauxDoubles, 0, NB_COULEURS);
+            System.arraycopy(bateauxAncre, 0, copie.bateauxAncre, 0, NB_COULEURS);
+            copie.jokers = jokers;
+            copie.total = total;
+            return copie;
+        }
+
+        private void ajouter(CarteTransport carte, int n) {
+            int c = carte.getCouleur().ordinal();
+            total += n;
+            if (carte.getType() == TypeCarteTransport.JOKER) {
+                jokers += n;
+            } else if (carte.getType() == TypeCarteTransport.WAGON) {
+                wagons[c] += n;
+                if (carte.getAncre()) {
+                    wagonsAncre[c] += n;
+                }
+            } else {
+                if (carte.estDouble()) {
+                    bateauxDoubles[c] += n;
+                } else {
+                    bateauxSimples[c] += n;
+                }
+                if (carte.getAncre()) {
+                    bateauxAncre[c] += n;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package fr.umontpellier.iut.rails;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Reconstruit une partie à partir de son journal (voir Journal) : une nouvelle partie est créée avec la même graine
+ * et les mêmes joueurs, en mode sans affichage, puis les entrées du journal sont rejouées par un MoteurPartie.
+ *
+ * Utilisé pour reproduire une partie archivée jusqu'à un tour donné, ou pour vérifier que des parties archivées se
+ * rejouent toujours (tests de non-régression), par exemple :
+ * `java fr.umontpellier.iut.rails.Rejoueur journaux/` rejoue tous les fichiers .journal du répertoire.
+ */
+public final class Rejoueur {
+    private Rejoueur() {
+    }
+
+    /**
+     * Rejoue toutes les entrées du journal
+     *
+     * @return le moteur de la partie reconstruite
+     * @throws IllegalStateException si une entrée du journal est refusée par le moteur
+     */
+    public static MoteurPartie rejouer(Journal journal) {
+        return rejouer(journal, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Rejoue les entrées du journal jusqu'au début du tour donné (les tours de mise en place comptent, voir
+     * MoteurPartie.getNbTours()), ou jusqu'à la fin du journal
+     *
+     * @return le moteur de la partie reconstruite
+     * @throws IllegalStateException si une entrée du journal est refusée par le moteur
+     */
+    public static MoteurPartie rejouer(Journal journal, int nbTours) {
+        Jeu jeu = new Jeu(journal.getNomJoueurs(), journal.getGraine());
+        jeu.setSansAffichage(true);
+        MoteurPartie moteur = new MoteurPartie(jeu);
+        moteur.demarrer();
+        List<String> entrees = journal.getEntrees();
+        for (int i = 0; i < entrees.size() && moteur.getNbTours() < nbTours; i++) {
+            String entree = entrees.get(i);
+            if (!moteur.traiterEntreeJournal(entree)) {
+                throw new IllegalStateException(String.format("Entrée %d du journal refusée : \"%s\"", i, entree));
+            }
+        }
+        return moteur;
+    }
+
+    /**
+     * Rejoue les journaux (fichiers .journal) du répertoire donné et affiche le débit obtenu et les journaux qui
+     * ne se rejouent plus. Sans argument, rejoue les journaux de 1000 parties simulées entre bots aléatoires.
+     */
+    public static void main(String[] args) throws IOException {
+        List<Journal> journaux = new ArrayList<>();
+        List<String> noms = new ArrayList<>();
+        if (args.length > 0) {
+            try (Stream<Path> fichiers = Files.list(Path.of(args[0]))) {
+                for (Path fichier : fichiers.filter(f -> f.toString().endsWith(".journal")).sorted().toList()) {
+                    journaux.add(Journal.importer(Files.readString(fichier)));
+                    noms.add(fichier.getFileName().toString());
+                }
+            }
+        } else {
+            String[] nomJoueurs = {"Guybrush", "Largo", "LeChuck", "Elaine"};
+            for (int i = 0; i < 1000; i++) {
+                Simulation simulation = new Simulation(nomJoueurs, i, new DecideurAleatoire(i));
+                simulation.jouer();
+                journaux.add(Journal.importer(simulation.getMoteur().getJeu().getJournal().exporter()));
+                noms.add("simulation " + i);
+            }
+        }
+        int nbEchecs = 0;
+        long nbEntrees = 0;
+        long debut = System.nanoTime();
+        for (int i = 0; i < journaux.size(); i++) {
+            try {
+                rejouer(journaux.get(i));
+                nbEntrees += journaux.get(i).taille();
+            } catch (IllegalStateException e) {
+                nbEchecs++;
+                System.out.println(noms.get(i) + " : " + e.getMessage());
+            }
+        }
+        double secondes = (System.nanoTime() - debut) / 1e9;
+        System.out.printf("%d parties rejouées (%d échecs) en %.2f s : %.0f parties/s, %.0f entrées/s%n",
+                journaux.size(), nbEchecs, secondes, journaux.size() / secondes, nbEntrees / secondes);
+    }
+}
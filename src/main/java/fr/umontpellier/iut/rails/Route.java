@@ -1,6 +1,7 @@
 package fr.umontpellier.iut.rails;
 
 import fr.umontpellier.iut.rails.data.Couleur;
+import fr.umontpellier.iut.rails.data.Identifiants;
 import fr.umontpellier.iut.rails.data.Ville;
 
 public abstract class Route {
@@ -29,10 +30,15 @@ public abstract class Route {
      * double
      */
     private Route routeParallele = null;
+    /**
+     * Indice de la route sur son plateau (position dans Plateau.getRoutes()), ou -1 si la route n'est sur aucun
+     * plateau
+     */
+    private int indice = -1;
 
     /**
      * Compteur du nombre de routes instanciées (utilisé pour donner automatiquement
-     * un id unique à chaque route)
+     * un id unique à chaque route en dehors de la construction du plateau, voir Identifiants)
      * Vous ne devez pas toucher à cet attribut qui est utilisé pour les interfaces (console et web)
      */
     static private int compteur = 1;
@@ -42,7 +48,16 @@ public abstract class Route {
         this.ville2 = ville2;
         this.couleur = couleur;
         this.longueur = longueur;
-        this.nom = "R" + compteur++;
+        int numero = Identifiants.prochaineRoute();
+        this.nom = "R" + (numero < 0 ? prochainNumero() : numero);
+    }
+
+    /**
+     * @return le prochain numéro de route hors d'une construction de plateau (les routes peuvent être créées en même
+     * temps sur plusieurs threads)
+     */
+    private static synchronized int prochainNumero() {
+        return compteur++;
     }
 
     public Ville getVille1() {
@@ -83,10 +98,36 @@ public abstract class Route {
         return routeParallele;
     }
 
+    /**
+     * Fixe la route parallèle (une seule fois, à la construction du plateau : les routes du plateau du monde sont
+     * partagées par toutes les parties)
+     *
+     * @throws IllegalStateException si la route a déjà une autre route parallèle
+     */
     public void setRouteParallele(Route route) {
+        if (routeParallele != null && routeParallele != route) {
+            throw new IllegalStateException("La route " + nom + " a déjà une route parallèle");
+        }
         this.routeParallele = route;
     }
 
+    public int getIndice() {
+        return indice;
+    }
+
+    /**
+     * Fixe l'indice de la route sur son plateau (une seule fois, par le constructeur du plateau : une route
+     * appartient à un seul plateau)
+     *
+     * @throws IllegalStateException si la route est déjà sur un plateau
+     */
+    public void setIndice(int indice) {
+        if (this.indice >= 0) {
+            throw new IllegalStateException("La route " + nom + " est déjà sur un plateau");
+        }
+        this.indice = indice;
+    }
+
     public String toLog() {
         return String.format("<span class=\"route %s\">%s - %s</span>",
         getCouleur().name().toLowerCase(),
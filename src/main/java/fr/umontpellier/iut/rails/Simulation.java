@@ -0,0 +1,122 @@
+package fr.umontpellier.iut.rails;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Partie simulée sans affichage : le jeu est en mode sans affichage (aucun prompt n'est préparé, affiché ou
+ * diffusé) et les questions du MoteurPartie sont posées à des décideurs au lieu de joueurs humains.
+ *
+ * Utilisé pour jouer un grand nombre de parties automatiques (équilibrage, bots), par exemple :
+ * `java fr.umontpellier.iut.rails.Simulation 10000 42` joue 10000 parties entre bots aléatoires (graine 42).
+ */
+public class Simulation {
+    /**
+     * Nombre maximal d'actions par défaut, au-delà duquel une partie est abandonnée
+     */
+    public static final int NB_ACTIONS_MAX = 100_000;
+
+    /**
+     * Résultat d'une partie simulée
+     *
+     * @param terminee          true si la partie est allée jusqu'à la fin (sinon elle a été abandonnée parce qu'un
+     *                          décideur n'a trouvé aucune action, ou après le nombre maximal d'actions)
+     * @param nbTours           nombre de tours joués (mise en place comprise)
+     * @param nbActions         nombre d'actions envoyées au moteur
+     * @param nbActionsRefusees nombre d'actions refusées par le moteur
+     * @param scores            score final de chaque joueur, dans l'ordre des joueurs
+     */
+    public record Resultat(boolean terminee, int nbTours, int nbActions, int nbActionsRefusees,
+                           List<Integer> scores) {
+    }
+
+    private final MoteurPartie moteur;
+    private final Decideur[] decideurs;
+
+    /**
+     * @param nomJoueurs noms des joueurs de la partie
+     * @param decideurs  décideur de chaque joueur (dans l'ordre des joueurs), ou un seul décideur pour tous les
+     *                   joueurs
+     */
+    public Simulation(String[] nomJoueurs, Decideur... decideurs) {
+        this(nomJoueurs, new Jeu(nomJoueurs), decideurs);
+    }
+
+    /**
+     * @param graine graine du générateur aléatoire de la partie : avec la même graine et des décideurs
+     *               déterministes, la partie simulée est toujours la même
+     */
+    public Simulation(String[] nomJoueurs, long graine, Decideur... decideurs) {
+        this(nomJoueurs, new Jeu(nomJoueurs, graine), decideurs);
+    }
+
+    private Simulation(String[] nomJoueurs, Jeu jeu, Decideur... decideurs) {
+        if (decideurs.length != 1 && decideurs.length != nomJoueurs.length) {
+            throw new IllegalArgumentException("Il faut un décideur par joueur, ou un seul pour tous les joueurs");
+        }
+        jeu.setSansAffichage(true);
+        this.moteur = new MoteurPartie(jeu);
+        this.decideurs = decideurs;
+    }
+
+    public MoteurPartie getMoteur() {
+        return moteur;
+    }
+
+    public Resultat jouer() {
+        return jouer(NB_ACTIONS_MAX);
+    }
+
+    /**
+     * Joue la partie jusqu'à la fin, jusqu'à ce qu'un décideur ne trouve plus d'action, ou jusqu'au nombre
+     * maximal d'actions
+     */
+    public Resultat jouer(int nbActionsMax) {
+        Jeu jeu = moteur.getJeu();
+        moteur.demarrer();
+        int nbActions = 0;
+        int nbRefusees = 0;
+        while (!moteur.estTerminee() && nbActions < nbActionsMax) {
+            Decideur decideur = decideurs.length == 1
+                    ? decideurs[0]
+                    : decideurs[jeu.getJoueurs().indexOf(jeu.getJoueurCourant())];
+            Action action = decideur.choisir(moteur);
+            if (action == null) {
+                break;
+            }
+            nbActions++;
+            if (!moteur.appliquer(action)) {
+                nbRefusees++;
+            }
+        }
+        List<Integer> scores = new ArrayList<>();
+        for (Joueur joueur : jeu.getJoueurs()) {
+            scores.add(joueur.calculerScoreFinal());
+        }
+        return new Resultat(moteur.estTerminee(), moteur.getNbTours(), nbActions, nbRefusees, scores);
+    }
+
+    /**
+     * Joue des parties entre bots aléatoires et affiche le débit obtenu
+     *
+     * @param args nombre de parties (1000 par défaut) et graine des parties et des bots (0 par défaut)
+     */
+    public static void main(String[] args) {
+        int nbParties = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        long graine = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        String[] nomJoueurs = {"Guybrush", "Largo", "LeChuck", "Elaine"};
+        int nbTerminees = 0;
+        long nbTours = 0;
+        long debut = System.nanoTime();
+        for (int i = 0; i < nbParties; i++) {
+            Resultat resultat = new Simulation(nomJoueurs, graine + i, new DecideurAleatoire(graine + i)).jouer();
+            if (resultat.terminee()) {
+                nbTerminees++;
+            }
+            nbTours += resultat.nbTours();
+        }
+        double secondes = (System.nanoTime() - debut) / 1e9;
+        System.out.printf("%d parties (%d terminées) en %.2f s : %.0f parties/s, %.1f tours par partie%n",
+                nbParties, nbTerminees, secondes, nbParties / secondes, (double) nbTours / nbParties);
+    }
+}
@@ -0,0 +1,153 @@
+package fr.umontpellier.iut.rails;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Sortie qui écrit dans son propre thread.
+ *
+ * Le thread de la partie ne fait que préparer l'affichage (preparer(), par exemple le texte ou l'instantané de
+ * l'état à écrire) et le placer dans une file. Le thread de la sortie, démarré au premier affichage, écrit par
+ * lots tous les affichages en attente (ecrire()). La file est bornée : si la sortie n'arrive pas à suivre, les
+ * affichages les plus anciens sont abandonnés.
+ *
+ * @param <T> le type des affichages préparés
+ */
+public abstract class SortieAsynchrone<T> implements SortieJeu {
+    /**
+     * Nombre maximal d'affichages en attente
+     */
+    public static final int CAPACITE = 64;
+
+    private final ThreadFactory fabrique;
+    private final ArrayDeque<T> enAttente;
+    private Thread thread;
+    private boolean fermee;
+    private long nbAbandonnes;
+
+    /**
+     * Sortie écrite par un thread plateforme (daemon)
+     */
+    protected SortieAsynchrone() {
+        this(r -> {
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param fabrique fabrique du thread de la sortie
+     */
+    protected SortieAsynchrone(ThreadFactory fabrique) {
+        this.fabrique = fabrique;
+        this.enAttente = new ArrayDeque<>();
+    }
+
+    /**
+     * Prépare l'affichage d'une question (appelée par le thread de la partie, l'état de la partie ne doit pas être
+     * lu après le retour de la méthode)
+     */
+    protected abstract T preparer(Jeu jeu, String instruction, Collection<Bouton> boutons);
+
+    /**
+     * Écrit un lot d'affichages, dans l'ordre où ils ont été préparés (appelée par le thread de la sortie)
+     */
+    protected abstract void ecrire(List<T> lot) throws Exception;
+
+    /**
+     * Libère les ressources de la sortie, après l'écriture du dernier lot (appelée par le thread de la sortie)
+     */
+    protected void terminer() throws Exception {
+    }
+
+    @Override
+    public final void afficher(Jeu jeu, String instruction, Collection<Bouton> boutons) {
+        T affichage = preparer(jeu, instruction, boutons);
+        synchronized (this) {
+            if (fermee) {
+                return;
+            }
+            if (enAttente.size() >= CAPACITE) {
+                enAttente.poll();
+                nbAbandonnes++;
+            }
+            enAttente.add(affichage);
+            if (thread == null) {
+                thread = fabrique.newThread(this::boucle);
+                thread.setName("sortie-" + getClass().getSimpleName());
+                thread.start();
+            }
+            notifyAll();
+        }
+    }
+
+    private void boucle() {
+        while (true) {
+            List<T> lot;
+            synchronized (this) {
+                while (enAttente.isEmpty() && !fermee) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        fermee = true;
+                    }
+                }
+                if (enAttente.isEmpty()) {
+                    break;
+                }
+                lot = new ArrayList<>(enAttente);
+                enAttente.clear();
+            }
+            try {
+                ecrire(lot);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        try {
+            terminer();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Ferme la sortie et attend que son thread ait écrit les affichages en attente
+     */
+    @Override
+    public void fermer() {
+        Thread t;
+        synchronized (this) {
+            if (fermee) {
+                return;
+            }
+            fermee = true;
+            t = thread;
+            notifyAll();
+        }
+        if (t == null) {
+            try {
+                terminer();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+        try {
+            t.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return le nombre d'affichages abandonnés parce que la file était pleine
+     */
+    public synchronized long getNbAbandonnes() {
+        return nbAbandonnes;
+    }
+}
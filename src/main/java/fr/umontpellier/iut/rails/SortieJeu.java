@@ -0,0 +1,33 @@
+package fr.umontpellier.iut.rails;
+
+import java.util.Collection;
+
+/**
+ * Sortie d'une partie : reçoit chaque question posée aux joueurs (Jeu.prompt()), pour l'afficher sur la console,
+ * l'écrire dans un fichier ou diffuser l'état de la partie aux clients du serveur (voir Jeu.ajouterSortie()).
+ *
+ * afficher() est appelée par le thread de la partie, qui ne doit pas attendre l'écriture : une sortie lente copie
+ * ce dont elle a besoin et écrit dans son propre thread (voir SortieAsynchrone).
+ */
+public interface SortieJeu {
+    /**
+     * Sortie qui n'affiche rien
+     */
+    SortieJeu AUCUNE = (jeu, instruction, boutons) -> {
+    };
+
+    /**
+     * Reçoit une question posée au joueur courant
+     *
+     * @param jeu         la partie, dans l'état où la question est posée
+     * @param instruction l'instruction donnée au joueur
+     * @param boutons     les choix proposés s'il y en a
+     */
+    void afficher(Jeu jeu, String instruction, Collection<Bouton> boutons);
+
+    /**
+     * Termine la sortie (les affichages reçus avant l'appel sont écrits)
+     */
+    default void fermer() {
+    }
+}
@@ -0,0 +1,72 @@
+package fr.umontpellier.iut.rails;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Sortie texte d'une partie (console ou fichier) : avant chaque question, l'état des joueurs puis la question
+ * posée au joueur courant, par exemple ">>> Guybrush: Quelle carte voulez-vous piocher ? [Passer] <<<".
+ *
+ * Le texte est construit par le thread de la partie, et chaque lot est écrit d'un seul bloc par le thread de la
+ * sortie.
+ */
+public class SortieTexte extends SortieAsynchrone<String> {
+    private final Writer flux;
+    /**
+     * Indique si le flux doit être fermé avec la sortie (false pour la console)
+     */
+    private final boolean fermerFlux;
+
+    public SortieTexte(Writer flux, boolean fermerFlux) {
+        this.flux = flux;
+        this.fermerFlux = fermerFlux;
+    }
+
+    /**
+     * @return une sortie sur la sortie standard
+     */
+    public static SortieTexte console() {
+        return new SortieTexte(new OutputStreamWriter(System.out), false);
+    }
+
+    /**
+     * @return une sortie qui écrit à la fin du fichier donné (créé s'il n'existe pas)
+     */
+    public static SortieTexte fichier(Path fichier) throws IOException {
+        return new SortieTexte(Files.newBufferedWriter(fichier, StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+                true);
+    }
+
+    @Override
+    protected String preparer(Jeu jeu, String instruction, Collection<Bouton> boutons) {
+        String nom = jeu.getJoueurCourant() == null ? "" : jeu.getJoueurCourant().getNom();
+        if (boutons.isEmpty()) {
+            return String.format("%n%s%n>>> %s: %s <<<\n", jeu, nom, instruction);
+        }
+        StringJoiner joiner = new StringJoiner(" / ");
+        for (Bouton bouton : boutons) {
+            joiner.add(bouton.toPrompt());
+        }
+        return String.format("%n%s%n>>> %s: %s [%s] <<<\n", jeu, nom, instruction, joiner);
+    }
+
+    @Override
+    protected void ecrire(List<String> lot) throws IOException {
+        flux.write(String.join("", lot));
+        flux.flush();
+    }
+
+    @Override
+    protected void terminer() throws IOException {
+        if (fermerFlux) {
+            flux.close();
+        }
+    }
+}
@@ -1,14 +1,12 @@
 package fr.umontpellier.iut.rails.data;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Arrays;
 
 public final class CarteTransport implements Comparable<CarteTransport> {
 
     /**
-     * Compteur du nombre de routes instanciées (utilisé pour donner automatiquement
-     * un id unique à chaque route)
+     * Compteur du nombre de cartes instanciées (utilisé pour donner automatiquement
+     * un id unique à chaque carte en dehors de la construction d'une partie, voir Identifiants)
      */
 
     private static int compteur = 1;
@@ -17,13 +15,69 @@ public final class CarteTransport implements Comparable<CarteTransport> {
     private final boolean estDouble;
     private final boolean ancre;
     private final String nom;
+    /**
+     * Sorte de la carte (objet partagé par toutes les cartes de même type, couleur, double et ancre). Les champs
+     * ajoutés sont transient : ils n'apparaissent pas dans l'état de la partie envoyé à l'interface graphique.
+     */
+    private final transient SorteCarte sorte;
+    /**
+     * Numéro de la carte (celui de son nom)
+     */
+    private final transient int numero;
+
+    /**
+     * Noms des cartes de numéro inférieur à NB_NOMS_PARTAGES, partagés par les cartes de toutes les parties (chaque
+     * partie numérote ses cartes à partir de 1, voir Identifiants)
+     */
+    private static final int NB_NOMS_PARTAGES = 512;
+    private static volatile String[] nomsPartages = new String[0];
 
     public CarteTransport(TypeCarteTransport type, Couleur couleur, boolean estDouble, boolean ancre) {
         this.type = type;
         this.couleur = couleur;
         this.estDouble = estDouble;
         this.ancre = ancre;
-        this.nom = "C" + compteur++;
+        this.sorte = SorteCarte.de(type, couleur, estDouble, ancre);
+        Identifiants identifiants = Identifiants.courant();
+        this.numero = identifiants == null ? prochainNumero() : identifiants.prochaineCarte();
+        this.nom = nom(numero);
+    }
+
+    private static String nom(int numero) {
+        String[] noms = nomsPartages;
+        if (numero < noms.length && noms[numero] != null) {
+            return noms[numero];
+        }
+        if (numero < 0 || numero >= NB_NOMS_PARTAGES) {
+            return "C" + numero;
+        }
+        return nouveauNom(numero);
+    }
+
+    private static synchronized String nouveauNom(int numero) {
+        String[] noms = nomsPartages;
+        if (numero >= noms.length) {
+            noms = Arrays.copyOf(noms, Math.min(NB_NOMS_PARTAGES, Math.max(numero + 1, 2 * noms.length)));
+        } else if (noms[numero] == null) {
+            noms = noms.clone();
+        } else {
+            return noms[numero];
+        }
+        noms[numero] = "C" + numero;
+        nomsPartages = noms;
+        return noms[numero];
+    }
+
+    private static synchronized int prochainNumero() {
+        return compteur++;
+    }
+
+    /**
+     * Avance le compteur jusqu'à la valeur donnée (il ne recule jamais, même si plusieurs parties sont construites
+     * en même temps)
+     */
+    static synchronized void avancerCompteur(int compteur) {
+        CarteTransport.compteur = Math.max(CarteTransport.compteur, compteur);
     }
 
     public TypeCarteTransport getType() {
@@ -46,57 +100,31 @@ public final class CarteTransport implements Comparable<CarteTransport> {
         return nom;
     }
 
+    public SorteCarte getSorte() {
+        return sorte;
+    }
+
+    public int getNumero() {
+        return numero;
+    }
+
     @Override
     public String toString() {
-        String label;
-        if (type == TypeCarteTransport.JOKER) {
-            label = "Joker";
-        } else if (type == TypeCarteTransport.BATEAU) {
-            if (estDouble) {
-                label = "Double";
-            } else {
-                label = "Bateau";
-            }
-        } else {
-            label = "Wagon";
-        }
-        return String.format("%s %s (%s)", label, couleur.name(), nom);
+        return sorte.getLabel() + " " + couleur.name() + " (" + nom + ")";
     }
 
     public String toLog() {
-        String label;
-        if (type == TypeCarteTransport.JOKER) {
-            label = "Joker";
-        } else if (type == TypeCarteTransport.BATEAU) {
-            if (estDouble) {
-                label = "Double";
-            } else {
-                label = "Bateau";
-            }
-        } else {
-            label = "Wagon";
-        }
-
-        return String.format(
-                "<img class=\"couleur\" src=\"images/symbole-%s.png\"><span class=\"nom-carte %s %s\">%s</span>",
-                couleur.name(), type.name().toLowerCase(), couleur.name().toLowerCase(), label);
+        return sorte.toLog();
     }
 
-
+    /**
+     * Compare les sortes (type, couleur, double, ancre, voir SorteCarte), puis les numéros des cartes
+     */
     @Override
     public int compareTo(CarteTransport carte) {
-        if (getType() != carte.getType()) {
-            return getType().compareTo(carte.getType());
-        }
-        if (getCouleur() != carte.getCouleur()) {
-            return getCouleur().compareTo(carte.getCouleur());
-        }
-        if (estDouble() != carte.estDouble()) {
-            return Boolean.compare(estDouble(), carte.estDouble());
-        }
-        if (getAncre() != carte.getAncre()) {
-            return Boolean.compare(getAncre(), carte.getAncre());
+        if (sorte != carte.sorte) {
+            return Integer.compare(sorte.indice(), carte.sorte.indice());
         }
-        return getNom().compareTo(carte.getNom());
+        return Integer.compare(numero, carte.numero);
     }
 }
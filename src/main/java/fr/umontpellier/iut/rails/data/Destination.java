@@ -30,7 +30,8 @@ public class Destination {
     private final String nom;
     /**
      * Compteur du nombre de destinations instanciées (utilisé pour donner
-     * automatiquement un id unique à chaque destination)
+     * automatiquement un id unique à chaque destination en dehors de la construction
+     * d'une partie, voir Identifiants)
      * Vous ne devez pas toucher à cet attribut qui est utilisé pour les interfaces
      * (console et web)
      */
@@ -56,16 +57,28 @@ public class Destination {
         return nom;
     }
 
-    public static int getCompteur() {
+    public static synchronized int getCompteur() {
         return compteur;
     }
 
+    private static synchronized int prochainNumero() {
+        return compteur++;
+    }
+
+    /**
+     * Avance le compteur jusqu'à la valeur donnée (voir CarteTransport.avancerCompteur())
+     */
+    static synchronized void avancerCompteur(int compteur) {
+        Destination.compteur = Math.max(Destination.compteur, compteur);
+    }
+
     public Destination(List<String> villes, int valeurSimple, int valeurMax, int penalite) {
         this.villes = villes;
         this.valeurSimple = valeurSimple;
         this.valeurMax = valeurMax;
         this.penalite = penalite;
-        this.nom = "D" + compteur++;
+        Identifiants identifiants = Identifiants.courant();
+        this.nom = "D" + (identifiants == null ? prochainNumero() : identifiants.prochaineDestination());
     }
 
     public Destination(String ville1, String ville2, int valeur) {
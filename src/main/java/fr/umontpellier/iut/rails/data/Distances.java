@@ -0,0 +1,173 @@
+package fr.umontpellier.iut.rails.data;
+
+import java.util.Arrays;
+
+import fr.umontpellier.iut.rails.Route;
+import fr.umontpellier.iut.rails.RouteMaritime;
+
+/**
+ * Table des plus courtes distances entre toutes les paires de villes du plateau, en nombre de segments (somme des
+ * longueurs des routes), en n'empruntant que les routes terrestres, que les routes maritimes, ou les deux.
+ *
+ * Les tables du plateau complet sont calculées une fois à la construction du plateau (voir
+ * Plateau.getDistance()). Une copie modifiable (Plateau.copierDistances()) peut ensuite être tenue à jour au fil
+ * d'une partie : lorsqu'une route devient inutilisable (prise par un adversaire), seules les lignes des villes
+ * dont tous les plus courts chemins vers une extrémité de la route l'empruntaient sont recalculées.
+ */
+public final class Distances {
+    /**
+     * Distance entre deux villes qui ne sont pas reliées
+     */
+    public static final int INFINI = Short.MAX_VALUE;
+
+    /**
+     * Routes que l'on peut emprunter
+     */
+    public enum Type {
+        TERRESTRE, MARITIME, MIXTE;
+
+        boolean accepte(Route route) {
+            return switch (this) {
+                case TERRESTRE -> !(route instanceof RouteMaritime);
+                case MARITIME -> route instanceof RouteMaritime;
+                case MIXTE -> true;
+            };
+        }
+    }
+
+    private final Plateau plateau;
+    private final int nbVilles;
+    /**
+     * Distances entre les villes d'indices i et j (dans Plateau.getVilles()) à l'indice i * nbVilles + j
+     */
+    private final short[] distances;
+    /**
+     * Routes utilisables (bitset indexé par Route.getIndice())
+     */
+    private final long[] routes;
+
+    /**
+     * Calcule la table de toutes les routes du type donné du plateau
+     */
+    Distances(Plateau plateau, Type type) {
+        this.plateau = plateau;
+        this.nbVilles = plateau.getVilles().size();
+        this.distances = new short[nbVilles * nbVilles];
+        this.routes = new long[(plateau.getRoutes().size() + 63) / 64];
+        for (Route route : plateau.getRoutes()) {
+            if (type.accepte(route)) {
+                routes[route.getIndice() >> 6] |= 1L << route.getIndice();
+            }
+        }
+        for (int source = 0; source < nbVilles; source++) {
+            calculerLigne(source);
+        }
+    }
+
+    private Distances(Distances table) {
+        this.plateau = table.plateau;
+        this.nbVilles = table.nbVilles;
+        this.distances = table.distances.clone();
+        this.routes = table.routes.clone();
+    }
+
+    /**
+     * @return une copie indépendante de la table
+     */
+    public Distances copie() {
+        return new Distances(this);
+    }
+
+    /**
+     * @return la distance entre les villes d'indices donnés (dans Plateau.getVilles()), ou INFINI
+     */
+    public int distance(int ville1, int ville2) {
+        return distances[ville1 * nbVilles + ville2];
+    }
+
+    /**
+     * @return la distance entre les deux villes, ou INFINI si elles ne sont pas reliées (ou pas sur le plateau)
+     */
+    public int distance(Ville ville1, Ville ville2) {
+        int indice1 = plateau.indiceVille(ville1);
+        int indice2 = plateau.indiceVille(ville2);
+        return indice1 < 0 || indice2 < 0 ? INFINI : distance(indice1, indice2);
+    }
+
+    /**
+     * Retire la route des routes utilisables et met à jour les distances qui pouvaient l'emprunter
+     *
+     * @return le nombre de lignes de la table recalculées
+     */
+    public int bloquerRoute(Route route) {
+        int indice = route.getIndice();
+        if (indice < 0 || (routes[indice >> 6] & (1L << indice)) == 0) {
+            return 0;
+        }
+        routes[indice >> 6] &= ~(1L << indice);
+        int ville1 = plateau.indiceVille1(indice);
+        int ville2 = plateau.indiceVille2(indice);
+        int longueur = route.getLongueur();
+        int nbLignes = 0;
+        for (int source = 0; source < nbVilles; source++) {
+            int d1 = distance(source, ville1);
+            int d2 = distance(source, ville2);
+            // la ligne ne change que si la route était le seul dernier pas d'un plus court chemin vers sa ville
+            // la plus éloignée de la source
+            if (d1 != INFINI && (d1 + longueur == d2 && !estAtteinteAutrement(source, ville2)
+                    || d2 + longueur == d1 && !estAtteinteAutrement(source, ville1))) {
+                calculerLigne(source);
+                nbLignes++;
+            }
+        }
+        return nbLignes;
+    }
+
+    /**
+     * @return true si une route utilisable est le dernier pas d'un plus court chemin de la source à la ville
+     */
+    private boolean estAtteinteAutrement(int source, int ville) {
+        for (int position = plateau.debutVoisins(ville); position < plateau.finVoisins(ville); position++) {
+            int route = plateau.routeVoisine(position);
+            if ((routes[route >> 6] & (1L << route)) != 0 && distance(source, plateau.voisin(position))
+                    + plateau.getRoutes().get(route).getLongueur() == distance(source, ville)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Calcule les distances depuis la ville source (algorithme de Dijkstra sur le graphe CSR du plateau, restreint
+     * aux routes utilisables, en temps quadratique en le nombre de villes)
+     */
+    private void calculerLigne(int source) {
+        int debut = source * nbVilles;
+        Arrays.fill(distances, debut, debut + nbVilles, (short) INFINI);
+        boolean[] fixees = new boolean[nbVilles];
+        distances[debut + source] = 0;
+        while (true) {
+            int ville = -1;
+            for (int i = 0; i < nbVilles; i++) {
+                if (!fixees[i] && distances[debut + i] != INFINI
+                        && (ville < 0 || distances[debut + i] < distances[debut + ville])) {
+                    ville = i;
+                }
+            }
+            if (ville < 0) {
+                break;
+            }
+            fixees[ville] = true;
+            for (int position = plateau.debutVoisins(ville); position < plateau.finVoisins(ville); position++) {
+                int route = plateau.routeVoisine(position);
+                if ((routes[route >> 6] & (1L << route)) != 0) {
+                    int cellule = debut + plateau.voisin(position);
+                    int d = distances[debut + ville] + plateau.getRoutes().get(route).getLongueur();
+                    if (d < distances[cellule]) {
+                        distances[cellule] = (short) d;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package fr.umontpellier.iut.rails.data;
+
+import java.util.function.Supplier;
+
+/**
+ * Allocation des numéros des cartes transport ("C12"), destinations ("D12") et routes ("R12") propre à une partie.
+ *
+ * Pendant la construction d'une partie (Jeu), un allocateur est installé sur le thread qui la construit : les
+ * objets de la partie sont toujours numérotés à partir de 1, quel que soit le nombre de parties créées auparavant
+ * ou en même temps sur d'autres threads. À la fin de la construction, les compteurs statiques des classes reprennent
+ * la numérotation de la partie s'ils sont en retard : les objets créés ensuite hors d'une construction (par exemple
+ * par les tests) sont numérotés à la suite des objets de la partie, sans jamais réutiliser un numéro déjà donné.
+ */
+public final class Identifiants {
+    private static final ThreadLocal<Identifiants> COURANT = new ThreadLocal<>();
+
+    private int prochaineCarte = 1;
+    private int prochaineDestination = 1;
+    private int prochaineRoute = 1;
+
+    private Identifiants() {
+    }
+
+    /**
+     * Installe un nouvel allocateur (numéros à partir de 1) sur le thread courant, au début de la construction
+     * d'une partie
+     */
+    public static void commencerPartie() {
+        COURANT.set(new Identifiants());
+    }
+
+    /**
+     * Retire l'allocateur du thread courant à la fin de la construction d'une partie (à appeler dans un bloc
+     * finally), et avance les compteurs statiques des cartes et destinations jusqu'à ses numéros
+     */
+    public static void terminerPartie() {
+        Identifiants identifiants = COURANT.get();
+        COURANT.remove();
+        if (identifiants != null) {
+            CarteTransport.avancerCompteur(identifiants.prochaineCarte);
+            Destination.avancerCompteur(identifiants.prochaineDestination);
+        }
+    }
+
+    /**
+     * Exécute la construction donnée avec un nouvel allocateur, puis réinstalle l'allocateur précédent du thread
+     * (utilisé pour les objets définis par le plateau, numérotés indépendamment des parties)
+     */
+    public static <T> T isoler(Supplier<T> construction) {
+        Identifiants precedent = COURANT.get();
+        COURANT.set(new Identifiants());
+        try {
+            return construction.get();
+        } finally {
+            if (precedent == null) {
+                COURANT.remove();
+            } else {
+                COURANT.set(precedent);
+            }
+        }
+    }
+
+    /**
+     * @return l'allocateur du thread courant, ou null si aucun n'est installé
+     */
+    static Identifiants courant() {
+        return COURANT.get();
+    }
+
+    /**
+     * @return le prochain numéro de route du thread courant, ou -1 si aucun allocateur n'est installé
+     */
+    public static int prochaineRoute() {
+        Identifiants identifiants = COURANT.get();
+        return identifiants == null ? -1 : identifiants.prochaineRoute++;
+    }
+
+    int prochaineCarte() {
+        return prochaineCarte++;
+    }
+
+    int prochaineDestination() {
+        return prochaineDestination++;
+    }
+}
@@ -6,11 +6,17 @@ import fr.umontpellier.iut.rails.RoutePaire;
 import fr.umontpellier.iut.rails.RouteTerrestre;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
+/**
+ * Plateau de jeu : villes et routes. Un plateau est immuable, et le plateau du monde (getPlateauMonde()) est
+ * construit une seule fois et partagé par toutes les parties : l'état propre à chaque partie (routes et ports
+ * libres, routes et ports des joueurs) est conservé par la partie, en désignant les routes et les villes par leur
+ * indice sur le plateau.
+ */
 public class Plateau {
     /**
      * Liste des villes
@@ -20,20 +26,316 @@ public class Plateau {
      * Liste des routes
      */
     private final List<Route> routes;
+    /**
+     * Liste des villes qui sont des ports
+     */
+    private final List<Ville> ports;
+    /**
+     * Index des villes et des routes par nom, et des villes et ports par valeur
+     */
+    private final Map<String, Ville> villesParNom;
+    private final Map<String, Route> routesParNom;
+    private final Map<Ville, Integer> indicesVilles;
+    private final Map<Ville, Integer> indicesPorts;
+    /**
+     * Masques sur les routes (bitsets indexés par Route.getIndice()) : routes reliées à chaque ville (par indice
+     * de ville), et routes doubles (qui ont une route parallèle)
+     */
+    private final long[][] routesParVille;
+    private final long[] routesDoubles;
+    /**
+     * Graphe des villes au format CSR : les voisins de la ville d'indice v (et les routes qui les relient) sont
+     * aux positions debutsVoisins[v] à debutsVoisins[v + 1] - 1 de voisins (et routesVoisines). Chaque route
+     * apparaît deux fois, une fois depuis chacune de ses villes.
+     */
+    private final int[] debutsVoisins;
+    private final int[] voisins;
+    private final int[] routesVoisines;
+    /**
+     * Indices des deux villes et type de chaque route (par indice de route)
+     */
+    private final int[] villes1;
+    private final int[] villes2;
+    private final TypeRoute[] typesRoutes;
+    /**
+     * Tables des distances entre villes sur le plateau complet, par type de route (indicées par
+     * Distances.Type.ordinal())
+     */
+    private final Distances[] distances;
 
+    /**
+     * Construit un plateau sur de nouvelles routes, dont il fixe les indices (Route.setIndice())
+     *
+     * @throws IllegalArgumentException si une des routes est déjà sur un plateau (ses indice et route parallèle
+     *                                  appartiennent à ce plateau, et ne sont pas modifiés)
+     */
     public Plateau(List<Ville> villes, List<Route> routes) {
-        this.villes = villes;
-        this.routes = routes;
+        for (Route route : routes) {
+            if (route.getIndice() >= 0) {
+                throw new IllegalArgumentException("La route " + route.getNom() + " est déjà sur un plateau");
+            }
+        }
+        this.villes = List.copyOf(villes);
+        this.routes = List.copyOf(routes);
+        this.ports = this.villes.stream().filter(Ville::estPort).toList();
+        this.villesParNom = new HashMap<>();
+        this.indicesVilles = new HashMap<>();
+        for (int i = 0; i < this.villes.size(); i++) {
+            villesParNom.put(this.villes.get(i).nom(), this.villes.get(i));
+            indicesVilles.put(this.villes.get(i), i);
+        }
+        this.indicesPorts = new HashMap<>();
+        for (int i = 0; i < ports.size(); i++) {
+            indicesPorts.put(ports.get(i), i);
+        }
+        this.routesParNom = new HashMap<>();
+        for (int i = 0; i < this.routes.size(); i++) {
+            Route route = this.routes.get(i);
+            route.setIndice(i);
+            routesParNom.put(route.getNom(), route);
+        }
+        int nbRoutes = this.routes.size();
+        this.villes1 = new int[nbRoutes];
+        this.villes2 = new int[nbRoutes];
+        this.typesRoutes = new TypeRoute[nbRoutes];
+        this.debutsVoisins = new int[this.villes.size() + 1];
+        for (int i = 0; i < nbRoutes; i++) {
+            Route route = this.routes.get(i);
+            villes1[i] = indiceVille(route.getVille1());
+            villes2[i] = indiceVille(route.getVille2());
+            typesRoutes[i] = TypeRoute.de(route);
+            debutsVoisins[villes1[i] + 1]++;
+            debutsVoisins[villes2[i] + 1]++;
+        }
+        for (int v = 0; v < this.villes.size(); v++) {
+            debutsVoisins[v + 1] += debutsVoisins[v];
+        }
+        this.voisins = new int[2 * nbRoutes];
+        this.routesVoisines = new int[2 * nbRoutes];
+        int[] positions = Arrays.copyOf(debutsVoisins, this.villes.size());
+        for (int i = 0; i < nbRoutes; i++) {
+            voisins[positions[villes1[i]]] = villes2[i];
+            routesVoisines[positions[villes1[i]]++] = i;
+            voisins[positions[villes2[i]]] = villes1[i];
+            routesVoisines[positions[villes2[i]]++] = i;
+        }
+
+        int nbMots = (nbRoutes + 63) / 64;
+        this.routesParVille = new long[this.villes.size()][nbMots];
+        this.routesDoubles = new long[nbMots];
+        for (int i = 0; i < nbRoutes; i++) {
+            Route route = this.routes.get(i);
+            routesParVille[villes1[i]][i >> 6] |= 1L << i;
+            routesParVille[villes2[i]][i >> 6] |= 1L << i;
+            if (route.getRouteParallele() != null) {
+                routesDoubles[i >> 6] |= 1L << i;
+            }
+        }
+        this.distances = new Distances[Distances.Type.values().length];
+        for (Distances.Type type : Distances.Type.values()) {
+            distances[type.ordinal()] = new Distances(this, type);
+        }
+    }
+
+    /**
+     * Renvoie le plateau du monde partagé par toutes les parties (construit au premier appel, avec ses propres
+     * numéros de routes : R1 à R130)
+     */
+    public static Plateau getPlateauMonde() {
+        return PlateauMonde.INSTANCE;
+    }
+
+    /**
+     * Construction paresseuse et thread-safe du plateau du monde partagé
+     */
+    private static final class PlateauMonde {
+        private static final Plateau INSTANCE = Identifiants.isoler(Plateau::makePlateauMonde);
     }
 
+    /**
+     * @return la liste (non modifiable) des villes qui sont des ports
+     */
     public List<Ville> getPorts() {
-        return villes.stream().filter(Ville::estPort).collect(Collectors.toList());
+        return ports;
+    }
+
+    /**
+     * @return la liste (non modifiable) des villes
+     */
+    public List<Ville> getVilles() {
+        return villes;
     }
 
+    /**
+     * @return la liste (non modifiable) des routes
+     */
     public List<Route> getRoutes() {
         return routes;
     }
 
+    /**
+     * @return la ville de nom donné, ou null si elle n'est pas sur le plateau
+     */
+    public Ville getVille(String nom) {
+        return villesParNom.get(nom);
+    }
+
+    /**
+     * @return la route de nom donné, ou null si elle n'est pas sur le plateau
+     */
+    public Route getRoute(String nom) {
+        return routesParNom.get(nom);
+    }
+
+    /**
+     * @return l'indice de la ville dans getVilles(), ou -1 si elle n'est pas sur le plateau
+     */
+    public int indiceVille(Object ville) {
+        Integer indice = indicesVilles.get(ville);
+        return indice == null ? -1 : indice;
+    }
+
+    /**
+     * @return l'indice du port dans getPorts(), ou -1 si ce n'est pas un port du plateau
+     */
+    public int indicePort(Object ville) {
+        Integer indice = indicesPorts.get(ville);
+        return indice == null ? -1 : indice;
+    }
+
+    /**
+     * @return l'indice de la route dans getRoutes(), ou -1 si elle n'est pas sur le plateau
+     */
+    public int indiceRoute(Object route) {
+        return route instanceof Route r && r.getIndice() >= 0 && r.getIndice() < routes.size()
+                && routes.get(r.getIndice()) == r ? r.getIndice() : -1;
+    }
+
+    /**
+     * @return le nombre de villes du plateau (les indices de villes vont de 0 à getNbVilles() - 1)
+     */
+    public int getNbVilles() {
+        return villes.size();
+    }
+
+    /**
+     * @return la position du premier voisin de la ville d'indice donné (voir voisin() et routeVoisine())
+     */
+    public int debutVoisins(int ville) {
+        return debutsVoisins[ville];
+    }
+
+    /**
+     * @return la position qui suit le dernier voisin de la ville d'indice donné
+     */
+    public int finVoisins(int ville) {
+        return debutsVoisins[ville + 1];
+    }
+
+    /**
+     * @param position une position entre debutVoisins(v) et finVoisins(v) - 1
+     * @return l'indice de la ville voisine de v à cette position
+     */
+    public int voisin(int position) {
+        return voisins[position];
+    }
+
+    /**
+     * @param position une position entre debutVoisins(v) et finVoisins(v) - 1
+     * @return l'indice de la route qui relie v à sa voisine à cette position
+     */
+    public int routeVoisine(int position) {
+        return routesVoisines[position];
+    }
+
+    /**
+     * @return l'indice de la première ville de la route d'indice donné
+     */
+    public int indiceVille1(int route) {
+        return villes1[route];
+    }
+
+    /**
+     * @return l'indice de la deuxième ville de la route d'indice donné
+     */
+    public int indiceVille2(int route) {
+        return villes2[route];
+    }
+
+    /**
+     * @return l'indice de l'autre ville de la route d'indice donné
+     */
+    public int autreVille(int route, int ville) {
+        return villes1[route] == ville ? villes2[route] : villes1[route];
+    }
+
+    public TypeRoute getTypeRoute(int route) {
+        return typesRoutes[route];
+    }
+
+    /**
+     * @return l'indice de la première route (dans l'ordre du plateau) qui relie les deux villes d'indices donnés,
+     * ou -1 s'il n'y en a pas
+     */
+    public int indiceRouteEntre(int ville1, int ville2) {
+        for (int position = debutsVoisins[ville1]; position < debutsVoisins[ville1 + 1]; position++) {
+            if (voisins[position] == ville2) {
+                return routesVoisines[position];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return le masque des routes reliées à la ville (bitset indexé par Route.getIndice(), vide si la ville
+     * n'est pas sur le plateau). Le tableau est partagé et ne doit pas être modifié.
+     */
+    public long[] getMasqueRoutesVille(Ville ville) {
+        int indice = indiceVille(ville);
+        return indice < 0 ? new long[routesDoubles.length] : routesParVille[indice];
+    }
+
+    /**
+     * @return le masque des routes reliées à la ville d'indice donné (tableau partagé, à ne pas modifier)
+     */
+    public long[] getMasqueRoutesVille(int ville) {
+        return routesParVille[ville];
+    }
+
+    /**
+     * @param routes un ensemble de routes du plateau (bitset indexé par Route.getIndice())
+     * @return le bitset des routes parallèles aux routes de l'ensemble
+     */
+    public long[] paralleles(long[] routes) {
+        long[] paralleles = new long[routesDoubles.length];
+        for (int mot = 0; mot < paralleles.length && mot < routes.length; mot++) {
+            long bits = routes[mot] & routesDoubles[mot];
+            while (bits != 0) {
+                int indice = this.routes.get((mot << 6) + Long.numberOfTrailingZeros(bits)).getRouteParallele()
+                        .getIndice();
+                paralleles[indice >> 6] |= 1L << indice;
+                bits &= bits - 1;
+            }
+        }
+        return paralleles;
+    }
+
+    /**
+     * @return la plus courte distance (en nombre de segments) entre les deux villes par les routes du type donné,
+     * ou Distances.INFINI si elles ne sont pas reliées
+     */
+    public int getDistance(Distances.Type type, Ville ville1, Ville ville2) {
+        return distances[type.ordinal()].distance(ville1, ville2);
+    }
+
+    /**
+     * @return une copie de la table des distances par les routes du type donné, à tenir à jour au cours d'une
+     * partie avec Distances.bloquerRoute()
+     */
+    public Distances copierDistances(Distances.Type type) {
+        return distances[type.ordinal()].copie();
+    }
+
     static public Plateau makePlateauMonde() {
         Map<String, Ville> villes = new HashMap<>();
         villes.put("Winnipeg", new Ville("Winnipeg", false));
@@ -0,0 +1,106 @@
+package fr.umontpellier.iut.rails.data;
+
+/**
+ * Sorte d'une carte transport : type, couleur, double ou non, ancre ou non. Il n'existe qu'un objet par sorte,
+ * partagé par toutes les cartes de cette sorte (voir CarteTransport.getSorte()).
+ *
+ * Les sortes sont numérotées de 0 à NB_SORTES - 1, dans l'ordre de CarteTransport.compareTo() : le numéro d'une
+ * sorte sert d'indice dans les tableaux de nombres de cartes (voir MainCartes). Les textes affichés pour les cartes
+ * d'une sorte (toString(), toLog()) sont construits une seule fois.
+ */
+public final class SorteCarte {
+    private static final int NB_COULEURS = Couleur.values().length;
+    public static final int NB_SORTES = TypeCarteTransport.values().length * NB_COULEURS * 4;
+    private static final SorteCarte[] SORTES = new SorteCarte[NB_SORTES];
+
+    static {
+        for (TypeCarteTransport type : TypeCarteTransport.values()) {
+            for (Couleur couleur : Couleur.values()) {
+                for (boolean estDouble : new boolean[] { false, true }) {
+                    for (boolean ancre : new boolean[] { false, true }) {
+                        int indice = indice(type, couleur, estDouble, ancre);
+                        SORTES[indice] = new SorteCarte(indice, type, couleur, estDouble, ancre);
+                    }
+                }
+            }
+        }
+    }
+
+    private final int indice;
+    private final TypeCarteTransport type;
+    private final Couleur couleur;
+    private final boolean estDouble;
+    private final boolean ancre;
+    /**
+     * Nom de la sorte affiché pour les cartes ("Wagon", "Bateau", "Double" ou "Joker")
+     */
+    private final String label;
+    private final String log;
+
+    private SorteCarte(int indice, TypeCarteTransport type, Couleur couleur, boolean estDouble, boolean ancre) {
+        this.indice = indice;
+        this.type = type;
+        this.couleur = couleur;
+        this.estDouble = estDouble;
+        this.ancre = ancre;
+        if (type == TypeCarteTransport.JOKER) {
+            label = "Joker";
+        } else if (type == TypeCarteTransport.BATEAU) {
+            label = estDouble ? "Double" : "Bateau";
+        } else {
+            label = "Wagon";
+        }
+        log = String.format(
+                "<img class=\"couleur\" src=\"images/symbole-%s.png\"><span class=\"nom-carte %s %s\">%s</span>",
+                couleur.name(), type.name().toLowerCase(), couleur.name().toLowerCase(), label);
+    }
+
+    /**
+     * @return le numéro de la sorte donnée
+     */
+    public static int indice(TypeCarteTransport type, Couleur couleur, boolean estDouble, boolean ancre) {
+        return ((type.ordinal() * NB_COULEURS + couleur.ordinal()) * 2 + (estDouble ? 1 : 0)) * 2 + (ancre ? 1 : 0);
+    }
+
+    /**
+     * @return la sorte de numéro donné
+     */
+    public static SorteCarte de(int indice) {
+        return SORTES[indice];
+    }
+
+    public static SorteCarte de(TypeCarteTransport type, Couleur couleur, boolean estDouble, boolean ancre) {
+        return SORTES[indice(type, couleur, estDouble, ancre)];
+    }
+
+    public int indice() {
+        return indice;
+    }
+
+    public TypeCarteTransport getType() {
+        return type;
+    }
+
+    public Couleur getCouleur() {
+        return couleur;
+    }
+
+    public boolean estDouble() {
+        return estDouble;
+    }
+
+    public boolean getAncre() {
+        return ancre;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return la représentation HTML des cartes de cette sorte dans le journal de la partie
+     */
+    public String toLog() {
+        return log;
+    }
+}
@@ -0,0 +1,19 @@
+package fr.umontpellier.iut.rails.data;
+
+import fr.umontpellier.iut.rails.Route;
+import fr.umontpellier.iut.rails.RouteMaritime;
+import fr.umontpellier.iut.rails.RoutePaire;
+
+/**
+ * Type d'une route du plateau (voir les sous-classes de Route)
+ */
+public enum TypeRoute {
+    TERRESTRE, MARITIME, PAIRE;
+
+    public static TypeRoute de(Route route) {
+        if (route instanceof RouteMaritime) {
+            return MARITIME;
+        }
+        return route instanceof RoutePaire ? PAIRE : TERRESTRE;
+    }
+}
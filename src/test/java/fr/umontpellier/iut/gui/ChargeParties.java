@@ -0,0 +1,93 @@
+package fr.umontpellier.iut.gui;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test de charge du serveur multi-parties (à lancer à la main, il n'est pas exécuté par `mvn test`).
+ *
+ * Crée un grand nombre de tables dans un même serveur, puis mesure la mémoire occupée par table et la latence
+ * entre l'envoi d'une instruction à une table et la diffusion du nouvel état de cette table.
+ *
+ * Usage : java [-Drails.threads=virtuel|plateforme|moteur] fr.umontpellier.iut.gui.ChargeParties [nombre de tables]
+ */
+public class ChargeParties {
+    public static void main(String[] args) throws InterruptedException {
+        int nbParties = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        long memoireAvant = memoireUtilisee();
+        List<Partie> parties = new ArrayList<>();
+        for (int i = 0; i < nbParties; i++) {
+            Partie partie = GameServer.creerPartie("charge-" + i);
+            partie.demarrer(GameServer.getExecuteur());
+            parties.add(partie);
+        }
+        // attend que chaque table ait diffusé son premier état
+        for (Partie partie : parties) {
+            while (partie.getNbMisesAJour() == 0) {
+                Thread.sleep(1);
+            }
+        }
+        long memoireApres = memoireUtilisee();
+        ExecuteurParties executeur = GameServer.getExecuteur();
+        console.printf("%d tables (threads %s, %d en cours), mémoire par table : %d Ko%n",
+                nbParties, executeur.getMode(), executeur.getNbPartiesEnCours(),
+                (memoireApres - memoireAvant) / nbParties / 1024);
+
+        // mise en place du premier joueur de chaque table : garder les 5 destinations, puis prendre 10 pions wagon
+        for (String instruction : List.of("", "10")) {
+            long[] latences = mesurerLatences(parties, instruction);
+            Arrays.sort(latences);
+            console.printf("instruction \"%s\" : latence médiane %d µs, p99 %d µs, max %d µs%n",
+                    instruction,
+                    latences[latences.length / 2] / 1000,
+                    latences[latences.length * 99 / 100] / 1000,
+                    latences[latences.length - 1] / 1000);
+        }
+        console.printf("épinglages de threads virtuels : %d%n", ExecuteurParties.getNbEpinglages());
+        console.printf("envois aux clients : %s%n", GameServer.metriques());
+        System.exit(0);
+    }
+
+    /**
+     * Envoie la même instruction à toutes les tables et mesure pour chacune le temps écoulé jusqu'à la
+     * diffusion de son nouvel état
+     */
+    private static long[] mesurerLatences(List<Partie> parties, String instruction) {
+        int n = parties.size();
+        long[] misesAJour = new long[n];
+        long[] debuts = new long[n];
+        long[] latences = new long[n];
+        for (int i = 0; i < n; i++) {
+            Partie partie = parties.get(i);
+            misesAJour[i] = partie.getNbMisesAJour();
+            debuts[i] = System.nanoTime();
+            partie.addInput(instruction);
+        }
+        int restantes = n;
+        while (restantes > 0) {
+            for (int i = 0; i < n; i++) {
+                if (latences[i] == 0 && parties.get(i).getNbMisesAJour() > misesAJour[i]) {
+                    latences[i] = System.nanoTime() - debuts[i];
+                    restantes--;
+                }
+            }
+            Thread.onSpinWait();
+        }
+        return latences;
+    }
+
+    private static long memoireUtilisee() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,96 @@
+package fr.umontpellier.iut.gui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.websocket.CloseReason;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+
+import org.junit.jupiter.api.Test;
+
+public class FileEnvoiTest {
+    /**
+     * Session dont les envois ne se terminent que lorsque le test appelle les SendHandler conservés
+     */
+    private static class SessionBloquee {
+        final List<SendHandler> envois = new ArrayList<>();
+        final List<CloseReason> fermetures = new ArrayList<>();
+        final Session session;
+
+        SessionBloquee() {
+            RemoteEndpoint.Async distant = (RemoteEndpoint.Async) Proxy.newProxyInstance(
+                    RemoteEndpoint.Async.class.getClassLoader(), new Class<?>[] { RemoteEndpoint.Async.class },
+                    (proxy, methode, arguments) -> {
+                        if (methode.getName().equals("sendText")) {
+                            envois.add((SendHandler) arguments[1]);
+                        }
+                        return null;
+                    });
+            session = (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+                    new Class<?>[] { Session.class },
+                    (proxy, methode, arguments) -> switch (methode.getName()) {
+                        case "getAsyncRemote" -> distant;
+                        case "isOpen" -> fermetures.isEmpty();
+                        case "close" -> {
+                            fermetures.add((CloseReason) arguments[0]);
+                            yield null;
+                        }
+                        default -> null;
+                    });
+        }
+    }
+
+    @Test
+    void testClientBloqueDeconnecteSansNouvelAjout() throws InterruptedException {
+        SessionBloquee client = new SessionBloquee();
+        FileEnvoi file = new FileEnvoi(client.session, 8, 50);
+        assertTrue(file.ajouter("a", false));
+        assertTrue(file.ajouter("b", false));
+        assertFalse(file.verifierSaturation());
+
+        // l'envoi de "a" ne se termine jamais et la partie n'envoie plus rien
+        Thread.sleep(100);
+        assertTrue(file.verifierSaturation());
+        assertTrue(file.estDeconnecteeCarSaturee());
+        assertEquals(1, client.fermetures.size());
+        assertEquals(CloseReason.CloseCodes.TRY_AGAIN_LATER, client.fermetures.get(0).getCloseCode());
+        assertFalse(file.verifierSaturation());
+    }
+
+    @Test
+    void testClientLentDeconnecteEnFinDEnvoi() throws InterruptedException {
+        SessionBloquee client = new SessionBloquee();
+        FileEnvoi file = new FileEnvoi(client.session, 8, 50);
+        file.ajouter("a", false);
+        file.ajouter("b", false);
+
+        // l'envoi de "a" aboutit, mais après le délai de saturation : "b" n'est pas envoyé
+        Thread.sleep(100);
+        client.envois.get(0).onResult(new SendResult());
+        assertTrue(file.estDeconnecteeCarSaturee());
+        assertEquals(1, client.envois.size());
+        assertEquals(1, client.fermetures.size());
+    }
+
+    @Test
+    void testClientQuiSuitNonDeconnecte() {
+        SessionBloquee client = new SessionBloquee();
+        FileEnvoi file = new FileEnvoi(client.session, 8, 60_000);
+        file.ajouter("a", false);
+        file.ajouter("b", false);
+        client.envois.get(0).onResult(new SendResult());
+        client.envois.get(1).onResult(new SendResult());
+        assertFalse(file.verifierSaturation());
+        assertFalse(file.estDeconnecteeCarSaturee());
+        assertEquals(2, file.getNbEnvoyes());
+        assertTrue(client.fermetures.isEmpty());
+    }
+}
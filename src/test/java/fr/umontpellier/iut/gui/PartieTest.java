@@ -0,0 +1,124 @@
+package fr.umontpellier.iut.gui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.websocket.Session;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import fr.umontpellier.iut.rails.DecideurAleatoire;
+import fr.umontpellier.iut.rails.Jeu;
+import fr.umontpellier.iut.rails.Journal;
+import fr.umontpellier.iut.rails.Rejoueur;
+import fr.umontpellier.iut.rails.Simulation;
+
+public class PartieTest {
+    private static final String[] NOMS_JOUEURS = { "Guybrush", "Largo" };
+
+    /**
+     * Suivi qui compte les événements de la partie
+     */
+    private static class SuiviTest implements Partie.Suivi {
+        private final CountDownLatch terminee = new CountDownLatch(1);
+        private final CountDownLatch abandonnee = new CountDownLatch(1);
+
+        @Override
+        public void partieTerminee(Partie partie) {
+            terminee.countDown();
+        }
+
+        @Override
+        public void dernierClientParti(Partie partie) {
+            abandonnee.countDown();
+        }
+    }
+
+    /**
+     * @return une session websocket factice (les envois échouent, ce qui ferme la file du client)
+     */
+    static Session session() {
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[] { Session.class },
+                (proxy, methode, arguments) -> switch (methode.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == arguments[0];
+                    case "isOpen" -> false;
+                    default -> null;
+                });
+    }
+
+    /**
+     * @return les entrées du journal d'une partie complète entre bots aléatoires (graine donnée)
+     */
+    static List<String> entreesPartieComplete(long graine) {
+        Simulation simulation = new Simulation(NOMS_JOUEURS, graine, new DecideurAleatoire(graine));
+        assertTrue(simulation.jouer().terminee());
+        return simulation.getMoteur().getJeu().getJournal().getEntrees();
+    }
+
+    @Test
+    void testPartieTermineeLibereSaPlace() throws InterruptedException {
+        ExecuteurParties executeur = new ExecuteurParties(ExecuteurParties.Mode.MOTEUR, 1, 1);
+        Partie partie = new Partie("terminee", new Jeu(NOMS_JOUEURS, 7));
+        SuiviTest suivi = new SuiviTest();
+        partie.setSuivi(suivi);
+        partie.demarrer(executeur);
+        assertEquals(1, executeur.getNbPartiesEnCours());
+
+        entreesPartieComplete(7).forEach(partie::addInput);
+        assertTrue(suivi.terminee.await(5, TimeUnit.SECONDS));
+        assertTrue(partie.estTerminee());
+        assertEquals(0, executeur.getNbPartiesEnCours());
+        // la place libérée peut accueillir une nouvelle partie
+        new Partie("suivante", NOMS_JOUEURS).demarrer(executeur);
+        assertEquals(1, executeur.getNbPartiesEnCours());
+    }
+
+    @Test
+    void testPartieTermineeArchiveSonJournal(@TempDir Path repertoire) throws IOException, InterruptedException {
+        ExecuteurParties executeur = new ExecuteurParties(ExecuteurParties.Mode.MOTEUR, 1, 1);
+        Partie partie = new Partie("table 1", new Jeu(NOMS_JOUEURS, 8));
+        SuiviTest suivi = new SuiviTest();
+        partie.setSuivi(suivi);
+        partie.setRepertoireJournaux(repertoire);
+        partie.demarrer(executeur);
+
+        List<String> entrees = entreesPartieComplete(8);
+        entrees.forEach(partie::addInput);
+        assertTrue(suivi.terminee.await(5, TimeUnit.SECONDS));
+        Path fichier = repertoire.resolve("table_1.journal");
+        assertTrue(Files.exists(fichier));
+        Journal journal = Journal.importer(Files.readString(fichier));
+        assertEquals(entrees, journal.getEntrees());
+        assertTrue(Rejoueur.rejouer(journal).estTerminee());
+    }
+
+    @Test
+    void testPartieAbandonneeLibereSaPlace() throws InterruptedException {
+        ExecuteurParties executeur = new ExecuteurParties(ExecuteurParties.Mode.MOTEUR, 1, 1);
+        Partie partie = new Partie("abandonnee", NOMS_JOUEURS);
+        SuiviTest suivi = new SuiviTest();
+        partie.setSuivi(suivi);
+        partie.demarrer(executeur);
+        Session session = session();
+        assertTrue(partie.addClient(session));
+
+        partie.removeClient(session);
+        assertTrue(suivi.abandonnee.await(1, TimeUnit.SECONDS));
+        // ce que fait le serveur après le délai de suppression
+        partie.arreter();
+        assertEquals(0, executeur.getNbPartiesEnCours());
+        assertFalse(partie.addClient(session()));
+        assertFalse(partie.estTerminee());
+    }
+}
@@ -0,0 +1,53 @@
+package fr.umontpellier.iut.rails;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import fr.umontpellier.iut.rails.data.Destination;
+import fr.umontpellier.iut.rails.data.Plateau;
+
+public class ConnexionsTest {
+    private Plateau plateau;
+    private Joueur joueur;
+    private Destination itineraire;
+
+    @BeforeEach
+    void setUp() {
+        Jeu jeu = new Jeu(new String[] { "Guybrush", "Largo" });
+        plateau = Plateau.getPlateauMonde();
+        joueur = jeu.getJoueurs().get(0);
+        itineraire = new Destination(List.of("Casablanca", "Al-Qahira", "Tehran"), 6, 9, 15);
+    }
+
+    @Test
+    void testItineraireComplete() {
+        assertFalse(joueur.destinationEstComplete(itineraire));
+        joueur.getRoutes().add(plateau.getRoute("R2")); // Casablanca - Al-Qahira
+        assertFalse(joueur.destinationEstComplete(itineraire));
+        assertTrue(joueur.destinationEstComplete(new Destination("Al-Qahira", "Casablanca", 3)));
+
+        joueur.getRoutes().add(plateau.getRoute("R13")); // Athina - Tehran
+        assertFalse(joueur.destinationEstComplete(itineraire));
+        joueur.getRoutes().add(plateau.getRoute("R1")); // Al-Qahira - Athina
+        assertTrue(joueur.destinationEstComplete(itineraire));
+        assertTrue(joueur.sontReliees(plateau.getVille("Casablanca"), plateau.getVille("Tehran")));
+        assertFalse(joueur.sontReliees(plateau.getVille("Casablanca"), plateau.getVille("Djibouti")));
+    }
+
+    @Test
+    void testRoutesRetirees() {
+        joueur.getRoutes().addAll(List.of(plateau.getRoute("R2"), plateau.getRoute("R6")));
+        assertTrue(joueur.destinationEstComplete(itineraire));
+
+        joueur.getRoutes().remove(plateau.getRoute("R2"));
+        assertFalse(joueur.destinationEstComplete(itineraire));
+        assertTrue(joueur.sontReliees(plateau.getVille("Al-Qahira"), plateau.getVille("Tehran")));
+        joueur.getRoutes().clear();
+        assertFalse(joueur.sontReliees(plateau.getVille("Al-Qahira"), plateau.getVille("Tehran")));
+    }
+}
@@ -0,0 +1,73 @@
+package fr.umontpellier.iut.rails;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import fr.umontpellier.iut.rails.Decompte.Realisation;
+import fr.umontpellier.iut.rails.data.Destination;
+import fr.umontpellier.iut.rails.data.Plateau;
+
+public class DecompteTest {
+    private Jeu jeu;
+    private Plateau plateau;
+    private Joueur joueur;
+
+    @BeforeEach
+    void setUp() {
+        jeu = new Jeu(new String[] { "Guybrush", "Largo" });
+        plateau = Plateau.getPlateauMonde();
+        joueur = jeu.getJoueurs().get(0);
+    }
+
+    private void ajouterRoutes(String... noms) {
+        for (String nom : noms) {
+            joueur.getRoutes().add(plateau.getRoute(nom));
+        }
+    }
+
+    @Test
+    void testItineraireDansLOrdre() {
+        Destination itineraire = new Destination(List.of("Casablanca", "Al-Qahira", "Tehran"), 6, 9, 15);
+        Destination desordre = new Destination(List.of("Casablanca", "Tehran", "Al-Qahira"), 6, 9, 15);
+        assertEquals(Realisation.NON_REALISEE, Decompte.realisation(joueur, itineraire, true));
+
+        ajouterRoutes("R2", "R6"); // Casablanca - Al-Qahira - Tehran
+        assertEquals(Realisation.REALISEE_DANS_L_ORDRE, Decompte.realisation(joueur, itineraire, true));
+        assertEquals(Realisation.REALISEE, Decompte.realisation(joueur, itineraire, false));
+        // revenir de Tehran à Al-Qahira demanderait de reprendre la même route
+        assertEquals(Realisation.REALISEE, Decompte.realisation(joueur, desordre, true));
+
+        ajouterRoutes("R5"); // route double Al-Qahira - Tehran
+        assertEquals(Realisation.REALISEE_DANS_L_ORDRE, Decompte.realisation(joueur, desordre, true));
+        assertEquals(9, Decompte.valeur(desordre, Realisation.REALISEE_DANS_L_ORDRE));
+        assertEquals(-15, Decompte.valeur(desordre, Realisation.NON_REALISEE));
+    }
+
+    @Test
+    void testScoresFinaux() {
+        List<Destination> destinations = joueur.getDestinations();
+        destinations.clear();
+        destinations.add(new Destination(List.of("Casablanca", "Al-Qahira", "Tehran"), 6, 9, 15));
+        destinations.add(new Destination("Casablanca", "Athina", 5));
+        ajouterRoutes("R2", "R6");
+        joueur.getPorts().add(plateau.getVille("Casablanca"));
+        joueur.getPorts().add(plateau.getVille("Athina"));
+
+        // itinéraire (+6 ou +9), destination non réalisée (-5), port à Casablanca (+20), port à Athina (0),
+        // un port non construit (-4)
+        assertEquals(6 - 5 + 20 - 4, joueur.calculerScoreFinal());
+        assertEquals(9 - 5 + 20 - 4, Decompte.scoreFinal(joueur, true));
+
+        ajouterRoutes("R1"); // Al-Qahira - Athina
+        assertEquals(6 + 5 + 30 + 20 - 4, joueur.calculerScoreFinal());
+        assertEquals(0, joueur.getScore());
+        int[] scores = Decompte.scoresFinaux(jeu, true);
+        assertArrayEquals(new int[] { 9 + 5 + 30 + 20 - 4, Decompte.scoreFinal(jeu.getJoueurs().get(1), false) },
+                scores);
+    }
+}
@@ -0,0 +1,130 @@
+package fr.umontpellier.iut.rails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import fr.umontpellier.iut.rails.data.Distances;
+import fr.umontpellier.iut.rails.data.Plateau;
+import fr.umontpellier.iut.rails.data.TypeRoute;
+import fr.umontpellier.iut.rails.data.Ville;
+
+public class DistancesTest {
+    private final Plateau plateau = Plateau.getPlateauMonde();
+
+    /**
+     * Distances par l'algorithme de Floyd-Warshall sur les routes données
+     */
+    private int[][] floydWarshall(List<Route> routes) {
+        int n = plateau.getVilles().size();
+        int[][] d = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                d[i][j] = i == j ? 0 : Distances.INFINI;
+            }
+        }
+        for (Route route : routes) {
+            int i = plateau.indiceVille(route.getVille1());
+            int j = plateau.indiceVille(route.getVille2());
+            d[i][j] = Math.min(d[i][j], route.getLongueur());
+            d[j][i] = d[i][j];
+        }
+        for (int k = 0; k < n; k++) {
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (d[i][k] + d[k][j] < d[i][j]) {
+                        d[i][j] = d[i][k] + d[k][j];
+                    }
+                }
+            }
+        }
+        return d;
+    }
+
+    private void verifier(int[][] attendues, Distances distances) {
+        for (int i = 0; i < attendues.length; i++) {
+            for (int j = 0; j < attendues.length; j++) {
+                assertEquals(attendues[i][j], distances.distance(i, j));
+            }
+        }
+    }
+
+    @Test
+    void testGrapheDuPlateau() {
+        int[] nbApparitions = new int[plateau.getRoutes().size()];
+        for (int ville = 0; ville < plateau.getNbVilles(); ville++) {
+            for (int position = plateau.debutVoisins(ville); position < plateau.finVoisins(ville); position++) {
+                int route = plateau.routeVoisine(position);
+                nbApparitions[route]++;
+                assertEquals(plateau.voisin(position), plateau.autreVille(route, ville));
+                assertEquals(ville, plateau.autreVille(route, plateau.voisin(position)));
+            }
+        }
+        for (int route = 0; route < nbApparitions.length; route++) {
+            assertEquals(2, nbApparitions[route]);
+            assertEquals(plateau.getVilles().get(plateau.indiceVille1(route)),
+                    plateau.getRoutes().get(route).getVille1());
+        }
+        int casablanca = plateau.indiceVille(plateau.getVille("Casablanca"));
+        int alQahira = plateau.indiceVille(plateau.getVille("Al-Qahira"));
+        int tehran = plateau.indiceVille(plateau.getVille("Tehran"));
+        assertEquals(plateau.getRoute("R2").getIndice(), plateau.indiceRouteEntre(alQahira, casablanca));
+        assertEquals(plateau.getRoute("R5").getIndice(), plateau.indiceRouteEntre(tehran, alQahira));
+        assertEquals(-1, plateau.indiceRouteEntre(casablanca, tehran));
+        assertEquals(TypeRoute.PAIRE, plateau.getTypeRoute(plateau.getRoute("R50").getIndice()));
+        assertEquals(TypeRoute.MARITIME, plateau.getTypeRoute(plateau.getRoute("R1").getIndice()));
+        assertEquals(TypeRoute.TERRESTRE, plateau.getTypeRoute(plateau.getRoute("R2").getIndice()));
+    }
+
+    @Test
+    void testDistancesDuPlateau() {
+        Ville casablanca = plateau.getVille("Casablanca");
+        Ville alQahira = plateau.getVille("Al-Qahira");
+        Ville tehran = plateau.getVille("Tehran");
+        assertEquals(3, plateau.getDistance(Distances.Type.TERRESTRE, casablanca, alQahira));
+        assertEquals(4, plateau.getDistance(Distances.Type.TERRESTRE, tehran, casablanca));
+        assertEquals(0, plateau.getDistance(Distances.Type.MIXTE, tehran, tehran));
+
+        for (Distances.Type type : Distances.Type.values()) {
+            List<Route> routes = new ArrayList<>();
+            for (Route route : plateau.getRoutes()) {
+                if (type == Distances.Type.MIXTE
+                        || (type == Distances.Type.MARITIME) == (route instanceof RouteMaritime)) {
+                    routes.add(route);
+                }
+            }
+            verifier(floydWarshall(routes), plateau.copierDistances(type));
+        }
+        for (Ville ville1 : plateau.getVilles()) {
+            for (Ville ville2 : plateau.getVilles()) {
+                int mixte = plateau.getDistance(Distances.Type.MIXTE, ville1, ville2);
+                assertTrue(mixte <= plateau.getDistance(Distances.Type.TERRESTRE, ville1, ville2));
+                assertTrue(mixte <= plateau.getDistance(Distances.Type.MARITIME, ville1, ville2));
+            }
+        }
+    }
+
+    @Test
+    void testRoutesBloquees() {
+        Distances distances = plateau.copierDistances(Distances.Type.MIXTE);
+        List<Route> restantes = new ArrayList<>(plateau.getRoutes());
+        int nbBloquees = 0;
+        int nbLignes = 0;
+        for (int i = 0; i < plateau.getRoutes().size(); i += 3) {
+            Route route = plateau.getRoutes().get(i);
+            restantes.remove(route);
+            nbBloquees++;
+            nbLignes += distances.bloquerRoute(route);
+            verifier(floydWarshall(restantes), distances);
+        }
+        // seules les lignes concernées sont recalculées
+        assertTrue(nbLignes < nbBloquees * plateau.getVilles().size() / 2);
+        assertEquals(0, distances.bloquerRoute(plateau.getRoutes().get(0)));
+        // la table du plateau n'est pas modifiée
+        verifier(floydWarshall(plateau.getRoutes()), plateau.copierDistances(Distances.Type.MIXTE));
+    }
+}
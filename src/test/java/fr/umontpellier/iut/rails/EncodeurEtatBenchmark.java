@@ -0,0 +1,86 @@
+package fr.umontpellier.iut.rails;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+
+/**
+ * Compare l'encodage de l'état du jeu avec Gson (Jeu.dataMap(), utilisé auparavant à chaque prompt) et avec
+ * EncodeurEtat (instantané Jeu.etatJson() écrit par Jackson).
+ *
+ * Ce n'est pas un test JUnit : après `mvn test-compile`, lancer la méthode main avec le classpath de test, par
+ * exemple `java -cp target/classes:target/test-classes:<dépendances> fr.umontpellier.iut.rails.EncodeurEtatBenchmark`
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodeurEtatBenchmark {
+    private static final Gson GSON = new Gson();
+    private Jeu jeu;
+    private EncodeurEtat encodeur;
+
+    /**
+     * Partie en cours : cartes en main, défausses et log d'une centaine de messages
+     */
+    @Setup
+    public void setUp() {
+        jeu = new IOJeu(new String[] { "Guybrush", "Largo", "LeChuck", "Elaine" });
+        encodeur = new EncodeurEtat();
+        MoteurPartie moteur = new MoteurPartie(jeu);
+        moteur.demarrer();
+        for (int tour = 0; tour < 10; tour++) {
+            for (Joueur joueur : jeu.getJoueurs()) {
+                joueur.getCartesTransport().add(jeu.piocherCarteWagon());
+                joueur.getCartesTransport().add(jeu.piocherCarteBateau());
+                jeu.defausserCarteWagon(jeu.piocherCarteWagon());
+                jeu.log("<strong>" + joueur.getNom() + "</strong> pioche deux cartes");
+            }
+        }
+        // IOJeu ne conserve pas les questions posées par prompt()
+        TestUtils.setAttribute(jeu, "instruction", "Choisissez une action");
+        TestUtils.setAttribute(jeu, "boutons", List.of(new Bouton("Destinations", "DESTINATION")));
+    }
+
+    @Benchmark
+    public String gsonTexte() {
+        return GSON.toJson(jeu.dataMap());
+    }
+
+    @Benchmark
+    public JsonElement gsonArbre() {
+        return GSON.toJsonTree(jeu.dataMap());
+    }
+
+    @Benchmark
+    public ObjetJson instantane() {
+        return jeu.etatJson();
+    }
+
+    @Benchmark
+    public String encodeurTexte() {
+        return encodeur.encoder(jeu.etatJson());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EncodeurEtatBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,93 @@
+package fr.umontpellier.iut.rails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+
+import fr.umontpellier.iut.rails.data.CarteTransport;
+import fr.umontpellier.iut.rails.data.Destination;
+
+/**
+ * Vérifie que EncodeurEtat produit le même JSON que Gson sur Jeu.dataMap()
+ */
+public class EncodeurEtatTest {
+    private static final Gson GSON = new Gson();
+    private IOJeu jeu;
+    private EncodeurEtat encodeur;
+
+    @BeforeAll
+    static void staticInit() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @BeforeEach
+    void setUp() {
+        TestUtils.setAttribute(CarteTransport.class, "compteur", 1);
+        TestUtils.setAttribute(Destination.class, "compteur", 1);
+        TestUtils.setAttribute(Route.class, "compteur", 1);
+
+        jeu = new IOJeu(new String[] { "Guybrush", "Largo", "LeChuck", "Elaine" });
+        encodeur = new EncodeurEtat();
+        MoteurPartie moteur = new MoteurPartie(jeu);
+        moteur.demarrer();
+        // IOJeu ne conserve pas les questions posées par prompt()
+        TestUtils.setAttribute(jeu, "instruction", "Choisissez les destinations à défausser");
+        TestUtils.setAttribute(jeu, "boutons", List.of(new Bouton("Destination", "D1")));
+    }
+
+    /**
+     * Le texte produit a le même contenu que celui de Gson, et Gson le réécrit à l'identique (mêmes échappements
+     * et même format ; seul l'ordre des clés de dataMap(), construit avec Map.ofEntries, n'est pas fixé)
+     */
+    private void verifierIdentiqueAGson() {
+        String texteGson = GSON.toJson(jeu.dataMap());
+        String texte = encodeur.encoder(jeu.etatJson());
+        assertEquals(JsonParser.parseString(texteGson), JsonParser.parseString(texte));
+        assertEquals(texte, GSON.toJson(JsonParser.parseString(texte)));
+    }
+
+    @Test
+    void testEtatIdentiqueAGson() {
+        verifierIdentiqueAGson();
+    }
+
+    @Test
+    void testEchappementsIdentiquesAGson() {
+        String message = "<b>Guybrush</b> & Largo = 'pirates' \"é\" \\ \t\n\r\b\f \u0001\u001f\u007f \u2028\u2029 ☠";
+        jeu.log(message);
+        TestUtils.setAttribute(jeu, "instruction", "Choix <" + message + ">");
+        TestUtils.setAttribute(jeu, "boutons", List.of(new Bouton("<&>", "='")));
+        assertEquals(GSON.toJson(message), encodeur.encoder(message));
+        verifierIdentiqueAGson();
+    }
+
+    @Test
+    void testCartesEtDestinationsIdentiquesAGson() {
+        Joueur joueur = jeu.getJoueurs().get(0);
+        for (CarteTransport carte : joueur.getCartesTransport()) {
+            assertEquals(GSON.toJson(carte), encodeur.encoder(carte));
+        }
+        List<Destination> destinations = (List<Destination>) TestUtils.getAttribute(jeu, "pileDestinations");
+        for (Destination destination : destinations) {
+            assertEquals(GSON.toJson(destination), encodeur.encoder(destination));
+        }
+    }
+
+    @Test
+    void testInstantaneNonModifieParLeJeu() {
+        ObjetJson etat = jeu.etatJson();
+        String texte = encodeur.encoder(etat);
+        jeu.log("Nouveau message");
+        jeu.getJoueurs().get(0).getCartesTransport().clear();
+        assertEquals(texte, encodeur.encoder(etat));
+    }
+}
@@ -0,0 +1,140 @@
+package fr.umontpellier.iut.rails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import fr.umontpellier.iut.rails.data.Plateau;
+import fr.umontpellier.iut.rails.data.Ville;
+
+public class EnsembleIndexeTest {
+    private static final String[] NOMS_JOUEURS = { "Guybrush", "Largo", "LeChuck", "Elaine" };
+
+    @Test
+    void testOrdreDuPlateau() {
+        Plateau plateau = Plateau.getPlateauMonde();
+        List<Route> univers = plateau.getRoutes();
+        EnsembleIndexe<Route> routes = new EnsembleIndexe<>(univers, plateau::indiceRoute, false);
+        assertTrue(routes.isEmpty());
+
+        routes.add(univers.get(100));
+        routes.add(univers.get(3));
+        routes.add(univers.get(64));
+        assertFalse(routes.add(univers.get(3)));
+        assertEquals(List.of(univers.get(3), univers.get(64), univers.get(100)), routes);
+        assertEquals(2, routes.indexOf(univers.get(100)));
+        assertEquals(-1, routes.indexOf(univers.get(4)));
+
+        assertTrue(routes.remove(univers.get(64)));
+        assertFalse(routes.contains(univers.get(64)));
+        assertEquals(univers.get(100), routes.get(1));
+        Route horsPlateau = new RouteMaritime(univers.get(0).getVille1(), univers.get(0).getVille2(),
+                univers.get(0).getCouleur(), 1);
+        assertThrows(IllegalArgumentException.class, () -> routes.add(horsPlateau));
+    }
+
+    @Test
+    void testRoutesDuPlateauPartageNonModifiables() {
+        Plateau plateau = Plateau.getPlateauMonde();
+        List<Route> routes = plateau.getRoutes();
+        Route route = routes.get(3);
+        Route parallele = route.getRouteParallele();
+
+        assertThrows(IllegalArgumentException.class, () -> new Plateau(plateau.getVilles(), List.of(routes.get(5))));
+        assertThrows(IllegalStateException.class, () -> route.setIndice(0));
+        assertThrows(IllegalStateException.class, () -> route.setRouteParallele(routes.get(0)));
+        assertEquals(3, route.getIndice());
+        assertEquals(5, routes.get(5).getIndice());
+        assertSame(parallele, route.getRouteParallele());
+        assertEquals(3, plateau.indiceRoute(route));
+    }
+
+    @Test
+    void testRetraitPendantIteration() {
+        Plateau plateau = Plateau.getPlateauMonde();
+        EnsembleIndexe<Route> routes = new EnsembleIndexe<>(plateau.getRoutes(), plateau::indiceRoute, true);
+        int nb = 0;
+        for (Route route : routes) {
+            routes.remove(route);
+            nb++;
+        }
+        assertEquals(130, nb);
+        assertTrue(routes.isEmpty());
+
+        routes.addAll(plateau.getRoutes());
+        Iterator<Route> iterateur = routes.iterator();
+        while (iterateur.hasNext()) {
+            if (iterateur.next().getIndice() % 2 == 0) {
+                iterateur.remove();
+            }
+        }
+        assertEquals(65, routes.size());
+    }
+
+    @Test
+    void testVuesLibresDuJeu() {
+        Jeu jeu = new Jeu(NOMS_JOUEURS);
+        List<Route> routesLibres = jeu.getRoutesLibres();
+        List<Ville> portsLibres = jeu.getPortsLibres();
+        assertSame(routesLibres, jeu.getRoutesLibres());
+        assertThrows(UnsupportedOperationException.class, () -> routesLibres.remove(0));
+        assertThrows(UnsupportedOperationException.class, () -> portsLibres.clear());
+
+        Route route = routesLibres.get(10);
+        Ville port = portsLibres.get(0);
+        List<Route> copie = new ArrayList<>(routesLibres);
+        jeu.enleverRouteLibre(route);
+        assertFalse(routesLibres.contains(route));
+        assertTrue(copie.contains(route));
+
+        assertSame(port, jeu.getVille(port.nom()));
+        ((List<?>) TestUtils.getAttribute(jeu, "portsLibres")).remove(port);
+        assertFalse(portsLibres.contains(port));
+        assertNull(jeu.getVille(port.nom()));
+        assertNull(jeu.getVille("Atlantide"));
+    }
+
+    @Test
+    void testRoutesDoublesBloquees() {
+        for (int nbJoueurs : new int[] { 2, 4 }) {
+            Jeu jeu = new Jeu(List.of(NOMS_JOUEURS).subList(0, nbJoueurs).toArray(new String[0]));
+            Plateau plateau = Plateau.getPlateauMonde();
+            Route r120 = plateau.getRoute("R120");
+            Route r121 = plateau.getRoute("R121");
+            Joueur joueur1 = jeu.getJoueurs().get(0);
+            Joueur joueur2 = jeu.getJoueurs().get(1);
+            assertFalse(joueur1.possedeRouteVille(r120.getVille1()));
+
+            joueur1.capturerRoute(r120);
+            jeu.enleverRouteLibre(r120);
+            assertTrue(joueur1.possedeRouteVille(r120.getVille1()));
+            assertTrue(joueur1.possedeRouteVille(r120.getVille2()));
+            assertFalse(joueur2.possedeRouteVille(r120.getVille1()));
+            long[] bloquees = jeu.getRoutesBloquees(joueur1);
+            assertTrue((bloquees[r121.getIndice() >> 6] & (1L << r121.getIndice())) != 0);
+            assertEquals(1, Arrays.stream(bloquees).map(Long::bitCount).sum());
+            bloquees = jeu.getRoutesBloquees(joueur2);
+            assertEquals(nbJoueurs < 4 ? 1 : 0, Arrays.stream(bloquees).map(Long::bitCount).sum());
+        }
+    }
+
+    @Test
+    void testCopieIndependante() {
+        Plateau plateau = Plateau.getPlateauMonde();
+        EnsembleIndexe<Ville> ports = new EnsembleIndexe<>(plateau.getPorts(), plateau::indicePort, true);
+        EnsembleIndexe<Ville> copie = ports.copie();
+        ports.remove(plateau.getPorts().get(0));
+        assertEquals(plateau.getPorts(), copie);
+        assertEquals(plateau.getPorts().size() - 1, ports.size());
+    }
+}
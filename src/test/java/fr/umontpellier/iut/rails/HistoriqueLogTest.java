@@ -0,0 +1,53 @@
+package fr.umontpellier.iut.rails;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import fr.umontpellier.iut.gui.DiffJson;
+
+public class HistoriqueLogTest {
+    @Test
+    void testMessagesNumerotes() {
+        HistoriqueLog historique = new HistoriqueLog(5);
+        for (int i = 0; i < 8; i++) {
+            historique.add("m" + i);
+        }
+        assertEquals(List.of("m3", "m4", "m5", "m6", "m7"), historique);
+        assertEquals(3, historique.getPremierNumero());
+        assertEquals(8, historique.getNumeroSuivant());
+        assertArrayEquals(new Object[] { "m6", "m7" }, historique.derniers(2));
+        assertEquals(6, historique.debutDerniers(2));
+
+        ObjetJson page = historique.page(6, 2);
+        assertEquals(4L, page.get("debut"));
+        assertArrayEquals(new Object[] { "m4", "m5" }, (Object[]) page.get("messages"));
+        // les messages oubliés ne sont plus envoyés
+        page = historique.page(5, 4);
+        assertEquals(3L, page.get("debut"));
+        assertArrayEquals(new Object[] { "m3", "m4" }, (Object[]) page.get("messages"));
+        assertArrayEquals(new Object[0], (Object[]) historique.page(2, 4).get("messages"));
+    }
+
+    @Test
+    void testDiffFenetreDecalee() {
+        Jeu jeu = new Jeu(new String[] { "Guybrush", "Largo" }, 24);
+        for (int i = 0; i < Jeu.FENETRE_LOG + 10; i++) {
+            jeu.log("message " + i);
+        }
+        ObjetJson avant = jeu.etatJson();
+        jeu.log("nouveau 1");
+        jeu.log("nouveau 2");
+
+        List<DiffJson.Operation> operations = DiffJson.diff(avant, jeu.etatJson());
+        assertEquals(List.of(
+                new DiffJson.Operation("remove", "/log/0", null),
+                new DiffJson.Operation("remove", "/log/0", null),
+                new DiffJson.Operation("add", "/log/-", "nouveau 1"),
+                new DiffJson.Operation("add", "/log/-", "nouveau 2"),
+                new DiffJson.Operation("replace", "/logDebut", 12L)), operations);
+    }
+}
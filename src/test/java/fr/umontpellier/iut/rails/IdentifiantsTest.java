@@ -0,0 +1,98 @@
+package fr.umontpellier.iut.rails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import fr.umontpellier.iut.rails.data.CarteTransport;
+import fr.umontpellier.iut.rails.data.Couleur;
+import fr.umontpellier.iut.rails.data.Destination;
+import fr.umontpellier.iut.rails.data.Plateau;
+import fr.umontpellier.iut.rails.data.TypeCarteTransport;
+
+public class IdentifiantsTest {
+    private static final String[] NOMS_JOUEURS = { "Guybrush", "Largo", "LeChuck", "Elaine" };
+
+    /**
+     * Noms des cartes et destinations d'une nouvelle partie, triés
+     */
+    private static List<String> noms(Jeu jeu) {
+        List<String> noms = new ArrayList<>();
+        PilesCartesTransport wagon = (PilesCartesTransport) TestUtils.getAttribute(jeu, "pilesDeCartesWagon");
+        PilesCartesTransport bateau = (PilesCartesTransport) TestUtils.getAttribute(jeu, "pilesDeCartesBateau");
+        wagon.getCartes().forEach(carte -> noms.add(carte.getNom()));
+        bateau.getCartes().forEach(carte -> noms.add(carte.getNom()));
+        jeu.getPileDestinations().forEach(destination -> noms.add(destination.getNom()));
+        noms.sort(null);
+        return noms;
+    }
+
+    @Test
+    void testMemesNomsDansChaquePartie() {
+        List<CompletableFuture<List<String>>> parties = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            parties.add(CompletableFuture.supplyAsync(() -> noms(new Jeu(NOMS_JOUEURS, 0))));
+        }
+        List<String> attendus = noms(new Jeu(NOMS_JOUEURS, 1));
+        assertEquals(140 + 65, attendus.size());
+        assertEquals(140 + 65, attendus.stream().distinct().count());
+        for (CompletableFuture<List<String>> partie : parties) {
+            assertEquals(attendus, partie.join());
+        }
+    }
+
+    @Test
+    void testNumerotationContinueApresLaPartie() {
+        new Jeu(NOMS_JOUEURS);
+        assertEquals("C141", new CarteTransport(TypeCarteTransport.WAGON, Couleur.ROUGE, false, true).getNom());
+        assertEquals("D66", new Destination("A", "B", 10).getNom());
+
+        // les compteurs ne reculent pas : C141 n'est pas redonné
+        new Jeu(NOMS_JOUEURS);
+        assertEquals("C142", new CarteTransport(TypeCarteTransport.WAGON, Couleur.ROUGE, false, true).getNom());
+    }
+
+    @Test
+    void testSortesEtNomsPartages() {
+        List<CarteTransport> cartes1 = new ArrayList<>(((PilesCartesTransport) TestUtils.getAttribute(
+                new Jeu(NOMS_JOUEURS, 2), "pilesDeCartesBateau")).getCartes());
+        List<CarteTransport> cartes2 = new ArrayList<>(((PilesCartesTransport) TestUtils.getAttribute(
+                new Jeu(NOMS_JOUEURS, 2), "pilesDeCartesBateau")).getCartes());
+        for (int i = 0; i < cartes1.size(); i++) {
+            CarteTransport carte1 = cartes1.get(i);
+            CarteTransport carte2 = cartes2.get(i);
+            // mêmes noms (et mêmes sortes) d'une partie à l'autre, sans nouvelle chaîne
+            assertSame(carte1.getNom(), carte2.getNom());
+            assertSame(carte1.getSorte(), carte2.getSorte());
+            assertEquals(carte1.getType(), carte1.getSorte().getType());
+            assertEquals(carte1.getCouleur(), carte1.getSorte().getCouleur());
+            assertEquals(carte1.estDouble(), carte1.getSorte().estDouble());
+            assertEquals(carte1.getAncre(), carte1.getSorte().getAncre());
+        }
+
+        // à sorte égale, les cartes sont rangées par numéro (C9 avant C10)
+        cartes1.sort(null);
+        for (int i = 1; i < cartes1.size(); i++) {
+            CarteTransport precedente = cartes1.get(i - 1);
+            CarteTransport carte = cartes1.get(i);
+            assertTrue(precedente.getSorte().indice() < carte.getSorte().indice()
+                    || precedente.getSorte() == carte.getSorte() && precedente.getNumero() < carte.getNumero());
+        }
+    }
+
+    @Test
+    void testRoutesNumeroteesParLePlateau() {
+        List<Route> routes = Plateau.getPlateauMonde().getRoutes();
+        assertEquals(130, routes.size());
+        for (int i = 0; i < routes.size(); i++) {
+            assertEquals("R" + (i + 1), routes.get(i).getNom());
+            assertEquals(i, routes.get(i).getIndice());
+        }
+    }
+}
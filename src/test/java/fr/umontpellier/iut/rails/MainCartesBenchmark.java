@@ -0,0 +1,102 @@
+package fr.umontpellier.iut.rails;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import fr.umontpellier.iut.rails.data.CarteTransport;
+import fr.umontpellier.iut.rails.data.Couleur;
+
+/**
+ * Compare les questions de paiement posées sur une main parcourue (ArrayList, comme avant) et sur une main tenue
+ * à jour par nombres (MainCartes), pour toutes les mains successives d'une partie simulée complète, et mesure la
+ * durée d'une partie simulée complète.
+ *
+ * Ce n'est pas un test JUnit : après `mvn test-compile`, lancer la méthode main avec le classpath de test, par
+ * exemple `java -cp target/classes:target/test-classes:<dépendances> fr.umontpellier.iut.rails.MainCartesBenchmark`
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MainCartesBenchmark {
+    private static final String[] NOMS_JOUEURS = { "Guybrush", "Largo", "LeChuck", "Elaine" };
+    private Joueur joueur;
+    private List<List<CarteTransport>> listes;
+    private List<List<CarteTransport>> mains;
+
+    /**
+     * Mains du joueur courant après chaque action d'une partie simulée
+     */
+    @Setup
+    public void setUp() {
+        Jeu jeu = new Jeu(NOMS_JOUEURS, 7);
+        jeu.setSansAffichage(true);
+        MoteurPartie moteur = new MoteurPartie(jeu);
+        moteur.demarrer();
+        Decideur decideur = new DecideurAleatoire(7);
+        joueur = jeu.getJoueurs().get(0);
+        listes = new ArrayList<>();
+        mains = new ArrayList<>();
+        for (int i = 0; i < Simulation.NB_ACTIONS_MAX && !moteur.estTerminee(); i++) {
+            Action action = decideur.choisir(moteur);
+            if (action == null) {
+                break;
+            }
+            moteur.appliquer(action);
+            List<CarteTransport> main = jeu.getJoueurCourant().getCartesTransport();
+            listes.add(new ArrayList<>(main));
+            mains.add(new MainCartes(main));
+        }
+    }
+
+    private int questions(List<List<CarteTransport>> cartes) {
+        int total = 0;
+        for (List<CarteTransport> main : cartes) {
+            total += ReglesPaiement.peutPayerPort(main) ? 1 : 0;
+            total += joueur.nombreJoker(main);
+            for (Couleur couleur : Couleur.values()) {
+                total += joueur.compteurDeCarteWagonDeCouleurPlusJoker(couleur, main);
+                total += joueur.nombreCouleurBateauJoueur(main, couleur);
+                total += joueur.combienDeBateauSimpleRestant(main, couleur);
+                total += joueur.combienDeBateauDoubleRestant(main, couleur);
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int questionsListe() {
+        return questions(listes);
+    }
+
+    @Benchmark
+    public int questionsMain() {
+        return questions(mains);
+    }
+
+    @Benchmark
+    public Simulation.Resultat partieSimulee() {
+        return new Simulation(NOMS_JOUEURS, 7, new DecideurAleatoire(7)).jouer();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MainCartesBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,96 @@
+package fr.umontpellier.iut.rails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import fr.umontpellier.iut.rails.data.CarteTransport;
+import fr.umontpellier.iut.rails.data.Couleur;
+import fr.umontpellier.iut.rails.data.TypeCarteTransport;
+
+public class MainCartesTest {
+    /**
+     * Vérifie les nombres de la main en parcourant ses cartes
+     */
+    private static void verifier(MainCartes main) {
+        for (TypeCarteTransport type : TypeCarteTransport.values()) {
+            assertEquals(main.stream().filter(c -> c.getType() == type).count(), main.nombre(type));
+            for (Couleur couleur : Couleur.values()) {
+                for (boolean estDouble : new boolean[] { false, true }) {
+                    for (boolean ancre : new boolean[] { false, true }) {
+                        assertEquals(main.stream().filter(c -> c.getType() == type && c.getCouleur() == couleur
+                                && c.estDouble() == estDouble && c.getAncre() == ancre).count(),
+                                main.nombre(type, couleur, estDouble, ancre));
+                    }
+                }
+            }
+        }
+        for (Couleur couleur : Couleur.values()) {
+            assertEquals(main.stream().filter(c -> c.getCouleur() == couleur).count(), main.nombre(couleur));
+        }
+    }
+
+    @Test
+    void testNombresTenusAJour() {
+        Jeu jeu = new Jeu(new String[] { "Guybrush", "Largo" }, 4);
+        List<CarteTransport> pioche = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            pioche.add(i % 2 == 0 ? jeu.piocherCarteWagon() : jeu.piocherCarteBateau());
+        }
+        MainCartes main = new MainCartes(pioche.subList(0, 20));
+        verifier(main);
+
+        SplittableRandom aleatoire = new SplittableRandom(4);
+        for (int i = 20; i < 60; i++) {
+            main.add(aleatoire.nextInt(main.size() + 1), pioche.get(i));
+            if (i % 3 == 0) {
+                main.remove(pioche.get(aleatoire.nextInt(i)));
+            }
+            if (i % 7 == 0) {
+                main.set(aleatoire.nextInt(main.size()), pioche.get(aleatoire.nextInt(60)));
+            }
+        }
+        verifier(main);
+
+        main.sort(null);
+        main.subList(0, 5).clear();
+        verifier(main);
+        main.removeIf(carte -> carte.getType() == TypeCarteTransport.JOKER);
+        Iterator<CarteTransport> iterateur = main.iterator();
+        iterateur.next();
+        iterateur.remove();
+        verifier(main);
+        main.clear();
+        verifier(main);
+        assertEquals(0, main.nombre(TypeCarteTransport.WAGON));
+    }
+
+    @Test
+    void testMainDuJoueur() {
+        Jeu jeu = new Jeu(new String[] { "Guybrush", "Largo" });
+        Joueur joueur = jeu.getJoueurs().get(0);
+        List<CarteTransport> cartes = joueur.getCartesTransport();
+        cartes.clear();
+        cartes.add(new CarteTransport(TypeCarteTransport.BATEAU, Couleur.ROUGE, true, false));
+        cartes.add(new CarteTransport(TypeCarteTransport.BATEAU, Couleur.ROUGE, false, true));
+        cartes.add(new CarteTransport(TypeCarteTransport.WAGON, Couleur.ROUGE, false, true));
+        cartes.add(new CarteTransport(TypeCarteTransport.JOKER, Couleur.GRIS, false, true));
+
+        List<CarteTransport> copie = new ArrayList<>(cartes);
+        assertEquals(3, joueur.nombreCouleurBateauJoueurAvecDoubles(Couleur.ROUGE));
+        for (Couleur couleur : Couleur.values()) {
+            assertEquals(joueur.compteurDeCarteWagonDeCouleurPlusJoker(couleur, copie),
+                    joueur.compteurDeCarteWagonDeCouleurPlusJoker(couleur, cartes));
+            assertEquals(joueur.combienDeBateauDoubleRestant(copie, couleur),
+                    joueur.combienDeBateauDoubleRestant(cartes, couleur));
+            assertEquals(joueur.nombreCouleurWagonJoueur(copie, couleur),
+                    joueur.nombreCouleurWagonJoueur(cartes, couleur));
+        }
+        assertEquals(1, joueur.nombreJoker(cartes));
+    }
+}
@@ -0,0 +1,139 @@
+package fr.umontpellier.iut.rails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import fr.umontpellier.iut.gui.DiffJson;
+import fr.umontpellier.iut.rails.data.CarteTransport;
+import fr.umontpellier.iut.rails.data.Couleur;
+import fr.umontpellier.iut.rails.data.TypeCarteTransport;
+
+public class MarcheCartesTest {
+    private static CarteTransport joker() {
+        return new CarteTransport(TypeCarteTransport.JOKER, Couleur.GRIS, false, true);
+    }
+
+    private static CarteTransport bateau() {
+        return new CarteTransport(TypeCarteTransport.BATEAU, Couleur.ROUGE, false, false);
+    }
+
+    @Test
+    void testEmplacementsStables() {
+        MarcheCartes marche = new MarcheCartes();
+        assertEquals(Arrays.asList(new CarteTransport[MarcheCartes.NB_EMPLACEMENTS]), marche.getEmplacements());
+        CarteTransport[] cartes = { bateau(), joker(), bateau(), joker(), bateau(), bateau() };
+        for (CarteTransport carte : cartes) {
+            marche.add(carte);
+        }
+        assertEquals(List.of(cartes), marche);
+        assertEquals(2, marche.getNbJokers());
+        assertThrows(IllegalStateException.class, () -> marche.add(bateau()));
+
+        // la carte prise laisse son emplacement vide, sans déplacer les autres
+        assertSame(cartes[3], marche.prendre(3));
+        assertNull(marche.carte(3));
+        assertNull(marche.getEmplacements().get(3));
+        assertEquals(MarcheCartes.NB_EMPLACEMENTS, marche.getEmplacements().size());
+        assertEquals(5, marche.size());
+        assertEquals(1, marche.getNbJokers());
+        assertSame(cartes[4], marche.get(3));
+        assertSame(cartes[4], marche.getEmplacements().get(4));
+        CarteTransport nouvelle = joker();
+        assertNull(marche.remplacer(3, nouvelle));
+        assertEquals(3, marche.emplacement(nouvelle));
+        assertEquals(2, marche.getNbJokers());
+
+        // une pioche vide laisse l'emplacement vide
+        marche.prendre(0);
+        marche.remplacer(0, null);
+        assertNull(marche.carte(0));
+        assertEquals(5, marche.size());
+
+        // la liste respecte le contrat de List : pas d'insertion à un indice, pas de carte null, ajout à la fin
+        assertThrows(UnsupportedOperationException.class, () -> marche.add(0, bateau()));
+        assertThrows(NullPointerException.class, () -> marche.set(0, null));
+        marche.remove(4);
+        CarteTransport derniere = bateau();
+        marche.add(derniere);
+        assertSame(derniere, marche.get(marche.size() - 1));
+        assertEquals(5, marche.emplacement(derniere));
+    }
+
+    @Test
+    void testDeltaDUnSeulEmplacement() {
+        Jeu jeu = new Jeu(new String[] { "Guybrush", "Largo" }, 31);
+        jeu.retournerCartesVisibles();
+        ObjetJson avant = jeu.etatJson();
+        CarteTransport prise = jeu.prendreCarteVisible(2);
+        assertEquals(MarcheCartes.NB_EMPLACEMENTS - 1, jeu.getCartesTransportVisibles().size());
+        ObjetJson apresPrise = jeu.etatJson();
+        jeu.remplacerCarteVisible(2, "WAGON");
+        ObjetJson apresRemplacement = jeu.etatJson();
+
+        assertTrue(jeu.getJoueurCourant().getCartesTransport().contains(prise));
+        assertTrue(cheminsModifies(avant, apresPrise).contains("/cartesTransportVisibles/2"));
+        assertTrue(cheminsModifies(apresPrise, apresRemplacement).contains("/cartesTransportVisibles/2"));
+        for (String chemin : cheminsModifies(avant, apresRemplacement)) {
+            assertTrue(!chemin.startsWith("/cartesTransportVisibles") || chemin.equals("/cartesTransportVisibles/2"),
+                    chemin);
+        }
+    }
+
+    @Test
+    void testPriseParLeMoteurRemplaceSurLEmplacement() {
+        Jeu jeu = new Jeu(new String[] { "Guybrush", "Largo" }, 31);
+        jeu.setSansAffichage(true);
+        MoteurPartie moteur = new MoteurPartie(jeu);
+        moteur.demarrer();
+        MarcheCartes marche = (MarcheCartes) TestUtils.getAttribute(jeu, "cartesTransportVisibles");
+        marche.remplacer(4, bateau());
+        jeu.setJoueurCourant(jeu.getJoueurs().get(0));
+        moteur.commencerTour();
+
+        CarteTransport prise = marche.carte(4);
+        List<CarteTransport> autres = List.copyOf(marche.getEmplacements());
+        assertTrue(moteur.appliquer(new Action.PrendreCarteVisible(4)));
+        assertNull(marche.carte(4));
+        assertTrue(moteur.appliquer(new Action.PiocherCarte(TypeCarteTransport.WAGON)));
+        assertTrue(marche.carte(4) != null && marche.carte(4) != prise);
+        for (int i = 0; i < MarcheCartes.NB_EMPLACEMENTS; i++) {
+            if (i != 4) {
+                assertSame(autres.get(i), marche.carte(i));
+            }
+        }
+    }
+
+    private static List<String> cheminsModifies(ObjetJson ancien, ObjetJson nouveau) {
+        return DiffJson.diff(ancien, nouveau).stream().map(DiffJson.Operation::chemin).toList();
+    }
+
+    @Test
+    void testRemiseSi3Jokers() {
+        Jeu jeu = new Jeu(new String[] { "Guybrush", "Largo" }, 23);
+        MarcheCartes marche = (MarcheCartes) TestUtils.getAttribute(jeu, "cartesTransportVisibles");
+        PilesCartesTransport wagons = (PilesCartesTransport) TestUtils.getAttribute(jeu, "pilesDeCartesWagon");
+        PilesCartesTransport bateaux = (PilesCartesTransport) TestUtils.getAttribute(jeu, "pilesDeCartesBateau");
+        List<CarteTransport> defausseWagons = (List<CarteTransport>) TestUtils.getAttribute(wagons, "pileDefausse");
+        List<CarteTransport> defausseBateaux = (List<CarteTransport>) TestUtils.getAttribute(bateaux, "pileDefausse");
+
+        marche.clear();
+        CarteTransport[] cartes = { joker(), bateau(), joker(), bateau(), joker(), bateau() };
+        for (CarteTransport carte : cartes) {
+            marche.add(carte);
+        }
+        jeu.defausserSi3CartesJokerSontPresent();
+
+        assertEquals(List.of(cartes[0], cartes[2], cartes[4]), defausseWagons);
+        assertEquals(List.of(cartes[1], cartes[3], cartes[5]), defausseBateaux);
+        assertEquals(MarcheCartes.NB_EMPLACEMENTS, marche.size());
+        assertTrue(marche.getNbJokers() < 3);
+    }
+}
@@ -0,0 +1,553 @@
+package fr.umontpellier.iut.rails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import fr.umontpellier.iut.rails.data.CarteTransport;
+import fr.umontpellier.iut.rails.data.Couleur;
+import fr.umontpellier.iut.rails.data.Destination;
+import fr.umontpellier.iut.rails.data.TypeCarteTransport;
+import fr.umontpellier.iut.rails.data.Ville;
+
+/**
+ * Reprend les scénarios de JoueurProfTest, joués instruction par instruction avec le moteur non bloquant
+ */
+@Timeout(value = 1, threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+public class MoteurPartieTest {
+    private IOJeu jeu;
+    private MoteurPartie moteur;
+    private List<CarteTransport> piocheWagon;
+    private List<CarteTransport> defausseWagon;
+    private List<CarteTransport> defausseBateau;
+    private List<CarteTransport> cartesTransportVisibles;
+    private List<Destination> pileDestinations;
+    private List<Route> routes;
+    private List<Ville> ports;
+    private List<Joueur> joueurs;
+    private Joueur joueur1;
+    private List<CarteTransport> cartesJoueur1;
+    private List<Route> routesJoueur1;
+    private List<Ville> portsJoueur1;
+
+    @BeforeAll
+    static void staticInit() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @BeforeEach
+    void setUp() {
+        // réinitialisation des compteurs
+        TestUtils.setAttribute(CarteTransport.class, "compteur", 1);
+        TestUtils.setAttribute(Destination.class, "compteur", 1);
+        TestUtils.setAttribute(Route.class, "compteur", 1);
+
+        jeu = new IOJeu(new String[] { "Guybrush", "Largo", "LeChuck", "Elaine" });
+        PilesCartesTransport pilesWagon = (PilesCartesTransport) TestUtils.getAttribute(jeu,
+                "pilesDeCartesWagon");
+        piocheWagon = (List<CarteTransport>) TestUtils.getAttribute(pilesWagon, "pilePioche");
+        defausseWagon = (List<CarteTransport>) TestUtils.getAttribute(pilesWagon, "pileDefausse");
+        PilesCartesTransport pilesBateau = (PilesCartesTransport) TestUtils.getAttribute(jeu,
+                "pilesDeCartesBateau");
+        defausseBateau = (List<CarteTransport>) TestUtils.getAttribute(pilesBateau, "pileDefausse");
+        cartesTransportVisibles = (List<CarteTransport>) TestUtils.getAttribute(jeu,
+                "cartesTransportVisibles");
+        pileDestinations = (List<Destination>) TestUtils.getAttribute(jeu, "pileDestinations");
+        routes = (List<Route>) TestUtils.getAttribute(jeu, "routesLibres");
+        ports = (List<Ville>) TestUtils.getAttribute(jeu, "portsLibres");
+        joueurs = (List<Joueur>) TestUtils.getAttribute(jeu, "joueurs");
+        joueur1 = joueurs.get(0);
+        cartesJoueur1 = (List<CarteTransport>) TestUtils.getAttribute(joueur1, "cartesTransport");
+        routesJoueur1 = (List<Route>) TestUtils.getAttribute(joueur1, "routes");
+        portsJoueur1 = (List<Ville>) TestUtils.getAttribute(joueur1, "ports");
+
+        // initialisation des pions wagon et bateau du joueur 1
+        TestUtils.setAttribute(joueur1, "nbPionsWagon", 20);
+        TestUtils.setAttribute(joueur1, "nbPionsWagonEnReserve", 5);
+        TestUtils.setAttribute(joueur1, "nbPionsBateau", 40);
+        TestUtils.setAttribute(joueur1, "nbPionsBateauEnReserve", 10);
+
+        // initialisation des cartes visibles
+        for (int i = 0; i < 3; i++) {
+            cartesTransportVisibles.add(jeu.piocherCarteWagon());
+        }
+        for (int i = 0; i < 3; i++) {
+            cartesTransportVisibles.add(jeu.piocherCarteBateau());
+        }
+
+        moteur = new MoteurPartie(jeu);
+    }
+
+    /**
+     * Envoie les instructions au moteur et vérifie pour chacune qu'elle est acceptée ou refusée
+     *
+     * @param instructions alternance d'instructions et de booléens indiquant si l'instruction doit être acceptée
+     */
+    private void jouer(Object... instructions) {
+        for (int i = 0; i < instructions.length; i += 2) {
+            String instruction = (String) instructions[i];
+            assertEquals(instructions[i + 1], moteur.traiter(instruction), "instruction \"" + instruction + "\"");
+        }
+    }
+
+    private void verifierTourSuivant() {
+        assertEquals(MoteurPartie.Etat.ATTENTE_ACTION, moteur.getEtat());
+        assertEquals(joueurs.get(1), jeu.getJoueurCourant());
+    }
+
+    @Test
+    void testMiseEnPlace() {
+        TestUtils.setAttribute(joueur1, "nbPionsWagonEnReserve", 25);
+        TestUtils.setAttribute(joueur1, "nbPionsBateauEnReserve", 50);
+        cartesTransportVisibles.clear();
+
+        moteur.demarrer();
+        assertEquals(6, cartesTransportVisibles.size());
+        for (Joueur joueur : joueurs) {
+            assertEquals(joueur, jeu.getJoueurCourant());
+            assertEquals(10, joueur.getCartesTransport().size());
+            assertEquals(MoteurPartie.Etat.MISE_EN_PLACE_DESTINATIONS, moteur.getEtat());
+            jouer("", true, "9", false, "12", true);
+            assertEquals(5, TestUtils.getDestinations(joueur).size());
+            assertEquals(12, joueur.getNbPionsWagon());
+            assertEquals(48, joueur.getNbPionsBateau());
+            assertEquals(13, joueur.getNbPionsWagonEnReserve());
+            assertEquals(2, joueur.getNbPionsBateauEnReserve());
+        }
+        assertEquals(MoteurPartie.Etat.ATTENTE_ACTION, moteur.getEtat());
+        assertEquals(joueur1, jeu.getJoueurCourant());
+    }
+
+    @Test
+    void testMiseEnPlaceDefausseDestinations() {
+        List<Destination> proposees = List.copyOf(pileDestinations.subList(0, 5));
+
+        moteur.demarrer();
+        jouer(proposees.get(0).getNom(), true,
+                "DESTINATION", false,
+                proposees.get(1).getNom(), true); // il reste 3 destinations : passe au choix des pions
+
+        assertEquals(proposees.subList(2, 5), TestUtils.getDestinations(joueur1));
+        int nbDest = pileDestinations.size();
+        assertEquals(proposees.get(0), pileDestinations.get(nbDest - 2));
+        assertEquals(proposees.get(1), pileDestinations.get(nbDest - 1));
+        assertEquals(MoteurPartie.Etat.MISE_EN_PLACE_PIONS, moteur.getEtat());
+    }
+
+    @Test
+    void testPiocherDestinationsDefausser2() {
+        List<Destination> destinations = TestUtils.getDestinations(joueur1);
+        destinations.clear();
+        Destination destAB = new Destination("A", "B", 10); // D66
+        Destination destCD = new Destination("C", "D", 10); // D67
+        Destination destEF = new Destination("E", "F", 10); // D68
+        Destination destGH = new Destination("G", "H", 10); // D69
+        Destination destIJ = new Destination("I", "J", 10); // D70
+        pileDestinations.addAll(0, List.of(destAB, destCD, destEF, destGH, destIJ));
+
+        moteur.commencerTour();
+        jouer("DESTINATION", true,
+                "D70", false,
+                "D67", true,
+                "D68", true,
+                "", true);
+
+        assertEquals(2, destinations.size());
+        assertTrue(destinations.contains(destAB));
+        assertTrue(destinations.contains(destGH));
+        assertEquals(destIJ, pileDestinations.get(0));
+        int nbDest = pileDestinations.size();
+        assertEquals(destCD, pileDestinations.get(nbDest - 2));
+        assertEquals(destEF, pileDestinations.get(nbDest - 1));
+        verifierTourSuivant();
+    }
+
+    @Test
+    void testPrendrePionsWagon() {
+        moteur.commencerTour();
+        jouer("PIONS WAGON", true,
+                "-2", false,
+                "6", false, // seulement 5 pions wagon en réserve
+                "2", true);
+        assertEquals(22, TestUtils.getNbPionsWagon(joueur1));
+        assertEquals(3, TestUtils.getNbPionsWagonEnReserve(joueur1));
+        assertEquals(38, TestUtils.getNbPionsBateau(joueur1));
+        assertEquals(12, TestUtils.getNbPionsBateauEnReserve(joueur1));
+        assertEquals(-2, TestUtils.getScore(joueur1));
+        verifierTourSuivant();
+    }
+
+    @Test
+    void testPrendreCartesTransportVisibleEnWagonPiocheWagon() {
+        CarteTransport c1 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.ROUGE, false, false); // C141
+        CarteTransport c2 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.VERT, false, true); // C142
+        CarteTransport c3 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.JAUNE, false, true); // C143
+        CarteTransport c4 = new CarteTransport(TypeCarteTransport.JOKER, Couleur.GRIS, false, true); // C144
+        CarteTransport c5 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.ROUGE, false, true); // C145
+        CarteTransport c6 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.ROUGE, true, false); // C146
+        CarteTransport cWagon0 = piocheWagon.get(0);
+        CarteTransport cWagon1 = piocheWagon.get(1);
+        cartesTransportVisibles.clear();
+        cartesTransportVisibles.addAll(List.of(c1, c2, c3, c4, c5, c6));
+        cartesJoueur1.clear();
+
+        moteur.commencerTour();
+        jouer("C141", true,
+                "", false, // il faut remplacer la carte prise
+                "WAGON", true,
+                "C144", false, // pas de joker en deuxième carte
+                "WAGON", true);
+
+        assertEquals(2, cartesJoueur1.size());
+        assertTrue(cartesJoueur1.contains(c1));
+        assertTrue(cartesJoueur1.contains(cWagon1));
+        assertEquals(6, cartesTransportVisibles.size());
+        assertTrue(cartesTransportVisibles.contains(cWagon0));
+        verifierTourSuivant();
+    }
+
+    @Test
+    void testPrendreCartesTransportJokerEnBateau() {
+        CarteTransport c1 = new CarteTransport(TypeCarteTransport.JOKER, Couleur.GRIS, false, true); // C141
+        cartesTransportVisibles.set(0, c1);
+        cartesJoueur1.clear();
+
+        moteur.commencerTour();
+        jouer("C141", true,
+                "BATEAU", true); // fin du tour
+
+        assertEquals(List.of(c1), cartesJoueur1);
+        assertEquals(6, cartesTransportVisibles.size());
+        verifierTourSuivant();
+    }
+
+    @Test
+    void testPrendreCartesTransportVisiblePilesVides() {
+        CarteTransport c1 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.ROUGE, false, false); // C141
+        CarteTransport c2 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.VERT, false, true); // C142
+        cartesTransportVisibles.clear();
+        cartesTransportVisibles.addAll(List.of(c1, c2));
+        piocheWagon.clear();
+        defausseWagon.clear();
+        ((List<?>) TestUtils.getAttribute(TestUtils.getAttribute(jeu, "pilesDeCartesBateau"), "pilePioche")).clear();
+        defausseBateau.clear();
+        cartesJoueur1.clear();
+
+        moteur.commencerTour();
+        jouer("WAGON", false,
+                "C141", true,
+                "C142", true);
+
+        assertEquals(List.of(c1, c2), cartesJoueur1);
+        assertTrue(cartesTransportVisibles.isEmpty());
+        verifierTourSuivant();
+    }
+
+    @Test
+    void testCapturerRouteTerrestreGriseExemple2() {
+        cartesJoueur1.clear();
+        CarteTransport c1 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.ROUGE, false, true); // C141
+        CarteTransport c2 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.ROUGE, false, true); // C142
+        CarteTransport c3 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.VERT, false, true); // C143
+        CarteTransport c4 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.VERT, false, true); // C144
+        CarteTransport c5 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.JAUNE, false, true); // C145
+        CarteTransport c6 = new CarteTransport(TypeCarteTransport.JOKER, Couleur.GRIS, false, true); // C146
+        cartesJoueur1.addAll(List.of(c1, c2, c3, c4, c5, c6));
+
+        moteur.commencerTour();
+        jouer("R62", false, // route maritime, pas de cartes bateau
+                "R104", true, // Los Angeles - Winnipeg (terrestre 3 GRIS)
+                "C146", true,
+                "C145", false, // pas possible de payer intégralement en jaune
+                "C143", true,
+                "C141", false, // déjà défaussé une carte verte
+                "", false, // il faut finir de payer la route
+                "C144", true);
+
+        assertEquals(3, defausseWagon.size());
+        assertTrue(defausseWagon.containsAll(List.of(c3, c4, c6)));
+        assertEquals(3, cartesJoueur1.size());
+        assertTrue(cartesJoueur1.containsAll(List.of(c1, c2, c5)));
+        assertTrue(TestUtils.getAttribute(joueur1, "cartesTransportPosees") instanceof List<?> posees
+                && posees.isEmpty());
+        assertEquals(List.of("R104"), routesJoueur1.stream().map(Route::getNom).toList());
+        assertFalse(routes.stream().anyMatch(r -> r.getNom().equals("R104")));
+        assertEquals(17, TestUtils.getNbPionsWagon(joueur1));
+        assertEquals(4, TestUtils.getScore(joueur1));
+        verifierTourSuivant();
+    }
+
+    @Test
+    void testCapturerRouteMaritimeExemple4() {
+        cartesJoueur1.clear();
+        CarteTransport c1 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.VERT, false, true); // C141
+        CarteTransport c2 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.VERT, false, true); // C142
+        CarteTransport c3 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.VERT, true, false); // C143
+        CarteTransport c4 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.VERT, true, false); // C144
+        CarteTransport c5 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.BLANC, true, false); // C145
+        CarteTransport c6 = new CarteTransport(TypeCarteTransport.JOKER, Couleur.GRIS, false, true); // C146
+        cartesJoueur1.addAll(List.of(c1, c2, c3, c4, c5, c6));
+
+        moteur.commencerTour();
+        jouer("R114", true, // Murmansk - Reykjavik (maritime 4 VERT)
+                "C141", true,
+                "C143", true,
+                "C144", false, // C141 deviendrait inutile
+                "C146", true);
+
+        assertEquals(List.of(c6), defausseWagon);
+        assertEquals(2, defausseBateau.size());
+        assertTrue(defausseBateau.containsAll(List.of(c1, c3)));
+        assertEquals(3, cartesJoueur1.size());
+        assertEquals(36, TestUtils.getNbPionsBateau(joueur1));
+        assertEquals(7, TestUtils.getScore(joueur1));
+        verifierTourSuivant();
+    }
+
+    @Test
+    void testCapturerRouteMaritimeExemple5() {
+        cartesJoueur1.clear();
+        CarteTransport c1 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.VERT, false, true); // C141
+        CarteTransport c2 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.VERT, true, false); // C142
+        CarteTransport c3 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.VERT, true, false); // C143
+        CarteTransport c4 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.BLANC, false, true); // C144
+        cartesJoueur1.addAll(List.of(c1, c2, c3, c4));
+
+        moteur.commencerTour();
+        jouer("R114", true,
+                "C141", false, // impossible de payer exactement 4 avec C141
+                "C142", true,
+                "C143", true);
+
+        assertEquals(List.of(c2, c3), defausseBateau);
+        assertEquals(List.of(c1, c4), cartesJoueur1);
+        assertEquals(7, TestUtils.getScore(joueur1));
+        verifierTourSuivant();
+    }
+
+    @Test
+    void testCapturerRoutePaireExemple6() {
+        cartesJoueur1.clear();
+        CarteTransport c1 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.ROUGE, false, true); // C141
+        CarteTransport c2 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.ROUGE, false, true); // C142
+        CarteTransport c3 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.ROUGE, false, true); // C143
+        CarteTransport c4 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.ROUGE, false, true); // C144
+        CarteTransport c5 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.VERT, false, true); // C145
+        CarteTransport c6 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.VERT, false, true); // C146
+        CarteTransport c7 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.VIOLET, false, true); // C147
+        CarteTransport c8 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.VIOLET, false, true); // C148
+        CarteTransport c9 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.JAUNE, false, true); // C149
+        cartesJoueur1.addAll(List.of(c1, c2, c3, c4, c5, c6, c7, c8, c9));
+
+        moteur.commencerTour();
+        jouer("R22", true, // Lahore - Beijing (paire 3)
+                "C141", true,
+                "C145", true,
+                "C149", false, // pas de paire jaune possible
+                "C142", true,
+                "C143", true,
+                "C147", false, // on ne peut pas commencer une 4e paire
+                "C146", true,
+                "C144", true);
+
+        assertEquals(6, defausseWagon.size());
+        assertEquals(List.of(c7, c8, c9), cartesJoueur1);
+        assertEquals(4, TestUtils.getScore(joueur1));
+        verifierTourSuivant();
+    }
+
+    @Test
+    void testCapturerRoutePaireExemple7() {
+        cartesJoueur1.clear();
+        CarteTransport c1 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.ROUGE, false, true); // C141
+        CarteTransport c2 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.ROUGE, false, true); // C142
+        CarteTransport c3 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.ROUGE, false, true); // C143
+        CarteTransport c4 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.VERT, false, true); // C144
+        CarteTransport c5 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.VIOLET, false, true); // C145
+        CarteTransport c6 = new CarteTransport(TypeCarteTransport.JOKER, Couleur.GRIS, false, true); // C146
+        cartesJoueur1.addAll(List.of(c1, c2, c3, c4, c5, c6));
+
+        moteur.commencerTour();
+        jouer("R59", true, // Dar Es Salaam - Luanda (paire 2)
+                "C145", true,
+                "C144", false, // pas de paire verte possible
+                "C141", true,
+                "C142", true,
+                "C143", false, // il faut compléter la paire violette
+                "C146", true);
+
+        assertEquals(4, defausseWagon.size());
+        assertTrue(defausseWagon.containsAll(List.of(c1, c2, c5, c6)));
+        assertEquals(List.of(c3, c4), cartesJoueur1);
+        assertEquals(List.of("R59"), routesJoueur1.stream().map(Route::getNom).toList());
+        assertEquals(2, TestUtils.getScore(joueur1));
+        verifierTourSuivant();
+    }
+
+    @Test
+    void testPaiementAutomatique() {
+        cartesJoueur1.clear();
+        CarteTransport c1 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.VERT, false, true); // C141
+        CarteTransport c2 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.VERT, false, true); // C142
+        CarteTransport c3 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.VERT, true, false); // C143
+        CarteTransport c4 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.VERT, true, false); // C144
+        CarteTransport c5 = new CarteTransport(TypeCarteTransport.JOKER, Couleur.GRIS, false, true); // C145
+        cartesJoueur1.addAll(List.of(c1, c2, c3, c4, c5));
+
+        moteur.commencerTour();
+        jouer(MoteurPartie.PAIEMENT_AUTOMATIQUE, false, // pas de paiement en cours
+                "R114", true, // Murmansk - Reykjavik (maritime 4 VERT)
+                MoteurPartie.PAIEMENT_AUTOMATIQUE, true); // deux doubles, sans joker ni ancre
+
+        assertEquals(List.of(c3, c4), defausseBateau);
+        assertEquals(List.of(c1, c2, c5), cartesJoueur1);
+        assertEquals(7, TestUtils.getScore(joueur1));
+        verifierTourSuivant();
+    }
+
+    @Test
+    void testPaiementAutomatiqueCommence() {
+        cartesJoueur1.clear();
+        CarteTransport c1 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.VERT, false, true); // C141
+        CarteTransport c2 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.VERT, false, true); // C142
+        CarteTransport c3 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.VERT, true, false); // C143
+        CarteTransport c4 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.VERT, true, false); // C144
+        CarteTransport c5 = new CarteTransport(TypeCarteTransport.JOKER, Couleur.GRIS, false, true); // C145
+        cartesJoueur1.addAll(List.of(c1, c2, c3, c4, c5));
+
+        moteur.commencerTour();
+        jouer("R114", true,
+                "C141", true,
+                MoteurPartie.PAIEMENT_AUTOMATIQUE, true); // complète avec C142 et un double plutôt qu'un joker
+
+        assertEquals(3, defausseBateau.size());
+        assertTrue(defausseBateau.containsAll(List.of(c1, c2, c3)));
+        assertEquals(List.of(c4, c5), cartesJoueur1);
+        verifierTourSuivant();
+    }
+
+    @Test
+    void testConstruirePort() {
+        Route route = routes.stream().filter(r -> r.getNom().equals("R49")).findFirst().get(); // Casablanca - Lagos
+        routes.remove(route);
+        routesJoueur1.add(route);
+        cartesJoueur1.clear();
+        CarteTransport c1 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.JAUNE, true, false); // C141
+        CarteTransport c2 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.JAUNE, false, true); // C142
+        CarteTransport c3 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.VERT, false, true); // C143
+        CarteTransport c4 = new CarteTransport(TypeCarteTransport.BATEAU, Couleur.JAUNE, false, true); // C144
+        CarteTransport c5 = new CarteTransport(TypeCarteTransport.JOKER, Couleur.GRIS, false, true); // C145
+        CarteTransport c6 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.JAUNE, false, true); // C146
+        CarteTransport c7 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.JAUNE, false, false); // C147
+        CarteTransport c8 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.JAUNE, false, true); // C148
+        cartesJoueur1.addAll(List.of(c1, c2, c3, c4, c5, c6, c7, c8));
+        Ville casablanca = ports.stream().filter(p -> p.nom().equals("Casablanca")).findFirst().get();
+
+        moteur.commencerTour();
+        jouer("New York", false, // pas de route connectée
+                "Casablanca", true,
+                "C141", false, // pas d'ancre
+                "C142", true,
+                "C143", false, // couleur incorrecte
+                "C145", true,
+                "C144", true,
+                "C147", false, // pas d'ancre
+                "C146", true);
+
+        assertEquals(List.of(c1, c3, c7, c8), cartesJoueur1);
+        assertEquals(2, defausseWagon.size());
+        assertEquals(2, defausseBateau.size());
+        assertFalse(ports.contains(casablanca));
+        assertTrue(portsJoueur1.contains(casablanca));
+        assertEquals(0, TestUtils.getScore(joueur1));
+        verifierTourSuivant();
+    }
+
+    @Test
+    void testFinDePartie() {
+        TestUtils.setAttribute(joueur1, "nbPionsWagon", 2);
+        TestUtils.setAttribute(joueur1, "nbPionsBateau", 4);
+
+        moteur.commencerTour();
+        // 1 tour pour déclencher la fin de partie, puis 2 tours par joueur
+        for (int i = 0; i < 1 + 2 * joueurs.size(); i++) {
+            assertFalse(moteur.estTerminee());
+            jouer("BATEAU", true, "", true);
+        }
+        assertTrue(moteur.estTerminee());
+        jouer("WAGON", false);
+    }
+
+    @Test
+    void testActionsMiseEnPlaceDestinations() {
+        moteur.demarrer();
+        List<Destination> proposees = moteur.getDestinationsProposees();
+        assertEquals(5, proposees.size());
+        // au moins 3 destinations gardées parmi 5 : 10 + 5 + 1 choix
+        assertEquals(16, moteur.actionsPossibles().size());
+        assertFalse(moteur.appliquer(new Action.GarderDestinations(proposees.subList(0, 2))));
+
+        List<Destination> defaussees = List.copyOf(proposees.subList(3, 5));
+        assertTrue(moteur.appliquer(new Action.GarderDestinations(List.copyOf(proposees.subList(0, 3)))));
+        assertEquals(MoteurPartie.Etat.MISE_EN_PLACE_PIONS, moteur.getEtat());
+        assertEquals(3, TestUtils.getDestinations(joueur1).size());
+        assertEquals(defaussees, pileDestinations.subList(pileDestinations.size() - 2, pileDestinations.size()));
+        assertTrue(moteur.actionsPossibles().contains(new Action.ChoisirPionsWagon(25)));
+    }
+
+    @Test
+    void testActionPrendreRoute() {
+        cartesJoueur1.clear();
+        CarteTransport c1 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.ROUGE, false, true); // C141
+        CarteTransport c2 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.VERT, false, true); // C142
+        CarteTransport c3 = new CarteTransport(TypeCarteTransport.WAGON, Couleur.VERT, false, true); // C143
+        CarteTransport c4 = new CarteTransport(TypeCarteTransport.JOKER, Couleur.GRIS, false, true); // C144
+        cartesJoueur1.addAll(List.of(c1, c2, c3, c4));
+        Route route = routes.stream().filter(r -> r.getNom().equals("R104")).findFirst().get(); // 3 GRIS
+
+        moteur.commencerTour();
+        List<Action> actions = moteur.actionsPossibles();
+        assertTrue(actions.contains(new Action.PrendreRoute(route, List.of(c2, c3, c4))));
+        assertFalse(actions.contains(new Action.PrendreRoute(route, List.of(c1, c2, c4))));
+        assertFalse(moteur.appliquer(new Action.PrendreRoute(route, List.of(c1, c2, c4))));
+        assertEquals(4, cartesJoueur1.size());
+
+        assertTrue(moteur.appliquer(new Action.PrendreRoute(route, List.of(c2, c3, c4))));
+        assertEquals(List.of(c1), cartesJoueur1);
+        assertEquals(List.of(route), routesJoueur1);
+        assertFalse(routes.contains(route));
+        assertEquals(4, TestUtils.getScore(joueur1));
+        verifierTourSuivant();
+    }
+
+    @Test
+    void testActionsRefusees() {
+        CarteTransport absente = new CarteTransport(TypeCarteTransport.JOKER, Couleur.GRIS, false, true);
+        Route route = routes.stream().filter(r -> r.getNom().equals("R104")).findFirst().get();
+        assertTrue(moteur.actionsPossibles().isEmpty());
+        assertFalse(moteur.appliquer(new Action.PiocherDestinations()));
+
+        moteur.commencerTour();
+        assertFalse(moteur.appliquer(new Action.PrendreRoute(route, List.of(absente, absente, absente))));
+        assertFalse(moteur.appliquer(new Action.PiocherCarte(TypeCarteTransport.JOKER)));
+        assertFalse(moteur.appliquer(new Action.ChoisirPionsWagon(20)));
+        assertFalse(moteur.appliquer(new Action.Passer()));
+        assertEquals(MoteurPartie.Etat.ATTENTE_ACTION, moteur.getEtat());
+        assertEquals(joueur1, jeu.getJoueurCourant());
+
+        assertTrue(moteur.appliquer(new Action.PiocherCarte(TypeCarteTransport.WAGON)));
+        assertEquals(MoteurPartie.Etat.ATTENTE_DEUXIEME_CARTE, moteur.getEtat());
+        assertTrue(moteur.actionsPossibles().contains(new Action.Passer()));
+        assertTrue(moteur.appliquer(new Action.Passer()));
+        verifierTourSuivant();
+    }
+}
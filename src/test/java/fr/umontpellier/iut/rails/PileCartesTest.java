@@ -0,0 +1,92 @@
+package fr.umontpellier.iut.rails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import fr.umontpellier.iut.rails.data.CarteTransport;
+import fr.umontpellier.iut.rails.data.Couleur;
+import fr.umontpellier.iut.rails.data.TypeCarteTransport;
+
+public class PileCartesTest {
+    private static List<CarteTransport> paquet(int taille) {
+        List<CarteTransport> cartes = new ArrayList<>();
+        for (int i = 0; i < taille; i++) {
+            cartes.add(new CarteTransport(TypeCarteTransport.WAGON, Couleur.values()[i % 6], false, i % 2 == 0));
+        }
+        return cartes;
+    }
+
+    @Test
+    void testCommeUneListe() {
+        List<CarteTransport> cartes = paquet(30);
+        List<CarteTransport> attendue = new ArrayList<>(cartes.subList(0, 10));
+        PileCartes pile = new PileCartes(attendue, 12);
+        SplittableRandom aleatoire = new SplittableRandom(21);
+        for (int i = 10; i < 30; i++) {
+            int index = i % 3 == 0 ? 0 : i % 3 == 1 ? pile.size() : aleatoire.nextInt(pile.size() + 1);
+            attendue.add(index, cartes.get(i));
+            pile.add(index, cartes.get(i));
+            if (i % 4 == 0) {
+                index = i % 8 == 0 ? 0 : aleatoire.nextInt(pile.size());
+                assertSame(attendue.remove(index), pile.remove(index));
+            }
+            assertEquals(attendue, pile);
+        }
+        pile.subList(2, 6).clear();
+        attendue.subList(2, 6).clear();
+        assertEquals(attendue, pile);
+
+        List<CarteTransport> melangee = new ArrayList<>(attendue);
+        Jeu.melanger(melangee, new SplittableRandom(5));
+        pile.melanger(new SplittableRandom(5));
+        assertEquals(melangee, pile);
+    }
+
+    @Test
+    void testPiocheEtDefausse() {
+        List<CarteTransport> cartes = paquet(20);
+        PilesCartesTransport piles = new PilesCartesTransport(new ArrayList<>(cartes), new SplittableRandom(3));
+        List<CarteTransport> pioche = (List<CarteTransport>) TestUtils.getAttribute(piles, "pilePioche");
+        List<CarteTransport> defausse = (List<CarteTransport>) TestUtils.getAttribute(piles, "pileDefausse");
+
+        List<CarteTransport> melangees = new ArrayList<>(cartes);
+        Jeu.melanger(melangees, new SplittableRandom(3));
+        assertEquals(melangees, pioche);
+
+        for (int tour = 0; tour < 3; tour++) {
+            HashSet<CarteTransport> piochees = new HashSet<>();
+            for (int i = 0; i < 20; i++) {
+                piochees.add(piles.piocher());
+            }
+            assertEquals(20, piochees.size());
+            assertTrue(pioche.isEmpty());
+            piochees.forEach(piles::defausser);
+            assertEquals(20, defausse.size());
+        }
+        assertEquals(20, piles.getCartes().size());
+
+        // remettre la défausse sous la pioche ne duplique pas les cartes
+        piles.piocher();
+        CarteTransport carte = piles.piocher();
+        piles.defausser(carte);
+        piles.remplacer();
+        assertEquals(19, pioche.size());
+        assertTrue(defausse.isEmpty());
+        assertEquals(19, new HashSet<>(piles.getCartes()).size());
+
+        for (int i = 0; i < 19; i++) {
+            piles.piocher();
+        }
+        assertNull(piles.piocher());
+        assertTrue(piles.estVide());
+    }
+}
@@ -0,0 +1,125 @@
+package fr.umontpellier.iut.rails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import fr.umontpellier.iut.rails.data.CarteTransport;
+import fr.umontpellier.iut.rails.data.Couleur;
+import fr.umontpellier.iut.rails.data.Plateau;
+import fr.umontpellier.iut.rails.data.TypeCarteTransport;
+
+public class ReglesPaiementTest {
+    private static final Couleur[] COULEURS = { Couleur.ROUGE, Couleur.VERT };
+
+    /**
+     * Coût d'un paiement, avec les mêmes critères que ReglesPaiement.meilleurPaiementRoute()
+     */
+    private static long cout(List<CarteTransport> paiement) {
+        long jokers = paiement.stream().filter(c -> c.getType() == TypeCarteTransport.JOKER).count();
+        long ancres = paiement.stream().filter(c -> c.getType() != TypeCarteTransport.JOKER && c.getAncre()).count();
+        long doubles = paiement.stream().filter(CarteTransport::estDouble).count();
+        return ((jokers * 64 + ancres) * 64 + paiement.size()) * 64 + doubles;
+    }
+
+    private static List<CarteTransport> mainAleatoire(SplittableRandom aleatoire, int taille) {
+        List<CarteTransport> main = new ArrayList<>();
+        for (int i = 0; i < taille; i++) {
+            int tirage = aleatoire.nextInt(10);
+            Couleur couleur = COULEURS[aleatoire.nextInt(COULEURS.length)];
+            boolean ancre = aleatoire.nextBoolean();
+            if (tirage == 0) {
+                main.add(new CarteTransport(TypeCarteTransport.JOKER, Couleur.GRIS, false, true));
+            } else if (tirage < 5) {
+                main.add(new CarteTransport(TypeCarteTransport.WAGON, couleur, false, ancre));
+            } else {
+                main.add(new CarteTransport(TypeCarteTransport.BATEAU, couleur, tirage >= 8, ancre));
+            }
+        }
+        return main;
+    }
+
+    /**
+     * Compare le meilleur paiement trouvé au meilleur paiement parmi tous les sous-ensembles de la main
+     *
+     * @param route la route à payer (null pour un port)
+     */
+    private static void verifier(Route route, List<CarteTransport> main) {
+        long meilleurCout = Long.MAX_VALUE;
+        for (int masque = 1; masque < 1 << main.size(); masque++) {
+            List<CarteTransport> paiement = new ArrayList<>();
+            for (int i = 0; i < main.size(); i++) {
+                if ((masque & 1 << i) != 0) {
+                    paiement.add(main.get(i));
+                }
+            }
+            boolean complet = route == null ? ReglesPaiement.estPaiementPortComplet(paiement)
+                    : ReglesPaiement.estPaiementRouteComplet(route, paiement);
+            if (complet) {
+                meilleurCout = Math.min(meilleurCout, cout(paiement));
+            }
+        }
+        List<CarteTransport> trouve = route == null ? ReglesPaiement.meilleurPaiementPort(List.of(), main)
+                : ReglesPaiement.meilleurPaiementRoute(route, List.of(), main);
+        if (meilleurCout == Long.MAX_VALUE) {
+            assertNull(trouve, "route " + route + ", main " + main);
+            return;
+        }
+        assertEquals(meilleurCout, cout(trouve), "route " + route + ", main " + main);
+        assertTrue(route == null ? ReglesPaiement.estPaiementPortComplet(trouve)
+                : ReglesPaiement.estPaiementRouteComplet(route, trouve));
+
+        // en partant de la première carte du meilleur paiement, le paiement complété reste valide
+        List<CarteTransport> posees = List.of(trouve.get(0));
+        List<CarteTransport> reste = new ArrayList<>(main);
+        reste.remove(trouve.get(0));
+        List<CarteTransport> complete = new ArrayList<>(posees);
+        complete.addAll(route == null ? ReglesPaiement.meilleurPaiementPort(posees, reste)
+                : ReglesPaiement.meilleurPaiementRoute(route, posees, reste));
+        assertTrue(route == null ? ReglesPaiement.estPaiementPortComplet(complete)
+                : ReglesPaiement.estPaiementRouteComplet(route, complete));
+    }
+
+    @Test
+    void testMeilleurPaiementExhaustif() {
+        List<Route> routes = new ArrayList<>();
+        for (Route route : Plateau.getPlateauMonde().getRoutes()) {
+            if (route.getLongueur() <= 4 && (route instanceof RoutePaire || route.getCouleur() == Couleur.GRIS
+                    || route.getCouleur() == Couleur.ROUGE)
+                    && routes.stream().noneMatch(r -> r.getClass() == route.getClass()
+                    && r.getCouleur() == route.getCouleur() && r.getLongueur() == route.getLongueur())) {
+                routes.add(route);
+            }
+        }
+        SplittableRandom aleatoire = new SplittableRandom(20);
+        for (int i = 0; i < 40; i++) {
+            List<CarteTransport> main = mainAleatoire(aleatoire, 9);
+            verifier(null, main);
+            for (Route route : routes) {
+                verifier(route, main);
+            }
+        }
+    }
+
+    @Test
+    void testPaiementsParCouleur() {
+        List<CarteTransport> main = List.of(
+                new CarteTransport(TypeCarteTransport.BATEAU, Couleur.VERT, false, true),
+                new CarteTransport(TypeCarteTransport.BATEAU, Couleur.VERT, true, false),
+                new CarteTransport(TypeCarteTransport.BATEAU, Couleur.ROUGE, true, false),
+                new CarteTransport(TypeCarteTransport.JOKER, Couleur.GRIS, false, true));
+        Route route = Plateau.getPlateauMonde().getRoutes().stream()
+                .filter(r -> r instanceof RouteMaritime && r.getCouleur() == Couleur.GRIS && r.getLongueur() == 3)
+                .findFirst().get();
+
+        List<List<CarteTransport>> paiements = ReglesPaiement.paiementsRoute(route, main);
+        assertEquals(List.of(List.of(main.get(2), main.get(3)), List.of(main.get(0), main.get(1))), paiements);
+        assertEquals(List.of(main.get(0), main.get(1)), ReglesPaiement.meilleurPaiementRoute(route, List.of(), main));
+    }
+}
@@ -0,0 +1,148 @@
+package fr.umontpellier.iut.rails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import fr.umontpellier.iut.rails.data.CarteTransport;
+import fr.umontpellier.iut.rails.data.TypeCarteTransport;
+
+public class RejoueurTest {
+    private static final String[] NOMS_JOUEURS = { "Guybrush", "Largo", "LeChuck", "Elaine" };
+
+    /**
+     * Résumé de l'état des joueurs
+     */
+    private static List<String> resume(MoteurPartie moteur) {
+        Jeu jeu = moteur.getJeu();
+        List<String> resume = new ArrayList<>();
+        resume.add(moteur.getEtat() + " " + moteur.getNbTours() + " "
+                + jeu.getJoueurs().indexOf(jeu.getJoueurCourant()));
+        resume.addAll(resume(jeu));
+        return resume;
+    }
+
+    private static List<String> resume(Jeu jeu) {
+        List<String> resume = new ArrayList<>();
+        for (Joueur joueur : jeu.getJoueurs()) {
+            List<String> cartes = new ArrayList<>();
+            for (CarteTransport carte : joueur.getCartesTransport()) {
+                cartes.add(carte.getNom());
+            }
+            List<String> routes = new ArrayList<>();
+            for (Route route : joueur.getRoutes()) {
+                routes.add(route.getNom());
+            }
+            resume.add(joueur.getScore() + " " + joueur.getNbPionsWagon() + " " + joueur.getNbPionsBateau() + " "
+                    + cartes + " " + routes + " " + joueur.getPorts());
+        }
+        return resume;
+    }
+
+    @Test
+    void testRejouerPartieSimulee() {
+        Simulation simulation = new Simulation(NOMS_JOUEURS, 12, new DecideurAleatoire(5));
+        simulation.jouer();
+        Journal journal = Journal.importer(simulation.getMoteur().getJeu().getJournal().exporter());
+        assertEquals(12, journal.getGraine());
+
+        MoteurPartie moteur = Rejoueur.rejouer(journal);
+        assertTrue(moteur.estTerminee());
+        assertEquals(resume(simulation.getMoteur()), resume(moteur));
+        assertEquals(journal.getEntrees(), moteur.getJeu().getJournal().getEntrees());
+    }
+
+    @Test
+    void testRejouerJusquAuTour() {
+        Simulation simulation = new Simulation(NOMS_JOUEURS, 3, new DecideurAleatoire(3));
+        Journal journal = simulation.getMoteur().getJeu().getJournal();
+        simulation.jouer();
+
+        MoteurPartie moteur = Rejoueur.rejouer(journal, 20);
+        assertEquals(20, moteur.getNbTours());
+        assertEquals(MoteurPartie.Etat.ATTENTE_ACTION, moteur.getEtat());
+        assertEquals(NOMS_JOUEURS[0], moteur.getJeu().getJoueurCourant().getNom());
+    }
+
+    @Test
+    void testRejouerInstructions() {
+        Jeu jeu = new Jeu(NOMS_JOUEURS, 99);
+        jeu.setSansAffichage(true);
+        MoteurPartie moteur = new MoteurPartie(jeu);
+        moteur.demarrer();
+        for (int i = 0; i < NOMS_JOUEURS.length; i++) {
+            String destination = moteur.getDestinationsProposees().get(0).getNom();
+            assertTrue(moteur.traiter(destination));
+            assertTrue(moteur.traiter(""));
+            moteur.traiter("100"); // refusée : n'est pas journalisée
+            assertTrue(moteur.traiter("20"));
+        }
+        assertTrue(moteur.traiter("WAGON"));
+        // deuxième carte : une carte visible qui n'est pas un joker
+        int emplacement = 0;
+        while (jeu.getCartesTransportVisibles().get(emplacement).getType() == TypeCarteTransport.JOKER) {
+            emplacement++;
+        }
+        assertTrue(moteur.appliquer(new Action.PrendreCarteVisible(emplacement)));
+        assertEquals(3 * NOMS_JOUEURS.length + 2, jeu.getJournal().taille());
+
+        MoteurPartie rejoue = Rejoueur.rejouer(Journal.importer(jeu.getJournal().exporter()));
+        assertEquals(resume(moteur), resume(rejoue));
+    }
+
+    /**
+     * Lance Jeu.run() sur un nouveau thread et lui transmet les entrées par addInput(), puis attend qu'il les ait
+     * toutes lues et attende la suivante
+     */
+    private static Thread lancer(Jeu jeu, List<String> entrees) throws InterruptedException {
+        Thread thread = new Thread(jeu::run);
+        thread.setDaemon(true);
+        thread.start();
+        entrees.forEach(jeu::addInput);
+        Collection<?> file = (Collection<?>) TestUtils.getAttribute(jeu, "inputQueue");
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!file.isEmpty() || thread.getState() != Thread.State.WAITING) {
+            assertTrue(System.nanoTime() < limite);
+            Thread.sleep(1);
+        }
+        return thread;
+    }
+
+    @Test
+    void testJournalBoucleBloquante() throws InterruptedException {
+        Jeu jeu = new Jeu(NOMS_JOUEURS, 42);
+        jeu.setSansAffichage(true);
+        List<String> entrees = new ArrayList<>();
+        for (int i = 0; i < NOMS_JOUEURS.length; i++) {
+            Collections.addAll(entrees, "", "abc", "100", "20"); // "abc" et "100" sont refusées
+        }
+        Collections.addAll(entrees, "TRAIN", "WAGON");
+        lancer(jeu, entrees).interrupt();
+
+        List<String> acceptees = new ArrayList<>(entrees);
+        acceptees.removeAll(List.of("abc", "100", "TRAIN"));
+        assertEquals(acceptees, jeu.getJournal().getEntrees());
+
+        // la partie jouée par Jeu.run() se rejoue à l'identique avec le MoteurPartie
+        Journal journal = Journal.importer(jeu.getJournal().exporter());
+        Jeu rejoue = Rejoueur.rejouer(journal).getJeu();
+        assertEquals(resume(jeu), resume(rejoue));
+        assertEquals(jeu.getCartesTransportVisibles().toString(), rejoue.getCartesTransportVisibles().toString());
+        assertEquals(journal.getEntrees(), rejoue.getJournal().getEntrees());
+    }
+
+    @Test
+    void testJournalIncoherent() {
+        Journal journal = Journal.importer("7\tGuybrush\tLargo\n#pions\t20\n");
+        assertThrows(IllegalStateException.class, () -> Rejoueur.rejouer(journal));
+        assertThrows(IllegalArgumentException.class, () -> Journal.importer("graine\tGuybrush\n"));
+    }
+}
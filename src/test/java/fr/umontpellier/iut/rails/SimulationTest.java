@@ -0,0 +1,96 @@
+package fr.umontpellier.iut.rails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+public class SimulationTest {
+    private static final String[] NOMS_JOUEURS = { "Guybrush", "Largo", "LeChuck", "Elaine" };
+
+    @Test
+    void testPartiesAleatoiresTerminees() {
+        for (long graine = 0; graine < 5; graine++) {
+            Simulation.Resultat resultat = new Simulation(NOMS_JOUEURS, new DecideurAleatoire(graine)).jouer();
+            assertTrue(resultat.terminee());
+            assertEquals(0, resultat.nbActionsRefusees());
+            assertEquals(NOMS_JOUEURS.length, resultat.scores().size());
+            assertTrue(resultat.nbTours() > NOMS_JOUEURS.length);
+        }
+    }
+
+    @Test
+    void testSansAffichage() {
+        PrintStream sortie = System.out;
+        ByteArrayOutputStream affichage = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(affichage));
+        Simulation simulation;
+        try {
+            simulation = new Simulation(NOMS_JOUEURS, new DecideurAleatoire(1));
+            simulation.jouer();
+        } finally {
+            System.setOut(sortie);
+        }
+        assertEquals(0, affichage.size());
+        List<String> log = (List<String>) TestUtils.getAttribute(simulation.getMoteur().getJeu(), "log");
+        assertTrue(log.isEmpty());
+    }
+
+    @Test
+    void testUnDecideurParJoueur() {
+        Decideur[] decideurs = new Decideur[NOMS_JOUEURS.length];
+        for (int i = 0; i < decideurs.length; i++) {
+            int numero = i;
+            Decideur aleatoire = new DecideurAleatoire(i);
+            decideurs[i] = moteur -> {
+                Jeu jeu = moteur.getJeu();
+                assertSame(jeu.getJoueurs().get(numero), jeu.getJoueurCourant());
+                return aleatoire.choisir(moteur);
+            };
+        }
+        assertTrue(new Simulation(NOMS_JOUEURS, decideurs).jouer().terminee());
+    }
+
+    @Test
+    void testNombreDeDecideursInvalide() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new Simulation(NOMS_JOUEURS, new DecideurAleatoire(0), new DecideurAleatoire(1)));
+    }
+
+    @Test
+    void testPartieAbandonnee() {
+        Simulation.Resultat resultat = new Simulation(NOMS_JOUEURS, new DecideurAleatoire(0)).jouer(10);
+        assertEquals(10, resultat.nbActions());
+        assertFalse(resultat.terminee());
+    }
+
+    @Test
+    void testMemeGraineMemePartie() {
+        // même partie jouée en parallèle sur deux threads
+        CompletableFuture<Simulation.Resultat> autreThread = CompletableFuture
+                .supplyAsync(() -> new Simulation(NOMS_JOUEURS, 7, new DecideurAleatoire(3)).jouer());
+        Simulation.Resultat resultat = new Simulation(NOMS_JOUEURS, 7, new DecideurAleatoire(3)).jouer();
+        assertEquals(resultat, autreThread.join());
+    }
+
+    @Test
+    void testGraineDansEtat() {
+        Jeu jeu = new Jeu(NOMS_JOUEURS, 42);
+        Jeu memeGraine = new Jeu(NOMS_JOUEURS, 42);
+        assertEquals(42, jeu.getGraine());
+        assertEquals("42", jeu.etatJson().get("graine"));
+        for (int i = 0; i < 60; i++) {
+            assertEquals(jeu.piocherCarteWagon().getCouleur(), memeGraine.piocherCarteWagon().getCouleur());
+            assertEquals(jeu.piocherCarteBateau().getCouleur(), memeGraine.piocherCarteBateau().getCouleur());
+        }
+        assertEquals(jeu.piocherDestination().getVilles(), memeGraine.piocherDestination().getVilles());
+    }
+}
@@ -0,0 +1,92 @@
+package fr.umontpellier.iut.rails;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+public class SortieAsynchroneTest {
+    /**
+     * Sortie qui garde les lots écrits, et bloque l'écriture du premier lot jusqu'à ce que le test la libère
+     */
+    private static class SortieLots extends SortieAsynchrone<String> {
+        private final List<List<String>> lots = new ArrayList<>();
+        private final CountDownLatch premierLotRecu = new CountDownLatch(1);
+        private final CountDownLatch liberation = new CountDownLatch(1);
+
+        @Override
+        protected String preparer(Jeu jeu, String instruction, Collection<Bouton> boutons) {
+            return instruction;
+        }
+
+        @Override
+        protected void ecrire(List<String> lot) throws InterruptedException {
+            lots.add(lot);
+            premierLotRecu.countDown();
+            liberation.await();
+        }
+    }
+
+    @Test
+    void testEcritureParLots() throws InterruptedException {
+        Jeu jeu = new Jeu(new String[] { "Guybrush", "Largo" }, 25);
+        SortieLots sortie = new SortieLots();
+        jeu.ajouterSortie(sortie);
+
+        jeu.prompt("q0", List.of(), false);
+        sortie.premierLotRecu.await();
+        // pendant l'écriture du premier lot, les questions suivantes attendent dans la file
+        for (int i = 1; i <= 3; i++) {
+            jeu.prompt("q" + i, List.of(), false);
+        }
+        sortie.liberation.countDown();
+        jeu.fermerSorties();
+
+        assertEquals(List.of(List.of("q0"), List.of("q1", "q2", "q3")), sortie.lots);
+        assertEquals(0, sortie.getNbAbandonnes());
+        // une sortie fermée ne reçoit plus rien
+        jeu.prompt("q4", List.of(), false);
+        assertEquals(2, sortie.lots.size());
+    }
+
+    @Test
+    void testSortiesFermeesEnFinDePartie() {
+        Simulation simulation = new Simulation(new String[] { "Guybrush", "Largo" }, 3, new DecideurAleatoire(3));
+        boolean[] fermee = new boolean[1];
+        simulation.getMoteur().getJeu().ajouterSortie(new SortieJeu() {
+            @Override
+            public void afficher(Jeu jeu, String instruction, Collection<Bouton> boutons) {
+            }
+
+            @Override
+            public void fermer() {
+                fermee[0] = true;
+            }
+        });
+        assertTrue(simulation.jouer().terminee());
+        assertTrue(fermee[0]);
+    }
+
+    @Test
+    void testSortieTexte() {
+        Jeu jeu = new Jeu(new String[] { "Guybrush", "Largo" }, 25);
+        StringWriter texte = new StringWriter();
+        jeu.ajouterSortie(new SortieTexte(texte, true));
+        jeu.ajouterSortie(SortieJeu.AUCUNE);
+        MoteurPartie moteur = new MoteurPartie(jeu);
+        moteur.demarrer();
+        moteur.traiter("");
+        jeu.fermerSorties();
+
+        String[] questions = texte.toString().lines().filter(ligne -> ligne.startsWith(">>> ")).toArray(String[]::new);
+        assertEquals(2, questions.length);
+        assertTrue(questions[0].startsWith(">>> Guybrush: "));
+        assertTrue(questions[1].startsWith(">>> Guybrush: Veuillez choisir le nombre de pions wagon"));
+    }
+}
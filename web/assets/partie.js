@@ -0,0 +1,102 @@
+// Adapte la connexion websocket de l'interface au serveur :
+//  - rattache la connexion à la partie indiquée dans l'URL de la page (par exemple index.html?partie=table1).
+//    Sans paramètre, le serveur utilise la partie par défaut ;
+//  - décode les trames envoyées par le serveur. Une trame "complet" contient l'état entier de la partie, une trame
+//    "delta" les différences avec la version précédente (opérations add / remove / replace, à la JSON Patch).
+//    L'interface reçoit toujours l'état complet reconstruit. Si une version manque, le client demande l'état
+//    complet au serveur ("!resync") et ignore les trames delta jusqu'à sa réception ;
+//  - l'état ne contient que les derniers messages du log ("log", le premier ayant le numéro "logDebut"). Les
+//    messages plus anciens sont demandés par pages avec demanderLog(avant) ("!log <avant>") : la trame "log" reçue
+//    en réponse ne change pas l'état, ses messages sont rangés par numéro dans historiqueLog.
+(function () {
+    const partie = new URLSearchParams(window.location.search).get("partie");
+    const COMMANDE_RESYNCHRONISATION = "!resync";
+    const COMMANDE_LOG = "!log ";
+
+    function decouperChemin(chemin) {
+        return chemin.split("/").slice(1).map(cle => cle.replace(/~1/g, "/").replace(/~0/g, "~"));
+    }
+
+    function appliquerOperation(etat, operation) {
+        const cles = decouperChemin(operation.path);
+        if (cles.length === 0) {
+            return operation.value;
+        }
+        let parent = etat;
+        for (const cle of cles.slice(0, -1)) {
+            parent = parent[cle];
+        }
+        const cle = cles[cles.length - 1];
+        if (Array.isArray(parent)) {
+            if (operation.op === "add") {
+                parent.splice(cle === "-" ? parent.length : Number(cle), 0, operation.value);
+            } else if (operation.op === "remove") {
+                parent.splice(Number(cle), 1);
+            } else {
+                parent[Number(cle)] = operation.value;
+            }
+        } else if (operation.op === "remove") {
+            delete parent[cle];
+        } else {
+            parent[cle] = operation.value;
+        }
+        return etat;
+    }
+
+    const WebSocketNatif = window.WebSocket;
+    window.WebSocket = class extends WebSocketNatif {
+        constructor(url, protocoles) {
+            const adresse = new URL(url);
+            if (partie !== null && partie !== "") {
+                adresse.searchParams.set("partie", partie);
+            }
+            super(adresse.toString(), protocoles);
+            this.etat = undefined;
+            this.version = -1;
+            this.historiqueLog = new Map();
+        }
+
+        // Demande les messages du log qui précèdent le message de numéro donné
+        demanderLog(avant) {
+            WebSocketNatif.prototype.send.call(this, COMMANDE_LOG + avant);
+        }
+
+        get onmessage() {
+            return super.onmessage;
+        }
+
+        set onmessage(gestionnaire) {
+            super.onmessage = (evenement) => {
+                if (this.lireTrame(JSON.parse(evenement.data))) {
+                    gestionnaire.call(this, {data: JSON.stringify(this.etat)});
+                }
+            };
+        }
+
+        // Met à jour l'état avec une trame, et renvoie true si l'état a changé
+        lireTrame(trame) {
+            if (trame.type === "complet") {
+                this.etat = trame.etat;
+                this.version = trame.version;
+                return true;
+            }
+            if (trame.type === "log") {
+                trame.messages.forEach((message, i) => this.historiqueLog.set(trame.debut + i, message));
+                return false;
+            }
+            if (this.version < 0) {
+                return false; // resynchronisation en cours
+            }
+            if (trame.version !== this.version + 1) {
+                this.version = -1;
+                WebSocketNatif.prototype.send.call(this, COMMANDE_RESYNCHRONISATION);
+                return false;
+            }
+            for (const operation of trame.ops) {
+                this.etat = appliquerOperation(this.etat, operation);
+            }
+            this.version = trame.version;
+            return true;
+        }
+    };
+})();